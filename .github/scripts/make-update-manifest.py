@@ -0,0 +1,52 @@
+#!/usr/bin/env python3
+"""Write the per-file update manifest for a jpackage app image.
+
+Usage: make-update-manifest.py <image-dir> <os> <version> <out-dir>
+
+Every file in the image is listed with its size and SHA-256. Files outside
+the bundled runtime (launcher, app jar, .cfg) are also copied to <out-dir>
+as individual release assets and referenced by a relative "url", so the
+self-updater can fetch just those when nothing else changed.
+"""
+import hashlib
+import json
+import os
+import shutil
+import sys
+
+
+def sha256(path):
+    h = hashlib.sha256()
+    with open(path, "rb") as f:
+        for chunk in iter(lambda: f.read(1 << 16), b""):
+            h.update(chunk)
+    return h.hexdigest()
+
+
+def main():
+    image, os_name, version, out_dir = sys.argv[1:5]
+    os.makedirs(out_dir, exist_ok=True)
+    prefix = "DecocraftJsonGenerator-%s-%s" % (version, os_name)
+    files = []
+    for root, dirs, names in os.walk(image):
+        dirs.sort()
+        for name in sorted(names):
+            full = os.path.join(root, name)
+            if os.path.islink(full):
+                continue
+            rel = os.path.relpath(full, image).replace(os.sep, "/")
+            entry = {"path": rel, "size": os.path.getsize(full), "sha256": sha256(full)}
+            if os_name != "windows" and os.access(full, os.X_OK):
+                entry["exec"] = True
+            if not rel.startswith("lib/runtime/") and not rel.startswith("runtime/"):
+                asset = "%s-file-%s" % (prefix, rel.replace("/", "__"))
+                shutil.copyfile(full, os.path.join(out_dir, asset))
+                entry["url"] = asset
+            files.append(entry)
+    manifest = {"version": version, "files": files}
+    with open(os.path.join(out_dir, prefix + "-manifest.json"), "w") as f:
+        json.dump(manifest, f, indent=1)
+
+
+if __name__ == "__main__":
+    main()
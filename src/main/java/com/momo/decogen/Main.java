@@ -69,6 +69,9 @@ public class Main extends Application {
                     || (code == KeyCode.Z && event.isShiftDown())) {
                 controller.redo();
                 event.consume();
+            } else if (code == KeyCode.F) {
+                entryList.focusSearch();
+                event.consume();
             }
         });
 
@@ -4,15 +4,32 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class BBModel {
+    /** UV size the model was authored against ("resolution" in the file). */
+    public static class Resolution {
+        private int width;
+        private int height;
+
+        public int getWidth() { return width; }
+        public void setWidth(int width) { this.width = width; }
+
+        public int getHeight() { return height; }
+        public void setHeight(int height) { this.height = height; }
+    }
+
     private String name;
+    private Resolution resolution;
     private List<BBGroup> groups;
     private List<BBElement> elements;
     private List<Object> outliner;
     private List<BBAnimation> animations;
+    private List<BBTexture> textures;
 
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
+    public Resolution getResolution() { return resolution; }
+    public void setResolution(Resolution resolution) { this.resolution = resolution; }
+
     public List<BBGroup> getGroups() { return groups; }
     public void setGroups(List<BBGroup> groups) { this.groups = groups; }
 
@@ -25,6 +42,9 @@ public class BBModel {
     public List<BBAnimation> getAnimations() { return animations; }
     public void setAnimations(List<BBAnimation> animations) { this.animations = animations; }
 
+    public List<BBTexture> getTextures() { return textures; }
+    public void setTextures(List<BBTexture> textures) { this.textures = textures; }
+
     public boolean hasAnimations() {
         return animations != null && !animations.isEmpty();
     }
@@ -1,6 +1,7 @@
 package com.momo.decogen.bbmodel;
 
 import com.google.gson.Gson;
+import com.momo.decogen.diag.ParseEvent;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -9,7 +10,20 @@ public class BBModelParser {
     private static final Gson gson = new Gson();
 
     public static BBModel parse(Path bbModelFile) throws IOException {
+        ParseEvent event = new ParseEvent();
+        event.begin();
         String json = Files.readString(bbModelFile);
-        return gson.fromJson(json, BBModel.class);
+        BBModel model = gson.fromJson(json, BBModel.class);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = bbModelFile.toString();
+            event.bytes = Files.size(bbModelFile);
+            if (model != null) {
+                event.elements = model.getElements() != null ? model.getElements().size() : 0;
+                event.animations = model.getAnimations() != null ? model.getAnimations().size() : 0;
+            }
+            event.commit();
+        }
+        return model;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.momo.decogen.bbmodel;
+
+/**
+ * A texture the model was authored with, as listed in the file's
+ * "textures" array. Only the name and path are mapped; the embedded
+ * base64 image ("source") is skipped by the parser, never decoded.
+ */
+public class BBTexture {
+    private String name;
+    private String path;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+}
\ No newline at end of file
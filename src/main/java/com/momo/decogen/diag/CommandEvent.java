@@ -0,0 +1,63 @@
+package com.momo.decogen.diag;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.IntSupplier;
+
+/**
+ * JFR event spanning one user command on the controller. Used as a
+ * try-with-resources resource, with any result alert shown after the try
+ * block so the time a modal stays open isn't counted:
+ * <pre>
+ *   CommandEvent command = CommandEvent.begin("autoMatchTextures", entries::size);
+ *   try (command) {
+ *       ...
+ *   }
+ * </pre>
+ * When no recording has the event enabled, begin/close cost next to nothing.
+ */
+@Name("com.momo.decogen.Command")
+@Label("Command")
+@Category({"Decocraft JSON Generator", "Commands"})
+@Description("A controller command, with the entry count before and after")
+@StackTrace(false)
+public final class CommandEvent extends Event implements AutoCloseable {
+
+    @Label("Command")
+    String command;
+
+    @Label("Entries Before")
+    int entriesBefore;
+
+    @Label("Entries After")
+    int entriesAfter;
+
+    private transient IntSupplier entryCount;
+    private transient boolean closed;
+
+    public static CommandEvent begin(String command, IntSupplier entryCount) {
+        CommandEvent ev = new CommandEvent();
+        // Kept even when disabled: a recording may start before close().
+        ev.command = command;
+        ev.entryCount = entryCount;
+        if (ev.isEnabled()) ev.entriesBefore = entryCount.getAsInt();
+        ev.begin();
+        return ev;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        end();
+        if (shouldCommit()) {
+            entriesAfter = entryCount.getAsInt();
+            commit();
+        }
+    }
+}
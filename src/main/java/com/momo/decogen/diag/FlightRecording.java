@@ -0,0 +1,55 @@
+package com.momo.decogen.diag;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Start/stop a JFR recording from inside the app, so a user who hits a
+ * hang can send a .jfr file without knowing about -XX:StartFlightRecording.
+ * Uses the JDK's "profile" settings (method sampling, allocation, I/O, GC)
+ * plus this app's own events with no duration threshold.
+ */
+public final class FlightRecording {
+
+    private static Recording recording;
+
+    private FlightRecording() {}
+
+    public static synchronized boolean isRunning() {
+        return recording != null;
+    }
+
+    public static synchronized void start(Path destination) throws IOException {
+        if (recording != null) return;
+        Configuration config;
+        try {
+            config = Configuration.getConfiguration("profile");
+        } catch (ParseException e) {
+            throw new IOException("Could not load JFR settings: " + e.getMessage(), e);
+        }
+        Recording r = new Recording(config);
+        r.setName("Decocraft JSON Generator");
+        r.enable(CommandEvent.class).withoutThreshold();
+        r.enable(ParseEvent.class).withoutThreshold();
+        r.enable(SerializeEvent.class).withoutThreshold();
+        r.setToDisk(true);
+        r.setDestination(destination);
+        r.start();
+        recording = r;
+    }
+
+    /** Stop the recording; the file is written to its destination. */
+    public static synchronized Path stop() {
+        if (recording == null) return null;
+        Recording r = recording;
+        recording = null;
+        Path destination = r.getDestination();
+        r.stop();
+        r.close();
+        return destination;
+    }
+}
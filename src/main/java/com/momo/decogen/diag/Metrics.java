@@ -0,0 +1,181 @@
+package com.momo.decogen.diag;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide metrics registry: counters, timers and histograms keyed by
+ * name. Off by default (turn on from the Diagnostics panel, or start with
+ * {@code -Ddecogen.metrics=true}); while off every call is a single
+ * volatile read, and {@link #time} hands back a shared no-op span.
+ *
+ * Timing a command (declared before the try, so the body needn't refer
+ * to it):
+ * <pre>
+ *   Metrics.Span span = Metrics.time("entries.autoMatch");
+ *   try (span) {
+ *       ...
+ *   }
+ * </pre>
+ * When the command ends in a modal alert, show it after the try block so
+ * the time the alert stays open isn't counted.
+ */
+public final class Metrics {
+
+    /** A running timer. Stopping twice records once. */
+    public interface Span extends AutoCloseable {
+        void stop();
+
+        @Override
+        default void close() { stop(); }
+    }
+
+    private static final Span NOOP = () -> {};
+
+    private static volatile boolean enabled = Boolean.getBoolean("decogen.metrics");
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> timers = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static boolean isEnabled() { return enabled; }
+    public static void setEnabled(boolean on) { enabled = on; }
+
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    public static void add(String name, long delta) {
+        if (!enabled) return;
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    /** Record one sample (a size, a count) in the named histogram. */
+    public static void record(String name, long value) {
+        if (!enabled) return;
+        histograms.computeIfAbsent(name, k -> new Histogram()).record(value);
+    }
+
+    /** Start timing; the elapsed time is recorded under {@code name} on stop. */
+    public static Span time(String name) {
+        if (!enabled) return NOOP;
+        long start = System.nanoTime();
+        return new Span() {
+            private boolean stopped;
+
+            @Override
+            public void stop() {
+                if (stopped) return;
+                stopped = true;
+                timers.computeIfAbsent(name, k -> new Histogram()).record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    public static void reset() {
+        counters.clear();
+        timers.clear();
+        histograms.clear();
+    }
+
+    /** Plain-text report of everything recorded so far, sorted by name. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Decocraft JSON Generator metrics \u2014 ")
+                .append(LocalDateTime.now().withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .append(enabled ? "" : "  (recording off)")
+                .append("\n\n");
+
+        sb.append("Timers (ms)\n");
+        if (timers.isEmpty()) {
+            sb.append("  (none)\n");
+        } else {
+            sb.append(String.format(Locale.ROOT, "  %-28s %7s %9s %9s %9s %9s %9s%n",
+                    "", "count", "total", "mean", "p50", "p95", "max"));
+        }
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(timers).entrySet()) {
+            Histogram h = e.getValue();
+            long n = h.count();
+            sb.append(String.format(Locale.ROOT, "  %-28s %7d %9.2f %9.3f %9.3f %9.3f %9.3f%n",
+                    e.getKey(), n, ms(h.sum()), n == 0 ? 0 : ms(h.sum()) / n,
+                    ms(h.percentile(0.50)), ms(h.percentile(0.95)), ms(h.max())));
+        }
+
+        sb.append("\nHistograms\n");
+        if (histograms.isEmpty()) sb.append("  (none)\n");
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = e.getValue();
+            long n = h.count();
+            sb.append(String.format(Locale.ROOT, "  %-28s count=%d mean=%d p50\u2264%d p95\u2264%d max=%d%n",
+                    e.getKey(), n, n == 0 ? 0 : h.sum() / n,
+                    h.percentile(0.50), h.percentile(0.95), h.max()));
+        }
+
+        sb.append("\nCounters\n");
+        if (counters.isEmpty()) sb.append("  (none)\n");
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(counters).entrySet()) {
+            sb.append(String.format(Locale.ROOT, "  %-28s %d%n", e.getKey(), e.getValue().sum()));
+        }
+        return sb.toString();
+    }
+
+    public static void writeReport(Path file) throws IOException {
+        Files.writeString(file, report(), StandardCharsets.UTF_8);
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Lock-free histogram over power-of-two buckets: bucket i holds values
+     * in [2^(i-1), 2^i), bucket 0 holds zero. Percentiles are reported as
+     * the bucket's upper bound (capped at the observed max), which is
+     * plenty for spotting where time goes.
+     */
+    private static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0) value = 0;
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            count.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        long count() { return count.sum(); }
+        long sum() { return sum.sum(); }
+        long max() { return max.get(); }
+
+        long percentile(double q) {
+            long n = count();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(q * n);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min((1L << i) - 1, max());
+                }
+            }
+            return max();
+        }
+    }
+}
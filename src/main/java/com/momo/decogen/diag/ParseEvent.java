@@ -0,0 +1,31 @@
+package com.momo.decogen.diag;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JFR event for reading and parsing one .bbmodel file. */
+@Name("com.momo.decogen.Parse")
+@Label("Model Parse")
+@Category({"Decocraft JSON Generator", "Pipeline"})
+@Description("Reading and deserializing a .bbmodel file")
+@StackTrace(false)
+public final class ParseEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Elements")
+    public int elements;
+
+    @Label("Animations")
+    public int animations;
+}
@@ -0,0 +1,29 @@
+package com.momo.decogen.diag;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for turning entries into JSON: the export/preview serializer
+ * and the undo snapshots, which round-trip the whole list through Gson.
+ */
+@Name("com.momo.decogen.Serialize")
+@Label("Serialize")
+@Category({"Decocraft JSON Generator", "Pipeline"})
+@Description("Serializing the entry list to JSON")
+@StackTrace(false)
+public final class SerializeEvent extends Event {
+
+    @Label("Purpose")
+    public String purpose;
+
+    @Label("Entries")
+    public int entries;
+
+    @Label("Characters")
+    public long chars;
+}
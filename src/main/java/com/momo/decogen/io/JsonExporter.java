@@ -2,6 +2,11 @@ package com.momo.decogen.io;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.momo.decogen.diag.SerializeEvent;
 import com.momo.decogen.model.Action;
 import com.momo.decogen.model.AnimationPair;
 import com.momo.decogen.model.Composite;
@@ -11,12 +16,22 @@ import com.momo.decogen.model.Script;
 import com.momo.decogen.model.SoundPair;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -215,6 +230,8 @@ public class JsonExporter {
     // === Top-level serialization ===
 
     public static String toJson(List<DecoEntry> entries) {
+        SerializeEvent event = new SerializeEvent();
+        event.begin();
         List<Map<String, Object>> ordered = entries.stream()
                 .map(JsonExporter::toOrderedMap)
                 .toList();
@@ -236,6 +253,13 @@ public class JsonExporter {
             json = compactStringArray(json, field);
         }
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.purpose = "json";
+            event.entries = entries.size();
+            event.chars = json.length();
+            event.commit();
+        }
         return json;
     }
 
@@ -255,4 +279,164 @@ public class JsonExporter {
         String json = toJson(entries);
         Files.writeString(outputFile, json);
     }
-}
\ No newline at end of file
+
+    // === Sharded export (one file per tab) ===
+
+    /** Tab used for entries that have no {@code tabs} value. */
+    public static final String DEFAULT_TAB = "misc";
+
+    public static final String MANIFEST_FILE = "manifest.json";
+
+    // What shardBaseName can produce, plus a numeric suffix and ".json".
+    private static final Pattern SAFE_SHARD_NAME = Pattern.compile("[a-z0-9_-]+\\.json");
+
+    /** One written shard: the tab it covers, its file name, and its size. */
+    public record Shard(String tab, String file, int entries, long bytes) {}
+
+    /**
+     * Group entries by their {@code tabs} value, keeping first-seen tab order
+     * and the list order of entries within each tab.
+     */
+    public static Map<String, List<DecoEntry>> partitionByTab(List<DecoEntry> entries) {
+        Map<String, List<DecoEntry>> shards = new LinkedHashMap<>();
+        for (DecoEntry e : entries) {
+            String tab = e.getTabs();
+            if (tab == null || tab.isBlank()) tab = DEFAULT_TAB;
+            shards.computeIfAbsent(tab, k -> new ArrayList<>()).add(e);
+        }
+        return shards;
+    }
+
+    /**
+     * Write one {@code <tab>.json} per tab into {@code outputDir}, plus a
+     * {@link #MANIFEST_FILE} listing every shard with its entry count and
+     * byte size. Shards are serialized and written concurrently; each file
+     * goes to a temp file first and is renamed into place so a reader never
+     * sees a half-written shard. Shards an earlier export listed in its
+     * manifest but this one didn't write (a tab since emptied or renamed)
+     * are deleted once the new manifest is in place.
+     */
+    public static List<Shard> exportSharded(List<DecoEntry> entries, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        Set<String> previous = previousShardFiles(outputDir);
+        Map<String, List<DecoEntry>> byTab = partitionByTab(entries);
+
+        // Resolve file names up front so two tabs that sanitize to the same
+        // name can't race for one file.
+        Map<String, String> fileNames = new LinkedHashMap<>();
+        Set<String> used = new HashSet<>();
+        used.add(MANIFEST_FILE);
+        for (String tab : byTab.keySet()) {
+            String base = shardBaseName(tab);
+            String name = base + ".json";
+            for (int i = 2; !used.add(name); i++) name = base + "_" + i + ".json";
+            fileNames.put(tab, name);
+        }
+
+        int threads = Math.max(1, Math.min(byTab.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "shard-export");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Shard> written = new ArrayList<>();
+        try {
+            List<Future<Shard>> futures = new ArrayList<>();
+            for (Map.Entry<String, List<DecoEntry>> e : byTab.entrySet()) {
+                String tab = e.getKey();
+                List<DecoEntry> shardEntries = e.getValue();
+                String fileName = fileNames.get(tab);
+                futures.add(pool.submit(() -> {
+                    byte[] bytes = toJson(shardEntries).getBytes(StandardCharsets.UTF_8);
+                    writeAtomically(outputDir.resolve(fileName), bytes);
+                    return new Shard(tab, fileName, shardEntries.size(), bytes.length);
+                }));
+            }
+            for (Future<Shard> f : futures) {
+                written.add(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            throw new IOException(cause.getMessage(), cause);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        writeAtomically(outputDir.resolve(MANIFEST_FILE),
+                toManifestJson(written).getBytes(StandardCharsets.UTF_8));
+        previous.removeAll(fileNames.values());
+        for (String stale : previous) {
+            Files.deleteIfExists(outputDir.resolve(stale));
+        }
+        return written;
+    }
+
+    /**
+     * Shard file names listed in the manifest already in {@code outputDir};
+     * empty if there is none or it can't be read. Only plain .json names
+     * directly in the folder are returned, whatever the manifest says.
+     */
+    private static Set<String> previousShardFiles(Path outputDir) {
+        Set<String> files = new HashSet<>();
+        Path manifest = outputDir.resolve(MANIFEST_FILE);
+        if (!Files.isRegularFile(manifest)) return files;
+        try {
+            JsonElement shards = JsonParser.parseString(Files.readString(manifest))
+                    .getAsJsonObject().get("shards");
+            if (shards == null || !shards.isJsonArray()) return files;
+            for (JsonElement el : shards.getAsJsonArray()) {
+                if (!el.isJsonObject()) continue;
+                JsonElement file = ((JsonObject) el).get("file");
+                if (file == null || !file.isJsonPrimitive()) continue;
+                String name = file.getAsString();
+                if (!name.equals(MANIFEST_FILE) && SAFE_SHARD_NAME.matcher(name).matches()) files.add(name);
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            System.err.println("Ignoring unreadable " + manifest + ": " + e.getMessage());
+        }
+        return files;
+    }
+
+    private static String toManifestJson(List<Shard> shards) {
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        int total = 0;
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Shard s : shards) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("tab", s.tab());
+            m.put("file", s.file());
+            m.put("entries", s.entries());
+            m.put("bytes", s.bytes());
+            list.add(m);
+            total += s.entries();
+        }
+        manifest.put("total_entries", total);
+        manifest.put("shards", list);
+        return gson.toJson(manifest);
+    }
+
+    /** Lower-case the tab and keep only characters that are safe in a file name. */
+    private static String shardBaseName(String tab) {
+        String name = tab.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]+", "_");
+        name = name.replaceAll("^_+|_+$", "");
+        return name.isEmpty() ? DEFAULT_TAB : name;
+    }
+
+    private static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.momo.decogen.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Texture dimensions straight from the PNG header: the 8-byte signature and
+ * the IHDR chunk that must follow it, 24 bytes in one small read. No pixel
+ * data is decoded, so checking thousands of textures costs about as much
+ * as listing them.
+ *
+ * Results are cached per path and dropped when the file's modification
+ * time or size changes. {@link #cached} reads the cache alone, for callers
+ * on the UI thread. Safe to call from any thread.
+ */
+public final class PngInspector {
+
+    /** Width and height in pixels, as declared in IHDR. */
+    public record Size(int width, int height) {
+
+        /** Both sides are powers of two (16, 32, 64, ...). */
+        public boolean isPowerOfTwo() {
+            return Integer.bitCount(width) == 1 && Integer.bitCount(height) == 1;
+        }
+
+        /**
+         * Frames in a vertical flipbook strip: height / width when the
+         * texture is taller than wide by a whole multiple, otherwise 1.
+         */
+        public int flipbookFrames() {
+            return height > width && height % width == 0 ? height / width : 1;
+        }
+
+        @Override
+        public String toString() {
+            return width + "\u00D7" + height;
+        }
+    }
+
+    private record Cached(FileTime modified, long bytes, Size size) {}
+
+    // Kept for a file that couldn't be read, so isCached holds for it too.
+    // Never matches real attributes, so inspect tries the file again.
+    private static final Cached UNREADABLE = new Cached(null, -1, null);
+
+    private static final byte[] SIGNATURE = {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'
+    };
+    private static final int IHDR = ('I' << 24) | ('H' << 16) | ('D' << 8) | 'R';
+    private static final int HEADER_BYTES = 24;
+
+    private static final Map<Path, Cached> CACHE = new ConcurrentHashMap<>();
+
+    private PngInspector() {}
+
+    /**
+     * Dimensions of the PNG at {@code file}, or null if it can't be read or
+     * isn't a PNG.
+     */
+    public static Size inspect(Path file) {
+        if (file == null) return null;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            Cached cached = CACHE.get(file);
+            if (cached != null && attrs.lastModifiedTime().equals(cached.modified) && cached.bytes == attrs.size()) {
+                return cached.size;
+            }
+            Size size = readHeader(file);
+            CACHE.put(file, new Cached(attrs.lastModifiedTime(), attrs.size(), size));
+            return size;
+        } catch (IOException e) {
+            CACHE.put(file, UNREADABLE);
+            return null;
+        }
+    }
+
+    /**
+     * The size {@link #inspect} last read for {@code file}, without touching
+     * the disk; null if it hasn't been inspected or isn't a PNG. May be out
+     * of date if the file changed since.
+     */
+    public static Size cached(Path file) {
+        if (file == null) return null;
+        Cached cached = CACHE.get(file);
+        return cached != null ? cached.size : null;
+    }
+
+    /**
+     * Whether {@link #inspect} has read {@code file}, including when it
+     * found no PNG there. Like {@link #cached}, doesn't touch the disk.
+     */
+    public static boolean isCached(Path file) {
+        return file != null && CACHE.containsKey(file);
+    }
+
+    private static Size readHeader(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) < 0) return null;
+            }
+        }
+        buf.flip();
+        for (byte b : SIGNATURE) {
+            if (buf.get() != b) return null;
+        }
+        buf.getInt(); // IHDR length, always 13
+        if (buf.getInt() != IHDR) return null;
+        int width = buf.getInt();
+        int height = buf.getInt();
+        if (width <= 0 || height <= 0) return null;
+        return new Size(width, height);
+    }
+}
@@ -20,159 +20,19 @@ public class ChainBuilder {
     /**
      * Build rainbow chains for entries.
      * Groups entries by (model + wood type + state), sorts by color, links each to the next.
+     * See {@link ChainEngine#RAINBOW}.
      */
     public static List<DecoEntry> buildRainbowChains(List<DecoEntry> entries) {
-        // First pass: which models actually have real wood variants (birch,
-        // oak, cherry, palm, spruce, ebony)? For those models, "white"/"black"
-        // behave as woods. For models with no real woods, "white"/"black" are
-        // rainbow colors and should chain with the other color variants.
-        Set<String> modelsWithRealWood = new HashSet<>();
-        for (DecoEntry entry : entries) {
-            if (entry.getModel() == null) continue;
-            if (hasRealWood(entry)) modelsWithRealWood.add(entry.getModel());
-        }
-
-        Set<String> pairedStates = detectPairedStates(entries);
-
-        Map<String, List<DecoEntry>> groups = new LinkedHashMap<>();
-
-        for (DecoEntry entry : entries) {
-            if (entry.getModel() == null) continue;
-
-            String wood = null;
-            if (modelsWithRealWood.contains(entry.getModel())) {
-                wood = ColorUtils.extractWood(entry.getName());
-                if (wood == null && entry.getMaterial() != null) {
-                    wood = ColorUtils.extractWoodFromMaterial(entry.getMaterial());
-                }
-            }
-
-            String state = extractState(entry, pairedStates);
-            String key = entry.getModel()
-                    + ":" + (wood != null ? wood : "no_wood")
-                    + ":" + (state != null ? state : "no_state");
-            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
-        }
-
-        List<String> sortedKeys = new ArrayList<>(groups.keySet());
-        Collections.sort(sortedKeys);
-
-        List<DecoEntry> result = new ArrayList<>();
-
-        for (String key : sortedKeys) {
-            List<DecoEntry> list = groups.get(key);
-
-            list.sort((a, b) -> {
-                String colorA = ColorUtils.extractColor(a.getName());
-                String colorB = ColorUtils.extractColor(b.getName());
-                return Integer.compare(
-                        ColorUtils.getColorIndex(colorA),
-                        ColorUtils.getColorIndex(colorB)
-                );
-            });
-
-            if (list.size() >= 2) {
-                for (int i = 0; i < list.size(); i++) {
-                    DecoEntry current = list.get(i);
-                    DecoEntry next = list.get((i + 1) % list.size());
-
-                    String linkTarget = getLinkTarget(next);
-                    if (linkTarget != null) {
-                        setModelSwitchLink(current, linkTarget);
-                    }
-                }
-            }
-
-            result.addAll(list);
-        }
-
-        for (DecoEntry entry : entries) {
-            if (entry.getModel() == null && !result.contains(entry)) {
-                result.add(entry);
-            }
-        }
-
-        return result;
+        return ChainEngine.build(ChainEngine.RAINBOW, entries);
     }
 
     /**
      * Build wood chains for entries.
      * Groups by (model + color + state), sorts by wood type, links each to next.
+     * See {@link ChainEngine#WOOD_CHAIN}.
      */
     public static List<DecoEntry> buildWoodChains(List<DecoEntry> entries) {
-        Set<String> pairedStates = detectPairedStates(entries);
-        Map<String, List<DecoEntry>> groups = new LinkedHashMap<>();
-
-        for (DecoEntry entry : entries) {
-            if (entry.getModel() == null) continue;
-
-            String wood = ColorUtils.extractWood(entry.getName());
-
-            if (wood == null && entry.getMaterial() != null) {
-                wood = ColorUtils.extractWoodFromMaterial(entry.getMaterial());
-            }
-
-            if (wood == null) continue;
-
-            String color = ColorUtils.extractColor(entry.getName());
-            // "Closet White" parses as wood=white AND color=white. For pure
-            // wood-only entries that collision would split each wood into its
-            // own singleton group. Treat color as absent when it mirrors wood.
-            if (color != null && color.equals(wood)) color = null;
-
-            String state = extractState(entry, pairedStates);
-            String key = entry.getModel()
-                    + ":" + (color != null ? color : "no_color")
-                    + ":" + (state != null ? state : "no_state");
-
-            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
-        }
-
-        List<String> sortedKeys = new ArrayList<>(groups.keySet());
-        Collections.sort(sortedKeys);
-
-        List<DecoEntry> result = new ArrayList<>();
-        Set<DecoEntry> processed = new HashSet<>();
-
-        for (String key : sortedKeys) {
-            List<DecoEntry> list = groups.get(key);
-
-            list.sort((a, b) -> {
-                String woodA = ColorUtils.extractWood(a.getName());
-                if (woodA == null) woodA = ColorUtils.extractWoodFromMaterial(a.getMaterial());
-
-                String woodB = ColorUtils.extractWood(b.getName());
-                if (woodB == null) woodB = ColorUtils.extractWoodFromMaterial(b.getMaterial());
-
-                return Integer.compare(
-                        ColorUtils.getWoodIndex(woodA),
-                        ColorUtils.getWoodIndex(woodB)
-                );
-            });
-
-            if (list.size() >= 2) {
-                for (int i = 0; i < list.size(); i++) {
-                    DecoEntry current = list.get(i);
-                    DecoEntry next = list.get((i + 1) % list.size());
-
-                    String linkTarget = getLinkTarget(next);
-                    if (linkTarget != null) {
-                        setModelSwitchLink(current, linkTarget);
-                    }
-                }
-            }
-
-            result.addAll(list);
-            processed.addAll(list);
-        }
-
-        for (DecoEntry entry : entries) {
-            if (!processed.contains(entry)) {
-                result.add(entry);
-            }
-        }
-
-        return result;
+        return ChainEngine.build(ChainEngine.WOOD_CHAIN, entries);
     }
 
     /**
@@ -229,59 +89,70 @@ public class ChainBuilder {
         if (suffix == null) return 0;
         String norm = suffix.trim().toLowerCase();
         if (norm.isEmpty()) return 0;
+        return linkStateCycles(entries, List.of(norm));
+    }
 
-        Map<String, DecoEntry> byLinkTarget = new HashMap<>();
-        for (DecoEntry e : entries) {
-            String target = getLinkTarget(e);
-            if (target != null) byLinkTarget.put(target.toLowerCase(), e);
+    /**
+     * Generalisation of {@link #linkStatePairs} to any number of states.
+     * Every entry's link target is split into tokens once; removing all
+     * tokens that are in {@code states} gives its base, and the removed
+     * tokens its state ("" for none). Entries sharing a base form one state
+     * group, e.g. closet_7 / closet_7_open / closet_7_open_lit, and each
+     * group of two or more becomes an on_use cycle: base state first, then
+     * fewer state tokens before more, then the order of {@code states}.
+     * Each entry links to the next and the last back to the first, so a
+     * two-state group is exactly the bidirectional pair.
+     *
+     * If two entries land on the same base and state, the first in list
+     * order is used. Does not touch tool_modelswitch.
+     *
+     * Returns the number of groups linked.
+     */
+    public static int linkStateCycles(List<DecoEntry> entries, List<String> states) {
+        Map<String, Integer> stateRank = new HashMap<>();
+        for (String st : states) {
+            String norm = st.trim().toLowerCase();
+            if (!norm.isEmpty()) stateRank.putIfAbsent(norm, stateRank.size());
         }
+        if (stateRank.isEmpty()) return 0;
 
-        int pairs = 0;
-        Set<DecoEntry> seen = new HashSet<>();
-        for (DecoEntry variant : entries) {
-            if (seen.contains(variant)) continue;
-            String target = getLinkTarget(variant);
-            if (target == null) continue;
-
-            String baseKey = stripStateToken(target.toLowerCase(), norm);
-            if (baseKey == null || baseKey.isEmpty()) continue;
-
-            DecoEntry base = byLinkTarget.get(baseKey);
-            if (base == null || base == variant) continue;
-            if (seen.contains(base)) continue;
-
-            setOnUseLink(base, getLinkTarget(variant));
-            setOnUseLink(variant, getLinkTarget(base));
-            seen.add(base);
-            seen.add(variant);
-            pairs++;
+        record Member(DecoEntry entry, int stateCount, int firstRank) {}
+        Map<String, Map<String, Member>> groups = new LinkedHashMap<>();
+        for (DecoEntry e : entries) {
+            String target = getLinkTarget(e);
+            if (target == null || target.isEmpty()) continue;
+            String[] parts = target.toLowerCase().split("_");
+            List<String> base = new ArrayList<>(parts.length);
+            List<String> state = new ArrayList<>(2);
+            int firstRank = -1;
+            for (String p : parts) {
+                Integer rank = stateRank.get(p);
+                if (rank == null) {
+                    base.add(p);
+                } else {
+                    state.add(p);
+                    if (firstRank < 0) firstRank = rank;
+                }
+            }
+            if (base.isEmpty()) continue;
+            groups.computeIfAbsent(String.join("_", base), k -> new LinkedHashMap<>())
+                    .putIfAbsent(String.join("_", state), new Member(e, state.size(), firstRank));
         }
-        return pairs;
-    }
 
-    /**
-     * Remove the first occurrence of {@code token} (compared case-insensitively
-     * as a whole underscore-delimited segment) from {@code text}. Returns null
-     * if the token isn't present, otherwise the remaining tokens rejoined by
-     * underscores. Examples with token="open":
-     *   closet_7_birch_open &rarr; closet_7_birch
-     *   closet_7_open_white &rarr; closet_7_white
-     *   closet_7_white      &rarr; null
-     */
-    private static String stripStateToken(String text, String token) {
-        if (text == null) return null;
-        String[] parts = text.split("_");
-        List<String> out = new ArrayList<>(parts.length);
-        boolean removed = false;
-        for (String p : parts) {
-            if (!removed && p.equalsIgnoreCase(token)) {
-                removed = true;
-                continue;
+        Comparator<Member> cycleOrder = Comparator.comparingInt(Member::stateCount)
+                .thenComparingInt(Member::firstRank);
+        int linked = 0;
+        for (Map<String, Member> group : groups.values()) {
+            if (group.size() < 2) continue;
+            List<Member> cycle = new ArrayList<>(group.values());
+            cycle.sort(cycleOrder); // stable: ties stay in list order
+            for (int i = 0; i < cycle.size(); i++) {
+                DecoEntry next = cycle.get((i + 1) % cycle.size()).entry();
+                setOnUseLink(cycle.get(i).entry(), getLinkTarget(next));
             }
-            out.add(p);
+            linked++;
         }
-        if (!removed) return null;
-        return String.join("_", out);
+        return linked;
     }
 
     /**
@@ -289,7 +160,7 @@ public class ChainBuilder {
      * ebony) — NOT the ambiguous "white"/"black" which only live in
      * WOOD_FRAMES. Checks the name first, then falls back to the material.
      */
-    private static boolean hasRealWood(DecoEntry entry) {
+    static boolean hasRealWood(DecoEntry entry) {
         // extractWood(name) already restricts to the real-wood list.
         if (ColorUtils.extractWood(entry.getName()) != null) return true;
         if (entry.getMaterial() != null) {
@@ -303,7 +174,11 @@ public class ChainBuilder {
         return false;
     }
 
-    private static String getLinkTarget(DecoEntry entry) {
+    /**
+     * The value other entries use to link to this one: its decoref, or its
+     * material when no decoref is set.
+     */
+    public static String getLinkTarget(DecoEntry entry) {
         if (entry.getDecoref() != null && !entry.getDecoref().isEmpty()) {
             return entry.getDecoref();
         }
@@ -337,38 +212,61 @@ public class ChainBuilder {
      * isolated `closet_on` with no `closet` partner keeps chaining with
      * everything else.
      */
-    private static Set<String> detectPairedStates(List<DecoEntry> entries) {
+    static Set<String> detectPairedStates(List<DecoEntry> entries) {
         Set<String> targets = new HashSet<>();
         for (DecoEntry e : entries) {
             String t = getLinkTarget(e);
             if (t != null) targets.add(t.toLowerCase());
         }
 
+        // One split per target, and only its state tokens are tried.
         Set<String> paired = new HashSet<>();
         for (String target : targets) {
-            for (String suffix : KNOWN_STATE_SUFFIXES) {
-                String base = stripStateToken(target, suffix);
-                if (base != null && !base.isEmpty() && targets.contains(base)) {
-                    paired.add(suffix);
-                }
+            String[] parts = target.split("_");
+            for (int i = 0; i < parts.length; i++) {
+                String suffix = parts[i];
+                if (paired.contains(suffix) || !KNOWN_STATE_SUFFIXES.contains(suffix)) continue;
+                if (firstIndexOf(parts, suffix) != i) continue;
+                String base = joinWithout(parts, i);
+                if (!base.isEmpty() && targets.contains(base)) paired.add(suffix);
             }
+            if (paired.size() == KNOWN_STATE_SUFFIXES.size()) break;
         }
         return paired;
     }
 
+    private static int firstIndexOf(String[] parts, String token) {
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i].equals(token)) return i;
+        }
+        return -1;
+    }
+
+    private static String joinWithout(String[] parts, int skip) {
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (int i = 0; i < parts.length; i++) {
+            if (i == skip) continue;
+            if (!first) sb.append('_');
+            sb.append(parts[i]);
+            first = false;
+        }
+        return sb.toString();
+    }
+
     /**
      * Return the first paired state suffix that appears as a token in this
      * entry's decoref/material, or null if none. {@code pairedStates} is
      * usually the output of {@link #detectPairedStates}, so only suffixes
      * that actually have a partner entry in the current set count.
      */
-    private static String extractState(DecoEntry entry, Set<String> pairedStates) {
+    static String extractState(DecoEntry entry, Set<String> pairedStates) {
         String target = getLinkTarget(entry);
         if (target == null) return null;
-        String lower = target.toLowerCase();
+        if (pairedStates.isEmpty()) return null;
+        List<String> parts = Arrays.asList(target.toLowerCase().split("_"));
         for (String suffix : KNOWN_STATE_SUFFIXES) {
-            if (!pairedStates.contains(suffix)) continue;
-            if (stripStateToken(lower, suffix) != null) return suffix;
+            if (pairedStates.contains(suffix) && parts.contains(suffix)) return suffix;
         }
         return null;
     }
@@ -0,0 +1,346 @@
+package com.momo.decogen.logic;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.momo.decogen.model.DecoEntry;
+import com.momo.decogen.model.Script;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Generic "group by some attributes, order by others, link each group as a
+ * tool_modelswitch cycle" builder. The Rainbow and Wood chains are two
+ * {@link Chain}s over built-in {@link Dimension}s; more chains (size,
+ * wood-then-color, custom token lists) can be declared in
+ * {@code ~/.decocraft-json-generator/chains.json}:
+ * <pre>
+ * {
+ *   "dimensions": { "style": ["modern", "rustic", "royal"] },
+ *   "chains": [
+ *     { "name": "Size", "groupBy": ["model", "color", "wood", "state"], "orderBy": ["size"] },
+ *     { "name": "Wood then Color", "groupBy": ["model", "state"], "orderBy": ["wood", "color"] }
+ *   ]
+ * }
+ * </pre>
+ * Built-in dimensions are {@code model}, {@code color}, {@code wood},
+ * {@code state} and {@code size}; a custom dimension matches the first of
+ * its values that appears as a whole word in the entry's name or decoref.
+ *
+ * {@link #build} classifies every entry once (each dimension evaluated a
+ * single time per entry), groups on the joined group-by values, and then
+ * sorts and links each group independently, in parallel for large lists.
+ * Groups come out in order of their joined key; entries that can't be
+ * chained follow in their original order.
+ */
+public final class ChainEngine {
+
+    private static final int PARALLEL_THRESHOLD = 1024;
+    private static final int UNRANKED = 999;
+
+    /** One attribute of an entry that a chain can group or order by. */
+    public interface Dimension {
+        String name();
+
+        /** The entry's value, or null if it has none. */
+        String classify(DecoEntry entry, Context ctx);
+
+        /** Position of {@code value} in chain order; lower comes first. */
+        int rank(String value);
+    }
+
+    /**
+     * A chain definition. Entries missing any {@code required} dimension are
+     * left out; with {@code needsOrderValue}, so are entries that have none
+     * of the {@code orderBy} values.
+     */
+    public record Chain(String name, List<Dimension> groupBy, List<Dimension> orderBy,
+                        List<Dimension> required, boolean needsOrderValue) {
+
+        public String describe() {
+            return "group by " + names(groupBy) + ", order by " + names(orderBy);
+        }
+
+        private static String names(List<Dimension> dims) {
+            List<String> out = new ArrayList<>();
+            for (Dimension d : dims) out.add(d.name());
+            return dims.isEmpty() ? "nothing" : String.join(", ", out);
+        }
+    }
+
+    /** Whole-list facts some dimensions need, computed at most once per build. */
+    public static final class Context {
+        private final List<DecoEntry> entries;
+        private Set<String> pairedStates;
+        private Set<String> modelsWithRealWood;
+
+        Context(List<DecoEntry> entries) {
+            this.entries = entries;
+        }
+
+        synchronized Set<String> pairedStates() {
+            if (pairedStates == null) pairedStates = ChainBuilder.detectPairedStates(entries);
+            return pairedStates;
+        }
+
+        synchronized Set<String> modelsWithRealWood() {
+            if (modelsWithRealWood == null) {
+                Set<String> models = new HashSet<>();
+                for (DecoEntry e : entries) {
+                    if (e.getModel() != null && ChainBuilder.hasRealWood(e)) models.add(e.getModel());
+                }
+                modelsWithRealWood = models;
+            }
+            return modelsWithRealWood;
+        }
+    }
+
+    private record Simple(String name, Classifier classifier, Ranker ranker) implements Dimension {
+        public String classify(DecoEntry entry, Context ctx) { return classifier.classify(entry, ctx); }
+        public int rank(String value) { return ranker.rank(value); }
+    }
+
+    private interface Classifier { String classify(DecoEntry e, Context ctx); }
+    private interface Ranker { int rank(String value); }
+
+    // --- Built-in dimensions ---
+
+    public static final Dimension MODEL = new Simple("model", (e, ctx) -> e.getModel(), v -> UNRANKED);
+
+    public static final Dimension COLOR = new Simple("color",
+            (e, ctx) -> ColorUtils.extractColor(e.getName()), ColorUtils::getColorIndex);
+
+    /** Wood from the name, else from the material (which also knows white/black frames). */
+    public static final Dimension WOOD = new Simple("wood", (e, ctx) -> woodOf(e), ColorUtils::getWoodIndex);
+
+    public static final Dimension STATE = new Simple("state",
+            (e, ctx) -> ChainBuilder.extractState(e, ctx.pairedStates()),
+            v -> v == null ? UNRANKED : rankIn(ChainBuilder.KNOWN_STATE_SUFFIXES, v));
+
+    public static final Dimension SIZE = tokens("size", List.of("tiny", "small", "medium", "large", "big", "huge"));
+
+    /**
+     * Wood, but only on models that have a real wood variant. Elsewhere
+     * "white"/"black" are rainbow colors, so they mustn't split the group.
+     */
+    static final Dimension RAINBOW_WOOD = new Simple("wood",
+            (e, ctx) -> ctx.modelsWithRealWood().contains(e.getModel()) ? woodOf(e) : null,
+            ColorUtils::getWoodIndex);
+
+    /**
+     * Color, except when it only mirrors the wood: "Closet White" parses as
+     * wood=white and color=white, which would split each wood into its own
+     * group.
+     */
+    static final Dimension WOOD_COLOR = new Simple("color", (e, ctx) -> {
+        String color = ColorUtils.extractColor(e.getName());
+        return color != null && color.equals(woodOf(e)) ? null : color;
+    }, ColorUtils::getColorIndex);
+
+    public static final Chain RAINBOW = new Chain("Rainbow",
+            List.of(MODEL, RAINBOW_WOOD, STATE), List.of(COLOR), List.of(MODEL), false);
+
+    public static final Chain WOOD_CHAIN = new Chain("Wood",
+            List.of(MODEL, WOOD_COLOR, STATE), List.of(WOOD), List.of(MODEL, WOOD), false);
+
+    private ChainEngine() {}
+
+    private static String woodOf(DecoEntry e) {
+        String wood = ColorUtils.extractWood(e.getName());
+        if (wood == null && e.getMaterial() != null) wood = ColorUtils.extractWoodFromMaterial(e.getMaterial());
+        return wood;
+    }
+
+    private static int rankIn(List<String> values, String v) {
+        int i = values.indexOf(v);
+        return i >= 0 ? i : UNRANKED;
+    }
+
+    /**
+     * Dimension over a list of words: an entry's value is the first word of
+     * {@code values} found as a whole word in its name or decoref, and the
+     * list order is the chain order.
+     */
+    public static Dimension tokens(String name, List<String> values) {
+        List<String> words = new ArrayList<>();
+        for (String v : values) words.add(normalize(v));
+        return new Simple(name, (e, ctx) -> {
+            String hay = "_" + normalize(e.getName()) + "_" + normalize(ChainBuilder.getLinkTarget(e)) + "_";
+            for (String w : words) {
+                if (!w.isEmpty() && hay.contains("_" + w + "_")) return w;
+            }
+            return null;
+        }, v -> v == null ? UNRANKED : rankIn(words, v));
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase().replaceAll("[\\s_]+", "_");
+    }
+
+    // --- Building ---
+
+    private record Classified(DecoEntry entry, String key, int[] ranks) {}
+
+    /**
+     * Link every group of {@code chain} over {@code entries} and return the
+     * entries in chain order (groups sorted by key, then the unchained).
+     */
+    public static List<DecoEntry> build(Chain chain, List<DecoEntry> entries) {
+        Context ctx = new Context(entries);
+        Classified[] classified = new Classified[entries.size()];
+        IntStream range = IntStream.range(0, entries.size());
+        if (entries.size() >= PARALLEL_THRESHOLD) range = range.parallel();
+        range.forEach(i -> classified[i] = classify(chain, entries.get(i), ctx));
+
+        Map<String, List<Classified>> groups = new HashMap<>();
+        List<DecoEntry> unchained = new ArrayList<>();
+        for (Classified c : classified) {
+            if (c == null) continue;
+            groups.computeIfAbsent(c.key(), k -> new ArrayList<>()).add(c);
+        }
+        for (int i = 0; i < classified.length; i++) {
+            if (classified[i] == null) unchained.add(entries.get(i));
+        }
+
+        List<String> sortedKeys = new ArrayList<>(groups.keySet());
+        Collections.sort(sortedKeys);
+        List<List<Classified>> ordered = new ArrayList<>(sortedKeys.size());
+        for (String key : sortedKeys) ordered.add(groups.get(key));
+
+        (entries.size() >= PARALLEL_THRESHOLD ? ordered.parallelStream() : ordered.stream())
+                .forEach(ChainEngine::sortAndLink);
+
+        List<DecoEntry> result = new ArrayList<>(entries.size());
+        for (List<Classified> group : ordered) {
+            for (Classified c : group) result.add(c.entry());
+        }
+        result.addAll(unchained);
+        return result;
+    }
+
+    /** Null when the entry can't take part in this chain. */
+    private static Classified classify(Chain chain, DecoEntry e, Context ctx) {
+        Map<Dimension, String> values = new HashMap<>(8);
+        for (Dimension d : chain.required()) {
+            String v = value(values, d, e, ctx);
+            if (v == null) return null;
+        }
+        StringBuilder key = new StringBuilder();
+        for (Dimension d : chain.groupBy()) {
+            String v = value(values, d, e, ctx);
+            if (key.length() > 0) key.append(':');
+            key.append(v != null ? v : "no_" + d.name());
+        }
+        int[] ranks = new int[chain.orderBy().size()];
+        boolean any = false;
+        for (int i = 0; i < ranks.length; i++) {
+            Dimension d = chain.orderBy().get(i);
+            String v = value(values, d, e, ctx);
+            any |= v != null;
+            ranks[i] = d.rank(v);
+        }
+        if (chain.needsOrderValue() && !any) return null;
+        return new Classified(e, key.toString(), ranks);
+    }
+
+    // Not computeIfAbsent: an absent (null) value must be cached too.
+    private static String value(Map<Dimension, String> values, Dimension d, DecoEntry e, Context ctx) {
+        if (values.containsKey(d)) return values.get(d);
+        String v = d.classify(e, ctx);
+        values.put(d, v);
+        return v;
+    }
+
+    private static void sortAndLink(List<Classified> group) {
+        group.sort((a, b) -> Arrays.compare(a.ranks(), b.ranks()));
+        if (group.size() < 2) return;
+        for (int i = 0; i < group.size(); i++) {
+            DecoEntry next = group.get((i + 1) % group.size()).entry();
+            String linkTarget = ChainBuilder.getLinkTarget(next);
+            if (linkTarget != null) setModelSwitchLink(group.get(i).entry(), linkTarget);
+        }
+    }
+
+    private static void setModelSwitchLink(DecoEntry entry, String link) {
+        Script script = entry.getScript();
+        if (script == null) {
+            script = new Script();
+            entry.setScript(script);
+        }
+        script.setToolModelSwitchLink(link);
+    }
+
+    // --- Config ---
+
+    public static Path configFile() {
+        return Paths.get(System.getProperty("user.home"), ".decocraft-json-generator", "chains.json");
+    }
+
+    /** Chains offered when there is no config file yet. */
+    public static List<Chain> defaultChains() {
+        return List.of(
+                new Chain("Size", List.of(MODEL, COLOR, WOOD, STATE), List.of(SIZE), List.of(MODEL), true),
+                new Chain("Wood then Color", List.of(MODEL, STATE), List.of(WOOD, COLOR), List.of(MODEL), true));
+    }
+
+    private static final class Config {
+        Map<String, List<String>> dimensions;
+        List<ChainSpec> chains;
+    }
+
+    private static final class ChainSpec {
+        String name;
+        List<String> groupBy;
+        List<String> orderBy;
+    }
+
+    /**
+     * Parse a chains.json document. Throws IllegalArgumentException on bad
+     * JSON, an unknown dimension name or a chain with nothing to order by.
+     */
+    public static List<Chain> parseConfig(String json) {
+        Config config;
+        try {
+            config = new Gson().fromJson(json, Config.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getMessage(), e);
+        }
+        if (config == null || config.chains == null) return List.of();
+
+        Map<String, Dimension> dims = new HashMap<>();
+        for (Dimension d : List.of(MODEL, COLOR, WOOD, STATE, SIZE)) dims.put(d.name(), d);
+        if (config.dimensions != null) {
+            for (Map.Entry<String, List<String>> e : config.dimensions.entrySet()) {
+                if (e.getValue() == null || e.getValue().isEmpty()) {
+                    throw new IllegalArgumentException("Dimension '" + e.getKey() + "' has no values");
+                }
+                dims.put(e.getKey(), tokens(e.getKey(), e.getValue()));
+            }
+        }
+
+        List<Chain> chains = new ArrayList<>();
+        for (ChainSpec spec : config.chains) {
+            String name = spec.name != null ? spec.name : "Chain " + (chains.size() + 1);
+            List<Dimension> orderBy = resolve(name, spec.orderBy, dims);
+            if (orderBy.isEmpty()) throw new IllegalArgumentException("Chain '" + name + "' has no orderBy");
+            chains.add(new Chain(name, resolve(name, spec.groupBy, dims), orderBy, List.of(MODEL), true));
+        }
+        return chains;
+    }
+
+    private static List<Dimension> resolve(String chain, List<String> names, Map<String, Dimension> dims) {
+        if (names == null) return List.of();
+        List<Dimension> out = new ArrayList<>();
+        for (String n : names) {
+            Dimension d = dims.get(n);
+            if (d == null) {
+                throw new IllegalArgumentException("Chain '" + chain + "': unknown dimension '" + n
+                        + "' (known: " + String.join(", ", new TreeSet<>(dims.keySet())) + ")");
+            }
+            out.add(d);
+        }
+        return out;
+    }
+}
@@ -1,6 +1,5 @@
 package com.momo.decogen.logic;
 
-import com.momo.decogen.bbmodel.BBModel;
 import com.momo.decogen.bbmodel.BBModelParser;
 import com.momo.decogen.io.DirectoryScanner;
 import com.momo.decogen.model.DecoEntry;
@@ -28,16 +27,23 @@ public class EntryBuilder {
                 .toList();
 
         Set<String> modelNames = new HashSet<>();
+        Map<Path, ModelSummary> summaries = new HashMap<>();
+        Map<String, List<String>> textureReferences = new HashMap<>();
         for (Path modelFile : modelFiles) {
-            modelNames.add(DirectoryScanner.getStem(modelFile));
+            String modelName = DirectoryScanner.getStem(modelFile);
+            ModelSummary model = ModelSummary.of(BBModelParser.parse(modelFile));
+            modelNames.add(modelName);
+            summaries.put(modelFile, model);
+            TextureMatcher.addReferences(textureReferences, modelName, model.getTextureRefs());
         }
 
-        // Each texture goes to its single longest-prefix model. Requires a
-        // "_"/"-" separator (or exact match), so "island" no longer claims
+        // Each texture goes to the model that lists it in its file, else to
+        // its single longest-prefix model. Prefixes require a "_"/"-"
+        // separator (or exact match), so "island" no longer claims
         // "islands_red" and "north" no longer claims "north_korea_red".
         Map<String, List<String>> texturesByModel = new HashMap<>();
         for (String tex : textureStems) {
-            String best = TextureMatcher.findMatchingModel(tex, modelNames);
+            String best = TextureMatcher.findMatchingModel(tex, modelNames, textureReferences);
             if (best == null) continue;
             texturesByModel.computeIfAbsent(best, k -> new ArrayList<>()).add(tex);
         }
@@ -46,7 +52,7 @@ public class EntryBuilder {
             String modelName = DirectoryScanner.getStem(modelFile);
             String tab = DirectoryScanner.getTabFromPath(modelFile, modelsRoot);
 
-            BBModel model = BBModelParser.parse(modelFile);
+            ModelSummary model = summaries.get(modelFile);
 
             List<String> matches = texturesByModel.getOrDefault(modelName, List.of());
 
@@ -0,0 +1,123 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.model.DecoEntry;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Scalar entry fields by their exported JSON key ({@code name},
+ * {@code above_water}, {@code default_animation}, ...), with a string view
+ * for reading and a parsing setter for writing. Shared by the query
+ * language ({@link EntryQuery}) so "field = value" means the same thing
+ * on both sides of a {@code set}.
+ *
+ * An unset field reads as null and is written with the literal
+ * {@code null}. Nested/list fields (composite, flipbook, chain lists,
+ * script) aren't here; they're edited through the editor panel.
+ */
+public final class EntryFields {
+
+    public enum Kind { TEXT, FLAG, NUMBER, INTEGER }
+
+    public record Field(String key, Kind kind,
+                        Function<DecoEntry, Object> getter,
+                        BiConsumer<DecoEntry, Object> setter) {
+
+        /** Current value as text, or null when unset. */
+        public String read(DecoEntry e) {
+            Object v = getter.apply(e);
+            if (v == null) return null;
+            if (v instanceof Double d && d == Math.rint(d)) return String.valueOf(d.longValue());
+            return v.toString();
+        }
+
+        /**
+         * Parse {@code text} for this field's type. Throws
+         * IllegalArgumentException on a value the field can't hold.
+         */
+        public Object parse(String text) {
+            if (text == null || text.equals("null")) {
+                if (kind == Kind.NUMBER) throw new IllegalArgumentException(key + " can't be null");
+                return null;
+            }
+            return switch (kind) {
+                case TEXT -> text;
+                case FLAG -> {
+                    if (text.equalsIgnoreCase("true")) yield Boolean.TRUE;
+                    if (text.equalsIgnoreCase("false")) yield Boolean.FALSE;
+                    throw new IllegalArgumentException(key + " must be true, false or null");
+                }
+                case NUMBER -> {
+                    try {
+                        yield Double.parseDouble(text);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(key + " must be a number");
+                    }
+                }
+                case INTEGER -> {
+                    try {
+                        yield Integer.parseInt(text);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(key + " must be a whole number");
+                    }
+                }
+            };
+        }
+
+        /** Write an already-{@link #parse parsed} value. */
+        public void write(DecoEntry e, Object value) {
+            setter.accept(e, value);
+        }
+    }
+
+    private static final Map<String, Field> FIELDS = new LinkedHashMap<>();
+
+    static {
+        text("name", DecoEntry::getName, DecoEntry::setName);
+        text("decoref", DecoEntry::getDecoref, DecoEntry::setDecoref);
+        text("material", DecoEntry::getMaterial, DecoEntry::setMaterial);
+        text("model", DecoEntry::getModel, DecoEntry::setModel);
+        add("scale", Kind.NUMBER, DecoEntry::getScale, (e, v) -> e.setScale((Double) v));
+        text("shape", DecoEntry::getShape, DecoEntry::setShape);
+        flag("transparency", DecoEntry::getTransparency, DecoEntry::setTransparency);
+        flag("culling", DecoEntry::getCulling, DecoEntry::setCulling);
+        text("tabs", DecoEntry::getTabs, DecoEntry::setTabs);
+        text("default_animation", DecoEntry::getDefaultAnimation, DecoEntry::setDefaultAnimation);
+        text("type", DecoEntry::getType, DecoEntry::setType);
+        flag("passable", DecoEntry::getPassable, DecoEntry::setPassable);
+        flag("above_water", DecoEntry::getAboveWater, DecoEntry::setAboveWater);
+        flag("rotatable", DecoEntry::getRotatable, DecoEntry::setRotatable);
+        flag("displayable", DecoEntry::getDisplayable, DecoEntry::setDisplayable);
+        flag("hidden", DecoEntry::getHidden, DecoEntry::setHidden);
+        text("loot", DecoEntry::getLoot, DecoEntry::setLoot);
+        text("chain_pattern", DecoEntry::getChainPattern, DecoEntry::setChainPattern);
+        add("lighting", Kind.INTEGER, DecoEntry::getLighting, (e, v) -> e.setLighting((Integer) v));
+        flag("instant", DecoEntry::getInstant, DecoEntry::setInstant);
+    }
+
+    private EntryFields() {}
+
+    private static void add(String key, Kind kind, Function<DecoEntry, Object> getter,
+                            BiConsumer<DecoEntry, Object> setter) {
+        FIELDS.put(key, new Field(key, kind, getter, setter));
+    }
+
+    private static void text(String key, Function<DecoEntry, String> getter, BiConsumer<DecoEntry, String> setter) {
+        add(key, Kind.TEXT, getter::apply, (e, v) -> setter.accept(e, (String) v));
+    }
+
+    private static void flag(String key, Function<DecoEntry, Boolean> getter, BiConsumer<DecoEntry, Boolean> setter) {
+        add(key, Kind.FLAG, getter::apply, (e, v) -> setter.accept(e, (Boolean) v));
+    }
+
+    /** The field for {@code key}, or null if there is none. */
+    public static Field get(String key) {
+        return FIELDS.get(key);
+    }
+
+    public static Set<String> keys() {
+        return Collections.unmodifiableSet(FIELDS.keySet());
+    }
+}
@@ -0,0 +1,264 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.model.Action;
+import com.momo.decogen.model.AnimationPair;
+import com.momo.decogen.model.Composite;
+import com.momo.decogen.model.DecoEntry;
+import com.momo.decogen.model.Flipbook;
+import com.momo.decogen.model.Script;
+import com.momo.decogen.model.SoundPair;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The fields an editor Apply changes, computed once from the edited entry
+ * ({@code proposed}) and the state it was loaded from ({@code loaded}).
+ * {@link #applyTo} then writes only those fields onto each target, so a
+ * multi-select Apply leaves fields the user didn't touch as they are on
+ * every entry, and the cost per target is a handful of setter calls no
+ * matter how many entries are selected.
+ *
+ * Script actions are diffed per slot and per field: an Apply that only
+ * touches on_use.storage doesn't wipe on_use.link on the targets.
+ * Nested objects and lists are copied per target so entries never share
+ * mutable state.
+ */
+public final class EntryPatch {
+
+    private final List<Consumer<DecoEntry>> writes;
+    private final ScriptPatch script;
+    private final String newMaterial;
+
+    private EntryPatch(List<Consumer<DecoEntry>> writes, ScriptPatch script, String newMaterial) {
+        this.writes = writes;
+        this.script = script;
+        this.newMaterial = newMaterial;
+    }
+
+    /** Diff {@code proposed} against {@code loaded}. Neither is modified or retained. */
+    public static EntryPatch diff(DecoEntry proposed, DecoEntry loaded) {
+        List<Consumer<DecoEntry>> w = new ArrayList<>();
+
+        field(w, proposed, loaded, DecoEntry::getName, DecoEntry::setName);
+        field(w, proposed, loaded, DecoEntry::getDecoref, DecoEntry::setDecoref);
+        field(w, proposed, loaded, DecoEntry::getMaterial, DecoEntry::setMaterial);
+        field(w, proposed, loaded, DecoEntry::getModel, DecoEntry::setModel);
+        field(w, proposed, loaded, DecoEntry::getScale, DecoEntry::setScale);
+        field(w, proposed, loaded, DecoEntry::getShape, DecoEntry::setShape);
+        field(w, proposed, loaded, DecoEntry::getTransparency, DecoEntry::setTransparency);
+        field(w, proposed, loaded, DecoEntry::getCulling, DecoEntry::setCulling);
+        field(w, proposed, loaded, DecoEntry::getTabs, DecoEntry::setTabs);
+        field(w, proposed, loaded, DecoEntry::getType, DecoEntry::setType);
+        field(w, proposed, loaded, DecoEntry::getDefaultAnimation, DecoEntry::setDefaultAnimation);
+        field(w, proposed, loaded, DecoEntry::getPassable, DecoEntry::setPassable);
+        field(w, proposed, loaded, DecoEntry::getAboveWater, DecoEntry::setAboveWater);
+        field(w, proposed, loaded, DecoEntry::getRotatable, DecoEntry::setRotatable);
+        field(w, proposed, loaded, DecoEntry::getHidden, DecoEntry::setHidden);
+        field(w, proposed, loaded, DecoEntry::getLoot, DecoEntry::setLoot);
+        field(w, proposed, loaded, DecoEntry::getDisplayable, DecoEntry::setDisplayable);
+
+        if (!History.jsonEquals(proposed.getComposite(), loaded.getComposite())) {
+            Composite c = proposed.getComposite();
+            boolean clear = c == null;
+            String model = c == null ? null : c.getModel();
+            String texture = c == null ? null : c.getTexture();
+            Boolean transparency = c == null ? null : c.getTransparency();
+            w.add(t -> {
+                if (clear) {
+                    t.setComposite(null);
+                    return;
+                }
+                Composite copy = new Composite();
+                copy.setModel(model);
+                copy.setTexture(texture);
+                copy.setTransparency(transparency);
+                t.setComposite(copy);
+            });
+        }
+        if (!History.jsonEquals(proposed.getFlipbook(), loaded.getFlipbook())) {
+            Flipbook f = proposed.getFlipbook();
+            boolean clear = f == null;
+            int frametime = f == null ? 0 : f.getFrametime();
+            int images = f == null ? 0 : f.getImages();
+            w.add(t -> {
+                if (clear) {
+                    t.setFlipbook(null);
+                    return;
+                }
+                Flipbook copy = new Flipbook();
+                copy.setFrametime(frametime);
+                copy.setImages(images);
+                t.setFlipbook(copy);
+            });
+        }
+
+        list(w, proposed, loaded, DecoEntry::getChainModels, DecoEntry::setChainModels);
+        list(w, proposed, loaded, DecoEntry::getChainMaterials, DecoEntry::setChainMaterials);
+        field(w, proposed, loaded, DecoEntry::getChainPattern, DecoEntry::setChainPattern);
+        field(w, proposed, loaded, DecoEntry::getLighting, DecoEntry::setLighting);
+        list(w, proposed, loaded, DecoEntry::getStructures, DecoEntry::setStructures);
+        field(w, proposed, loaded, DecoEntry::getInstant, DecoEntry::setInstant);
+
+        boolean materialChanged = !Objects.equals(proposed.getMaterial(), loaded.getMaterial());
+        return new EntryPatch(List.copyOf(w), ScriptPatch.diff(proposed.getScript(), loaded.getScript()),
+                materialChanged ? proposed.getMaterial() : null);
+    }
+
+    private static <T> void field(List<Consumer<DecoEntry>> w, DecoEntry proposed, DecoEntry loaded,
+                                  Function<DecoEntry, T> getter, BiConsumer<DecoEntry, T> setter) {
+        T value = getter.apply(proposed);
+        if (!Objects.equals(value, getter.apply(loaded))) w.add(t -> setter.accept(t, value));
+    }
+
+    private static void list(List<Consumer<DecoEntry>> w, DecoEntry proposed, DecoEntry loaded,
+                             Function<DecoEntry, List<String>> getter, BiConsumer<DecoEntry, List<String>> setter) {
+        List<String> value = getter.apply(proposed);
+        if (Objects.equals(value, getter.apply(loaded))) return;
+        List<String> frozen = value == null ? null : new ArrayList<>(value);
+        w.add(t -> setter.accept(t, frozen == null ? null : new ArrayList<>(frozen)));
+    }
+
+    /** True when the edit changed nothing. */
+    public boolean isEmpty() {
+        return writes.isEmpty() && script == null;
+    }
+
+    /** The material the patch sets, or null if it doesn't change material (or clears it). */
+    public String newMaterial() {
+        return newMaterial;
+    }
+
+    public void applyTo(DecoEntry target) {
+        for (Consumer<DecoEntry> write : writes) write.accept(target);
+        if (script != null) script.applyTo(target);
+    }
+
+    public void applyTo(Collection<DecoEntry> targets) {
+        for (DecoEntry t : targets) applyTo(t);
+    }
+
+    // --- Script ---
+
+    private record ScriptPatch(List<ActionPatch> actions,
+                               boolean lightChanged, Integer light,
+                               boolean counterChanged, Integer counter) {
+
+        /** Null when the script is unchanged as a whole. */
+        static ScriptPatch diff(Script proposed, Script loaded) {
+            if (History.jsonEquals(proposed, loaded)) return null;
+            List<ActionPatch> actions = new ArrayList<>();
+            for (Slot slot : SLOTS) {
+                ActionPatch a = ActionPatch.diff(slot,
+                        proposed != null ? slot.getter().apply(proposed) : null,
+                        loaded != null ? slot.getter().apply(loaded) : null);
+                if (a != null) actions.add(a);
+            }
+            Integer pLight = proposed != null ? proposed.getLight() : null;
+            Integer lLight = loaded != null ? loaded.getLight() : null;
+            Integer pCounter = proposed != null ? proposed.getCounter() : null;
+            Integer lCounter = loaded != null ? loaded.getCounter() : null;
+            return new ScriptPatch(List.copyOf(actions),
+                    !Objects.equals(pLight, lLight), pLight,
+                    !Objects.equals(pCounter, lCounter), pCounter);
+        }
+
+        void applyTo(DecoEntry target) {
+            Script ts = target.getScript();
+            if (ts == null) {
+                ts = new Script();
+                target.setScript(ts);
+            }
+            for (ActionPatch a : actions) a.applyTo(ts);
+            if (lightChanged) ts.setLight(light);
+            if (counterChanged) ts.setCounter(counter);
+            if (isScriptEmpty(ts)) target.setScript(null);
+        }
+    }
+
+    private record Slot(Function<Script, Action> getter, BiConsumer<Script, Action> setter) {}
+
+    private static final List<Slot> SLOTS = List.of(
+            new Slot(Script::getOnUse, Script::setOnUse),
+            new Slot(Script::getShiftOnUse, Script::setShiftOnUse),
+            new Slot(Script::getAdded, Script::setAdded),
+            new Slot(Script::getTrigger, Script::setTrigger),
+            new Slot(Script::getAnimationStart, Script::setAnimationStart),
+            new Slot(Script::getAnimationEnd, Script::setAnimationEnd),
+            new Slot(Script::getToolModelSwitch, Script::setToolModelSwitch));
+
+    /**
+     * Changed fields of one action slot. The target slot is created only
+     * when something changed and cleared if every field ends up empty.
+     */
+    private record ActionPatch(Slot slot,
+                               boolean linkChanged, String link,
+                               boolean soundChanged, String sound,
+                               boolean animsChanged, List<AnimationPair> anims,
+                               boolean soundsChanged, List<SoundPair> sounds,
+                               boolean storageChanged, int[] storage) {
+
+        /** Null when the slot is unchanged. */
+        static ActionPatch diff(Slot slot, Action proposed, Action loaded) {
+            String pLink = proposed != null ? proposed.getLink() : null;
+            String lLink = loaded != null ? loaded.getLink() : null;
+            String pSound = proposed != null ? proposed.getSound() : null;
+            String lSound = loaded != null ? loaded.getSound() : null;
+            List<AnimationPair> pAnims = proposed != null ? proposed.getAnimations() : null;
+            List<AnimationPair> lAnims = loaded != null ? loaded.getAnimations() : null;
+            List<SoundPair> pSounds = proposed != null ? proposed.getSounds() : null;
+            List<SoundPair> lSounds = loaded != null ? loaded.getSounds() : null;
+            int[] pStorage = proposed != null ? proposed.getStorage() : null;
+            int[] lStorage = loaded != null ? loaded.getStorage() : null;
+
+            boolean linkChanged = !Objects.equals(pLink, lLink);
+            boolean soundChanged = !Objects.equals(pSound, lSound);
+            boolean animsChanged = !History.jsonEquals(pAnims, lAnims);
+            boolean soundsChanged = !History.jsonEquals(pSounds, lSounds);
+            boolean storageChanged = !Arrays.equals(pStorage, lStorage);
+            if (!(linkChanged || soundChanged || animsChanged || soundsChanged || storageChanged)) return null;
+
+            return new ActionPatch(slot, linkChanged, pLink, soundChanged, pSound,
+                    animsChanged, cloneAnimationPairs(pAnims), soundsChanged, cloneSoundPairs(pSounds),
+                    storageChanged, pStorage != null ? pStorage.clone() : null);
+        }
+
+        void applyTo(Script ts) {
+            Action target = slot.getter().apply(ts);
+            if (target == null) {
+                target = new Action();
+                slot.setter().accept(ts, target);
+            }
+            if (linkChanged) target.setLink(link);
+            if (soundChanged) target.setSound(sound);
+            if (animsChanged) target.setAnimations(cloneAnimationPairs(anims));
+            if (soundsChanged) target.setSounds(cloneSoundPairs(sounds));
+            if (storageChanged) target.setStorage(storage != null ? storage.clone() : null);
+
+            if (target.isEmpty()) slot.setter().accept(ts, null);
+        }
+    }
+
+    private static List<AnimationPair> cloneAnimationPairs(List<AnimationPair> list) {
+        if (list == null) return null;
+        List<AnimationPair> copy = new ArrayList<>(list.size());
+        for (AnimationPair p : list) copy.add(new AnimationPair(p.getFrom(), p.getTo()));
+        return copy;
+    }
+
+    private static List<SoundPair> cloneSoundPairs(List<SoundPair> list) {
+        if (list == null) return null;
+        List<SoundPair> copy = new ArrayList<>(list.size());
+        for (SoundPair p : list) copy.add(new SoundPair(p.getFrom(), p.getTo(), p.getSound(), p.getLoop()));
+        return copy;
+    }
+
+    private static boolean isScriptEmpty(Script s) {
+        return s.getOnUse() == null && s.getShiftOnUse() == null && s.getAdded() == null
+                && s.getTrigger() == null && s.getAnimationStart() == null
+                && s.getAnimationEnd() == null && s.getToolModelSwitch() == null
+                && s.getLight() == null && s.getCounter() == null;
+    }
+}
@@ -0,0 +1,329 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.model.DecoEntry;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Small query language for selecting and bulk-editing entries:
+ * <pre>
+ *   model~closet* and type=animated and tabs=kitchen
+ *   not (passable=true or hidden=true)
+ *   decoref~*_open set passable=true, type=door
+ *   set tabs=misc                      (no condition: every entry)
+ * </pre>
+ * Comparisons are {@code field=value}, {@code field!=value}, glob match
+ * {@code field~pattern} ({@code *} and {@code ?}) and {@code field!~pattern};
+ * all are case-insensitive. {@code null} matches an unset field. Terms
+ * combine with {@code and}, {@code or}, {@code not} and parentheses
+ * ({@code and} binds tighter). Values with spaces go in double quotes.
+ * Fields are the JSON keys in {@link EntryFields}.
+ *
+ * Evaluation works on row bitsets: each field used by the query gets a
+ * one-pass value index (value -&gt; rows), so {@code =} is a map lookup,
+ * {@code ~} tests each distinct value once rather than each entry, and
+ * and/or/not are bitset operations. The indexes live in a {@link Rows}
+ * that can be kept while the entries don't change, so re-running a query
+ * as it is typed doesn't re-index.
+ */
+public final class EntryQuery {
+
+    /** One {@code field=value} of a set clause, value already parsed. */
+    public record Assignment(EntryFields.Field field, Object value) {}
+
+    private enum Op { EQ, NE, GLOB, NOT_GLOB }
+
+    private interface Node {
+        BitSet eval(Rows ev);
+    }
+
+    // value == null compares against unset fields.
+    private record Compare(EntryFields.Field field, Op op, String value, Pattern glob) implements Node {
+        public BitSet eval(Rows ev) {
+            FieldIndex index = ev.index(field);
+            BitSet out = new BitSet(ev.size);
+            switch (op) {
+                case EQ, NE -> {
+                    BitSet hit = value == null ? index.unset() : index.byValue().get(value);
+                    if (hit != null) out.or(hit);
+                }
+                case GLOB, NOT_GLOB -> {
+                    for (Map.Entry<String, BitSet> e : index.byValue().entrySet()) {
+                        if (glob.matcher(e.getKey()).matches()) out.or(e.getValue());
+                    }
+                }
+            }
+            if (op == Op.NE || op == Op.NOT_GLOB) out.flip(0, ev.size);
+            return out;
+        }
+    }
+
+    private record And(Node a, Node b) implements Node {
+        public BitSet eval(Rows ev) {
+            BitSet out = a.eval(ev);
+            if (!out.isEmpty()) out.and(b.eval(ev));
+            return out;
+        }
+    }
+
+    private record Or(Node a, Node b) implements Node {
+        public BitSet eval(Rows ev) {
+            BitSet out = a.eval(ev);
+            out.or(b.eval(ev));
+            return out;
+        }
+    }
+
+    private record Not(Node a) implements Node {
+        public BitSet eval(Rows ev) {
+            BitSet out = a.eval(ev);
+            out.flip(0, ev.size);
+            return out;
+        }
+    }
+
+    // Rows per lower-cased value, with unset rows kept apart so no real
+    // value (not even the text "null") can land among them.
+    private record FieldIndex(Map<String, BitSet> byValue, BitSet unset) {}
+
+    /**
+     * A snapshot of the entries a query runs against, with value indexes
+     * built on first use for each field a query compares. Reuse one across
+     * queries for as long as the entries stay the same.
+     */
+    public static final class Rows {
+        final List<DecoEntry> entries;
+        final int size;
+        private final Map<EntryFields.Field, FieldIndex> indexes = new HashMap<>();
+
+        public Rows(List<DecoEntry> entries) {
+            this.entries = List.copyOf(entries);
+            this.size = this.entries.size();
+        }
+
+        FieldIndex index(EntryFields.Field field) {
+            return indexes.computeIfAbsent(field, f -> {
+                Map<String, BitSet> byValue = new HashMap<>();
+                BitSet unset = new BitSet(size);
+                for (int i = 0; i < size; i++) {
+                    String v = f.read(entries.get(i));
+                    if (v == null) unset.set(i);
+                    else byValue.computeIfAbsent(v.toLowerCase(Locale.ROOT), k -> new BitSet(size)).set(i);
+                }
+                return new FieldIndex(byValue, unset);
+            });
+        }
+    }
+
+    private final Node where;
+    private final List<Assignment> assignments;
+
+    private EntryQuery(Node where, List<Assignment> assignments) {
+        this.where = where;
+        this.assignments = assignments;
+    }
+
+    public boolean hasAssignments() { return !assignments.isEmpty(); }
+    public List<Assignment> assignments() { return assignments; }
+
+    /** Rows (indexes into {@code entries}) that match the condition. */
+    public BitSet select(List<DecoEntry> entries) {
+        return select(new Rows(entries));
+    }
+
+    /** Rows that match the condition, reusing {@code rows}' value indexes. */
+    public BitSet select(Rows rows) {
+        if (where == null) {
+            BitSet all = new BitSet(rows.size);
+            all.set(0, rows.size);
+            return all;
+        }
+        return where.eval(rows);
+    }
+
+    /**
+     * Apply the set clause to the given rows. Returns the number of entries
+     * that actually changed.
+     */
+    public int apply(List<DecoEntry> entries, BitSet rows) {
+        int changed = 0;
+        for (int i = rows.nextSetBit(0); i >= 0 && i < entries.size(); i = rows.nextSetBit(i + 1)) {
+            DecoEntry e = entries.get(i);
+            boolean any = false;
+            for (Assignment a : assignments) {
+                if (Objects.equals(a.field().getter().apply(e), a.value())) continue;
+                a.field().write(e, a.value());
+                any = true;
+            }
+            if (any) changed++;
+        }
+        return changed;
+    }
+
+    // --- Parsing ---
+
+    /** Parse {@code text}; throws IllegalArgumentException describing the first error. */
+    public static EntryQuery parse(String text) {
+        Parser p = new Parser(tokenize(text == null ? "" : text));
+        Node where = null;
+        if (!p.atEnd() && !p.peekWord("set")) where = p.parseOr();
+        List<Assignment> assignments = new ArrayList<>();
+        if (p.peekWord("set")) {
+            p.next();
+            do {
+                assignments.add(p.parseAssignment());
+            } while (p.accept(","));
+        }
+        if (!p.atEnd()) throw new IllegalArgumentException("unexpected '" + p.peek().text + "'");
+        if (where == null && assignments.isEmpty()) throw new IllegalArgumentException("empty query");
+        return new EntryQuery(where, List.copyOf(assignments));
+    }
+
+    private record Token(String text, boolean quoted) {}
+
+    private static List<Token> tokenize(String s) {
+        List<Token> out = new ArrayList<>();
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = s.indexOf('"', i + 1);
+                if (end < 0) throw new IllegalArgumentException("unclosed quote");
+                out.add(new Token(s.substring(i + 1, end), true));
+                i = end + 1;
+            } else if (c == '!' && i + 1 < s.length() && (s.charAt(i + 1) == '=' || s.charAt(i + 1) == '~')) {
+                out.add(new Token(s.substring(i, i + 2), false));
+                i += 2;
+            } else if ("()=~,".indexOf(c) >= 0) {
+                out.add(new Token(String.valueOf(c), false));
+                i++;
+            } else {
+                int start = i;
+                while (i < s.length() && !Character.isWhitespace(s.charAt(i))
+                        && "()=~,\"".indexOf(s.charAt(i)) < 0
+                        && !(s.charAt(i) == '!' && i + 1 < s.length() && "=~".indexOf(s.charAt(i + 1)) >= 0)) {
+                    i++;
+                }
+                out.add(new Token(s.substring(start, i), false));
+            }
+        }
+        return out;
+    }
+
+    private static final class Parser {
+        private final List<Token> tokens;
+        private int pos;
+
+        Parser(List<Token> tokens) { this.tokens = tokens; }
+
+        boolean atEnd() { return pos >= tokens.size(); }
+        Token peek() { return tokens.get(pos); }
+        Token next() {
+            if (atEnd()) throw new IllegalArgumentException("query ends too early");
+            return tokens.get(pos++);
+        }
+
+        boolean peekWord(String word) {
+            return !atEnd() && !peek().quoted && peek().text.equalsIgnoreCase(word);
+        }
+
+        boolean accept(String symbol) {
+            if (!atEnd() && !peek().quoted && peek().text.equals(symbol)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        Node parseOr() {
+            Node left = parseAnd();
+            while (peekWord("or")) {
+                next();
+                left = new Or(left, parseAnd());
+            }
+            return left;
+        }
+
+        Node parseAnd() {
+            Node left = parseUnary();
+            while (peekWord("and")) {
+                next();
+                left = new And(left, parseUnary());
+            }
+            return left;
+        }
+
+        Node parseUnary() {
+            if (peekWord("not")) {
+                next();
+                return new Not(parseUnary());
+            }
+            if (accept("(")) {
+                Node inner = parseOr();
+                if (!accept(")")) throw new IllegalArgumentException("missing ')'");
+                return inner;
+            }
+            return parseCompare();
+        }
+
+        Node parseCompare() {
+            EntryFields.Field field = field(next());
+            Token opTok = next();
+            Op op = switch (opTok.quoted ? "" : opTok.text) {
+                case "=" -> Op.EQ;
+                case "!=" -> Op.NE;
+                case "~" -> Op.GLOB;
+                case "!~" -> Op.NOT_GLOB;
+                default -> throw new IllegalArgumentException(
+                        "expected =, !=, ~ or !~ after " + field.key() + ", found '" + opTok.text + "'");
+            };
+            Token value = next();
+            if (op == Op.GLOB || op == Op.NOT_GLOB) {
+                return new Compare(field, op, value.text, glob(value.text));
+            }
+            if (!value.quoted && value.text.equals("null")) return new Compare(field, op, null, null);
+            return new Compare(field, op, canonical(field, value.text), null);
+        }
+
+        Assignment parseAssignment() {
+            EntryFields.Field field = field(next());
+            if (!accept("=")) throw new IllegalArgumentException("expected '=' after " + field.key());
+            Token value = next();
+            // A quoted "null" is the text null, not an unset field.
+            if (value.quoted && field.kind() == EntryFields.Kind.TEXT) return new Assignment(field, value.text);
+            return new Assignment(field, field.parse(value.text));
+        }
+
+        private static EntryFields.Field field(Token t) {
+            EntryFields.Field f = t.quoted ? null : EntryFields.get(t.text.toLowerCase(Locale.ROOT));
+            if (f == null) {
+                throw new IllegalArgumentException("unknown field '" + t.text + "' (fields: "
+                        + String.join(", ", EntryFields.keys()) + ")");
+            }
+            return f;
+        }
+    }
+
+    /** Lower-cased value in the same form the field reads back (1.0 -> 1). */
+    private static String canonical(EntryFields.Field field, String text) {
+        if (field.kind() == EntryFields.Kind.TEXT) return text.toLowerCase(Locale.ROOT);
+        Object parsed = field.parse(text);
+        DecoEntry probe = new DecoEntry();
+        field.write(probe, parsed);
+        String read = field.read(probe);
+        return read == null ? null : read.toLowerCase(Locale.ROOT);
+    }
+
+    private static Pattern glob(String glob) {
+        StringBuilder re = new StringBuilder();
+        for (char c : glob.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == '*') re.append(".*");
+            else if (c == '?') re.append('.');
+            else re.append(Pattern.quote(String.valueOf(c)));
+        }
+        return Pattern.compile(re.toString(), Pattern.DOTALL);
+    }
+}
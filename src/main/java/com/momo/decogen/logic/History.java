@@ -1,9 +1,18 @@
 package com.momo.decogen.logic;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.momo.decogen.diag.Metrics;
+import com.momo.decogen.diag.SerializeEvent;
+import com.momo.decogen.model.Action;
 import com.momo.decogen.model.DecoEntry;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -28,16 +37,26 @@ public class History {
     }
 
     private static final int MAX = 50;
-    private static final Gson GSON = new Gson();
+    // Gson fills fields directly, bypassing the interning setters, so the
+    // identifier fields of each entry and action read back from a snapshot
+    // are passed through those setters again. Snapshots then share ids with
+    // the live entries instead of each holding copies; display names and
+    // other free text are left as read.
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new InternIdentifiers())
+            .create();
     private static final Type LIST_TYPE = new TypeToken<List<DecoEntry>>(){}.getType();
 
     private final Deque<Snapshot> undoStack = new ArrayDeque<>();
     private final Deque<Snapshot> redoStack = new ArrayDeque<>();
 
     public void record(List<DecoEntry> entries, List<String> unmatched) {
-        undoStack.push(copy(entries, unmatched));
-        redoStack.clear();
-        while (undoStack.size() > MAX) undoStack.pollLast();
+        Metrics.Span span = Metrics.time("history.record");
+        try (span) {
+            undoStack.push(copy(entries, unmatched));
+            redoStack.clear();
+            while (undoStack.size() > MAX) undoStack.pollLast();
+        }
     }
 
     public Snapshot undo(List<DecoEntry> current, List<String> currentUnmatched) {
@@ -70,9 +89,54 @@ public class History {
         return GSON.toJson(a).equals(GSON.toJson(b));
     }
 
+    private static final class InternIdentifiers implements TypeAdapterFactory {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            Class<? super T> raw = type.getRawType();
+            if (raw != DecoEntry.class && raw != Action.class) return null;
+            TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+            return new TypeAdapter<>() {
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    delegate.write(out, value);
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    T value = delegate.read(in);
+                    if (value instanceof DecoEntry e) {
+                        e.setDecoref(e.getDecoref());
+                        e.setMaterial(e.getMaterial());
+                        e.setModel(e.getModel());
+                        e.setShape(e.getShape());
+                        e.setTabs(e.getTabs());
+                        e.setDefaultAnimation(e.getDefaultAnimation());
+                        e.setType(e.getType());
+                        e.setLoot(e.getLoot());
+                        e.setChainPattern(e.getChainPattern());
+                    } else if (value instanceof Action a) {
+                        a.setLink(a.getLink());
+                        a.setSound(a.getSound());
+                    }
+                    return value;
+                }
+            };
+        }
+    }
+
     private static Snapshot copy(List<DecoEntry> entries, List<String> unmatched) {
+        SerializeEvent event = new SerializeEvent();
+        event.begin();
         String json = GSON.toJson(entries != null ? entries : new ArrayList<>());
+        Metrics.record("history.snapshot.chars", json.length());
         List<DecoEntry> deep = GSON.fromJson(json, LIST_TYPE);
+        event.end();
+        if (event.shouldCommit()) {
+            event.purpose = "undo snapshot";
+            event.entries = deep != null ? deep.size() : 0;
+            event.chars = json.length();
+            event.commit();
+        }
         return new Snapshot(
                 deep != null ? deep : new ArrayList<>(),
                 new ArrayList<>(unmatched != null ? unmatched : new ArrayList<>())
@@ -0,0 +1,160 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.model.Action;
+import com.momo.decogen.model.DecoEntry;
+import com.momo.decogen.model.Script;
+
+import java.util.*;
+
+/**
+ * Reverse index from a link target (an entry's exported decoref, see
+ * {@link LinkValidator#exportedDecoref}) to every script action whose
+ * {@code link} points at it. Lets a decoref rename rewrite all inbound
+ * links by touching only the referencing actions instead of rescanning
+ * every entry per renamed target.
+ *
+ * Typical use inside one command:
+ * <pre>
+ *   Map&lt;DecoEntry, String&gt; before = LinkIndex.captureTargets(entries);
+ *   ... rename decorefs ...
+ *   index.propagateRenames(entries, before, relinked);
+ * </pre>
+ *
+ * The index can be kept across commands: {@link #update} re-indexes just
+ * the entries a command added, edited or removed.
+ */
+public class LinkIndex {
+
+    // One action's link, remembering which entry owns the action.
+    private static final class Ref {
+        final DecoEntry owner;
+        final Action action;
+        String target;
+
+        Ref(DecoEntry owner, Action action) {
+            this.owner = owner;
+            this.action = action;
+            this.target = action.getLink();
+        }
+    }
+
+    private final Map<String, List<Ref>> inbound = new HashMap<>();
+    private final Map<DecoEntry, List<Ref>> byOwner = new IdentityHashMap<>();
+
+    public static LinkIndex build(List<DecoEntry> entries) {
+        LinkIndex index = new LinkIndex();
+        for (DecoEntry e : entries) index.index(e);
+        return index;
+    }
+
+    /**
+     * Re-index {@code changed} entries (added, or edited in place) and drop
+     * {@code removed} ones, so the index can outlive a command instead of
+     * being rebuilt. Removals are applied first; an entry in both is
+     * re-added. Calling it again with the same entries is harmless.
+     */
+    public void update(Collection<DecoEntry> changed, Collection<DecoEntry> removed) {
+        for (DecoEntry e : removed) unindex(e);
+        for (DecoEntry e : changed) {
+            unindex(e);
+            index(e);
+        }
+    }
+
+    private void index(DecoEntry e) {
+        Script s = e.getScript();
+        if (s == null) return;
+        List<Ref> refs = new ArrayList<>(1);
+        add(refs, e, s.getOnUse());
+        add(refs, e, s.getShiftOnUse());
+        add(refs, e, s.getAdded());
+        add(refs, e, s.getTrigger());
+        add(refs, e, s.getAnimationStart());
+        add(refs, e, s.getAnimationEnd());
+        add(refs, e, s.getToolModelSwitch());
+        if (!refs.isEmpty()) byOwner.put(e, refs);
+    }
+
+    private void add(List<Ref> refs, DecoEntry owner, Action a) {
+        if (a == null || a.getLink() == null || a.getLink().isEmpty()) return;
+        Ref ref = new Ref(owner, a);
+        refs.add(ref);
+        inbound.computeIfAbsent(ref.target, k -> new ArrayList<>()).add(ref);
+    }
+
+    private void unindex(DecoEntry e) {
+        List<Ref> refs = byOwner.remove(e);
+        if (refs == null) return;
+        for (Ref ref : refs) {
+            List<Ref> list = inbound.get(ref.target);
+            if (list == null) continue;
+            list.remove(ref);
+            if (list.isEmpty()) inbound.remove(ref.target);
+        }
+    }
+
+    /** Actions currently linking to {@code target}. */
+    public List<Action> inboundTo(String target) {
+        List<Ref> list = inbound.get(target);
+        if (list == null) return List.of();
+        List<Action> out = new ArrayList<>(list.size());
+        for (Ref ref : list) out.add(ref.action);
+        return out;
+    }
+
+    /**
+     * Point every action linking to {@code oldTarget} at {@code newTarget}
+     * and move them in the index. Entries owning a rewritten action are
+     * added to {@code relinked}. Returns the number of links rewritten.
+     */
+    public int retarget(String oldTarget, String newTarget, Collection<DecoEntry> relinked) {
+        if (oldTarget == null || Objects.equals(oldTarget, newTarget)) return 0;
+        List<Ref> refs = inbound.remove(oldTarget);
+        if (refs == null) return 0;
+        boolean keep = newTarget != null && !newTarget.isEmpty();
+        for (Ref ref : refs) {
+            ref.action.setLink(newTarget);
+            ref.target = newTarget;
+            relinked.add(ref.owner);
+            // A cleared link no longer belongs in the index.
+            if (!keep) byOwner.get(ref.owner).remove(ref);
+        }
+        if (keep) inbound.computeIfAbsent(newTarget, k -> new ArrayList<>()).addAll(refs);
+        return refs.size();
+    }
+
+    /** Record each entry's link target before a command that may rename it. */
+    public static Map<DecoEntry, String> captureTargets(List<DecoEntry> entries) {
+        Map<DecoEntry, String> out = new IdentityHashMap<>();
+        for (DecoEntry e : entries) out.put(e, LinkValidator.exportedDecoref(e));
+        return out;
+    }
+
+    /**
+     * After a command: for each entry whose link target changed since
+     * {@code before}, rewrite inbound links from the old target to the new
+     * one. A target that some entry still exports (e.g. a duplicate
+     * decoref) is left alone, as is a target that was cleared. Entries whose links were rewritten
+     * are added to {@code relinked}. Returns the number of links rewritten.
+     */
+    public int propagateRenames(List<DecoEntry> entries, Map<DecoEntry, String> before,
+                                Collection<DecoEntry> relinked) {
+        Set<String> live = new HashSet<>();
+        Map<String, String> renames = new LinkedHashMap<>();
+        for (DecoEntry e : entries) {
+            String now = LinkValidator.exportedDecoref(e);
+            if (now != null) live.add(now);
+            String old = before.get(e);
+            if (old == null || now == null || old.equals(now)) continue;
+            // First rename wins if two entries shared the old target.
+            renames.putIfAbsent(old, now);
+        }
+
+        int rewritten = 0;
+        for (Map.Entry<String, String> r : renames.entrySet()) {
+            if (live.contains(r.getKey())) continue;
+            rewritten += retarget(r.getKey(), r.getValue(), relinked);
+        }
+        return rewritten;
+    }
+}
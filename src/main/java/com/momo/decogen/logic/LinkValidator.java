@@ -0,0 +1,289 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.model.Action;
+import com.momo.decogen.model.DecoEntry;
+import com.momo.decogen.model.Script;
+
+import java.util.*;
+
+/**
+ * Checks that every reference between entries still resolves:
+ *   - script action links (on_use, tool_modelswitch, ...) point at an
+ *     existing entry's exported decoref (decoref, else material, else
+ *     model, see {@link #exportedDecoref})
+ *   - composite.model and chain_models name a known model
+ *   - no two entries export the same decoref
+ *
+ * {@link #validate} checks a list once. A long-lived validator instead
+ * keeps what each entry contributes (the name it exports, the names it
+ * links to, the models it references) in hash indexes, so after a command
+ * {@link #update} only re-checks the entries that changed plus the entries
+ * whose result depends on a name or model that changed.
+ */
+public class LinkValidator {
+
+    public enum Kind {
+        BROKEN_LINK,
+        MISSING_COMPOSITE_MODEL,
+        MISSING_CHAIN_MODEL,
+        DUPLICATE_DECOREF
+    }
+
+    public record Problem(DecoEntry entry, Kind kind, String field, String target) {
+        public String describe() {
+            String who = entry.getName() != null ? entry.getName() : "(unnamed)";
+            return switch (kind) {
+                case BROKEN_LINK -> who + ": " + field + ".link \u2192 \"" + target + "\" (no such entry)";
+                case MISSING_COMPOSITE_MODEL -> who + ": composite.model \"" + target + "\" (unknown model)";
+                case MISSING_CHAIN_MODEL -> who + ": chain_models \"" + target + "\" (unknown model)";
+                case DUPLICATE_DECOREF -> who + ": decoref \"" + target + "\" is used by more than one entry";
+            };
+        }
+    }
+
+    public record Report(List<Problem> problems) {
+        public boolean isClean() { return problems.isEmpty(); }
+
+        public int count(Kind kind) {
+            int n = 0;
+            for (Problem p : problems) if (p.kind() == kind) n++;
+            return n;
+        }
+
+        public String summary() {
+            return LinkValidator.summary(problems.size());
+        }
+    }
+
+    private record Link(String field, String target) {}
+
+    /** What one entry contributes to the indexes, and its current problems. */
+    private static final class Contribution {
+        String exported;
+        String model;
+        final List<Link> links = new ArrayList<>(2);
+        String compositeModel;
+        final List<String> chainModels = new ArrayList<>(0);
+        List<Problem> problems = List.of();
+    }
+
+    private final Map<DecoEntry, Contribution> byEntry = new IdentityHashMap<>();
+    // Exported decoref -> entries exporting it (more than one is a duplicate).
+    private final Map<String, List<DecoEntry>> exporters = new HashMap<>();
+    // Link target -> entries with at least one action linking to it.
+    private final Map<String, List<DecoEntry>> linkers = new HashMap<>();
+    // Entry model -> how many entries use it.
+    private final Map<String, Integer> entryModels = new HashMap<>();
+    // Composite/chain model -> entries referencing it.
+    private final Map<String, List<DecoEntry>> modelUsers = new HashMap<>();
+    private Set<String> knownModels = Set.of();
+    private int problemCount;
+
+    /**
+     * Validate {@code entries}. {@code knownModels} is the set of models
+     * loaded in the session; entry models are added to it automatically.
+     */
+    public static Report validate(List<DecoEntry> entries, Set<String> knownModels) {
+        LinkValidator v = new LinkValidator();
+        v.rebuild(entries, knownModels);
+        return v.report(entries);
+    }
+
+    /** "All links OK" or "N link problem(s)". */
+    public static String summary(int problems) {
+        if (problems == 0) return "All links OK";
+        return problems + " link problem" + (problems == 1 ? "" : "s");
+    }
+
+    /** Forget everything and index {@code entries} from scratch. */
+    public void rebuild(Collection<DecoEntry> entries, Set<String> knownModels) {
+        byEntry.clear();
+        exporters.clear();
+        linkers.clear();
+        entryModels.clear();
+        modelUsers.clear();
+        this.knownModels = Set.copyOf(knownModels);
+        for (DecoEntry e : entries) {
+            if (!byEntry.containsKey(e)) byEntry.put(e, contribute(e, null, null));
+        }
+        problemCount = 0;
+        for (Map.Entry<DecoEntry, Contribution> en : byEntry.entrySet()) {
+            recheck(en.getKey(), en.getValue());
+        }
+    }
+
+    /**
+     * Bring the result up to date after {@code changed} entries were added
+     * or edited and {@code removed} ones dropped. Besides those, only
+     * entries exporting, linking to or referencing a name or model whose
+     * status may have changed are re-checked.
+     */
+    public void update(Collection<DecoEntry> changed, Collection<DecoEntry> removed, Set<String> knownModels) {
+        Set<String> names = new HashSet<>();
+        Set<String> models = new HashSet<>();
+        Set<DecoEntry> recheck = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (DecoEntry e : removed) {
+            Contribution c = byEntry.remove(e);
+            if (c != null) withdraw(e, c, names, models);
+        }
+        for (DecoEntry e : changed) {
+            Contribution c = byEntry.remove(e);
+            if (c != null) withdraw(e, c, names, models);
+            byEntry.put(e, contribute(e, names, models));
+            recheck.add(e);
+        }
+        if (!this.knownModels.equals(knownModels)) {
+            for (String m : knownModels) if (!this.knownModels.contains(m)) models.add(m);
+            for (String m : this.knownModels) if (!knownModels.contains(m)) models.add(m);
+            this.knownModels = Set.copyOf(knownModels);
+        }
+
+        for (String name : names) {
+            recheck.addAll(exporters.getOrDefault(name, List.of()));
+            recheck.addAll(linkers.getOrDefault(name, List.of()));
+        }
+        for (String m : models) recheck.addAll(modelUsers.getOrDefault(m, List.of()));
+        for (DecoEntry e : recheck) {
+            Contribution c = byEntry.get(e);
+            if (c != null) recheck(e, c);
+        }
+    }
+
+    public int problemCount() { return problemCount; }
+    public boolean isClean() { return problemCount == 0; }
+
+    /** Current problems, entries in {@code order}. */
+    public Report report(List<DecoEntry> order) {
+        if (problemCount == 0) return new Report(List.of());
+        List<Problem> out = new ArrayList<>(problemCount);
+        for (DecoEntry e : order) {
+            Contribution c = byEntry.get(e);
+            if (c != null) out.addAll(c.problems);
+        }
+        return new Report(out);
+    }
+
+    // Index e; names/models (when non-null) collect what it touched.
+    private Contribution contribute(DecoEntry e, Set<String> names, Set<String> models) {
+        Contribution c = new Contribution();
+        c.exported = exportedDecoref(e);
+        if (c.exported != null) {
+            exporters.computeIfAbsent(c.exported, k -> new ArrayList<>(1)).add(e);
+            if (names != null) names.add(c.exported);
+        }
+        c.model = e.getModel();
+        if (c.model != null) {
+            entryModels.merge(c.model, 1, Integer::sum);
+            if (models != null) models.add(c.model);
+        }
+
+        Script s = e.getScript();
+        if (s != null) {
+            addLink(c, "on_use", s.getOnUse());
+            addLink(c, "shift_on_use", s.getShiftOnUse());
+            addLink(c, "added", s.getAdded());
+            addLink(c, "trigger", s.getTrigger());
+            addLink(c, "animation_start", s.getAnimationStart());
+            addLink(c, "animation_end", s.getAnimationEnd());
+            addLink(c, "tool_modelswitch", s.getToolModelSwitch());
+        }
+        for (Link l : c.links) {
+            List<DecoEntry> list = linkers.computeIfAbsent(l.target(), k -> new ArrayList<>(1));
+            if (!containsIdentity(list, e)) list.add(e);
+        }
+
+        if (e.getComposite() != null) {
+            String cm = e.getComposite().getModel();
+            if (cm != null && !cm.isEmpty()) c.compositeModel = cm;
+        }
+        if (e.getChainModels() != null) {
+            for (String m : e.getChainModels()) {
+                if (m != null && !m.isEmpty()) c.chainModels.add(m);
+            }
+        }
+        if (c.compositeModel != null) addUser(c.compositeModel, e);
+        for (String m : c.chainModels) addUser(m, e);
+        return c;
+    }
+
+    private void withdraw(DecoEntry e, Contribution c, Set<String> names, Set<String> models) {
+        problemCount -= c.problems.size();
+        if (c.exported != null) {
+            removeFrom(exporters, c.exported, e);
+            names.add(c.exported);
+        }
+        if (c.model != null) {
+            entryModels.computeIfPresent(c.model, (k, n) -> n == 1 ? null : n - 1);
+            models.add(c.model);
+        }
+        for (Link l : c.links) removeFrom(linkers, l.target(), e);
+        if (c.compositeModel != null) removeFrom(modelUsers, c.compositeModel, e);
+        for (String m : c.chainModels) removeFrom(modelUsers, m, e);
+    }
+
+    private void recheck(DecoEntry e, Contribution c) {
+        problemCount -= c.problems.size();
+        List<Problem> problems = new ArrayList<>(0);
+        if (c.exported != null && exporters.get(c.exported).size() > 1) {
+            problems.add(new Problem(e, Kind.DUPLICATE_DECOREF, "decoref", c.exported));
+        }
+        for (Link l : c.links) {
+            if (!exporters.containsKey(l.target())) {
+                problems.add(new Problem(e, Kind.BROKEN_LINK, l.field(), l.target()));
+            }
+        }
+        if (c.compositeModel != null && !isKnownModel(c.compositeModel)) {
+            problems.add(new Problem(e, Kind.MISSING_COMPOSITE_MODEL, "composite", c.compositeModel));
+        }
+        for (String m : c.chainModels) {
+            if (!isKnownModel(m)) problems.add(new Problem(e, Kind.MISSING_CHAIN_MODEL, "chain_models", m));
+        }
+        c.problems = problems.isEmpty() ? List.of() : problems;
+        problemCount += problems.size();
+    }
+
+    private boolean isKnownModel(String m) {
+        return knownModels.contains(m) || entryModels.containsKey(m);
+    }
+
+    private void addUser(String model, DecoEntry e) {
+        List<DecoEntry> list = modelUsers.computeIfAbsent(model, k -> new ArrayList<>(1));
+        if (!containsIdentity(list, e)) list.add(e);
+    }
+
+    private static void addLink(Contribution c, String field, Action action) {
+        if (action == null) return;
+        String link = action.getLink();
+        if (link == null || link.isEmpty()) return;
+        c.links.add(new Link(field, link));
+    }
+
+    private static void removeFrom(Map<String, List<DecoEntry>> index, String key, DecoEntry e) {
+        List<DecoEntry> list = index.get(key);
+        if (list == null) return;
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == e) {
+                list.remove(i);
+                break;
+            }
+        }
+        if (list.isEmpty()) index.remove(key);
+    }
+
+    private static boolean containsIdentity(List<DecoEntry> list, DecoEntry e) {
+        for (DecoEntry x : list) if (x == e) return true;
+        return false;
+    }
+
+    /**
+     * The decoref the exporter will write: decoref, else material, else
+     * model. This is the only name a link can resolve to; a material is
+     * a valid target only when it is what the entry exports.
+     */
+    public static String exportedDecoref(DecoEntry e) {
+        String target = ChainBuilder.getLinkTarget(e);
+        if (target == null || target.isEmpty()) target = e.getModel();
+        return (target == null || target.isEmpty()) ? null : target;
+    }
+}
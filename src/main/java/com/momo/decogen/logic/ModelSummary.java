@@ -0,0 +1,206 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.bbmodel.BBAnimation;
+import com.momo.decogen.bbmodel.BBElement;
+import com.momo.decogen.bbmodel.BBGroup;
+import com.momo.decogen.bbmodel.BBModel;
+import com.momo.decogen.bbmodel.BBTexture;
+import com.momo.decogen.model.DecoType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Everything the app derives from a parsed model, extracted in one pass
+ * over its groups, elements and animations: the bed/seat type and the
+ * nodes it came from, particle locator candidates, display slots, the
+ * animations with their loop mode and length, the UV resolution, and the
+ * textures the model was authored with. Each name is lowercased once.
+ *
+ * This is what the controller keeps per model after intake; the full
+ * {@link BBModel} (elements, the raw outliner tree) isn't retained.
+ */
+public final class ModelSummary {
+
+    /** One animation as the model declares it; loop is "loop", "once", "hold" or null. */
+    public record Animation(String name, String loop, double length) {}
+
+    private static final String[] BED_PREFIXES = {"bed_node", "sleeping_node"};
+    private static final String[] SEAT_PREFIXES = {"sitting_node", "seat_node"};
+    private static final String DISPLAY_PREFIX = "display_";
+
+    private final DecoType detectedType;
+    private final List<String> seatNodes;
+    private final List<String> bedNodes;
+    private final List<String> particleLocators;
+    private final List<String> displaySlots;
+    private final boolean hasAnimations;
+    private final List<Animation> animations;
+    private final List<String> animationNames;
+    private final String defaultAnimation;
+    private final int uvWidth;
+    private final int uvHeight;
+    private final List<String> textureRefs;
+
+    private ModelSummary(DecoType detectedType, List<String> seatNodes, List<String> bedNodes,
+                       List<String> particleLocators, List<String> displaySlots, boolean hasAnimations,
+                       List<Animation> animations, List<String> animationNames, String defaultAnimation,
+                       int uvWidth, int uvHeight, List<String> textureRefs) {
+        this.detectedType = detectedType;
+        this.seatNodes = seatNodes;
+        this.bedNodes = bedNodes;
+        this.particleLocators = particleLocators;
+        this.displaySlots = displaySlots;
+        this.hasAnimations = hasAnimations;
+        this.animations = animations;
+        this.animationNames = animationNames;
+        this.defaultAnimation = defaultAnimation;
+        this.uvWidth = uvWidth;
+        this.uvHeight = uvHeight;
+        this.textureRefs = textureRefs;
+    }
+
+    public static ModelSummary of(BBModel model) {
+        List<String> seatNodes = new ArrayList<>();
+        List<String> bedNodes = new ArrayList<>();
+        List<String> particles = new ArrayList<>();
+        Set<String> displaySlots = new LinkedHashSet<>();
+        // A bed/seat group wins over a bed/seat locator, as it always has.
+        DecoType groupType = null;
+        DecoType locatorType = null;
+
+        if (model.getGroups() != null) {
+            for (BBGroup group : model.getGroups()) {
+                String name = group.getName();
+                if (name == null) continue;
+                String lower = name.toLowerCase();
+                DecoType type = classify(lower);
+                if (type != null) {
+                    if (groupType == null) groupType = type;
+                    (type == DecoType.BED ? bedNodes : seatNodes).add(Symbols.intern(name));
+                } else if (lower.startsWith(DISPLAY_PREFIX)) {
+                    displaySlots.add(Symbols.intern(name));
+                }
+            }
+        }
+
+        if (model.getElements() != null) {
+            for (BBElement el : model.getElements()) {
+                if (!el.isLocator()) continue;
+                String name = el.getName();
+                if (name == null || name.isEmpty()) continue;
+                String lower = name.toLowerCase();
+                DecoType type = classify(lower);
+                if (type != null) {
+                    if (locatorType == null) locatorType = type;
+                    (type == DecoType.BED ? bedNodes : seatNodes).add(Symbols.intern(name));
+                } else if (lower.startsWith(DISPLAY_PREFIX)) {
+                    displaySlots.add(Symbols.intern(name));
+                } else {
+                    particles.add(Symbols.intern(name));
+                }
+            }
+        }
+
+        List<Animation> animations = new ArrayList<>();
+        List<String> animationNames = new ArrayList<>();
+        String firstName = null;
+        String idle = null;
+        if (model.getAnimations() != null) {
+            for (BBAnimation anim : model.getAnimations()) {
+                String name = Symbols.intern(anim.getName());
+                if (name == null) continue;
+                animations.add(new Animation(name, Symbols.intern(anim.getLoop()), anim.getLength()));
+                animationNames.add(name);
+                if (name.isEmpty()) continue;
+                if (firstName == null) firstName = name;
+                if (idle == null && name.toLowerCase().contains("idle")) idle = name;
+            }
+        }
+
+        // Blockbench keeps both the display name and the file path; either
+        // may be the one that matches the texture file on disk.
+        Set<String> textureRefs = new LinkedHashSet<>();
+        if (model.getTextures() != null) {
+            for (BBTexture tex : model.getTextures()) {
+                String fromName = fileStem(tex.getName());
+                String fromPath = fileStem(tex.getPath());
+                if (fromName != null) textureRefs.add(Symbols.intern(fromName));
+                if (fromPath != null && !fromPath.equalsIgnoreCase(fromName)) {
+                    textureRefs.add(Symbols.intern(fromPath));
+                }
+            }
+        }
+
+        BBModel.Resolution res = model.getResolution();
+        return new ModelSummary(
+                groupType != null ? groupType : locatorType,
+                List.copyOf(seatNodes),
+                List.copyOf(bedNodes),
+                List.copyOf(particles),
+                List.copyOf(displaySlots),
+                model.hasAnimations(),
+                List.copyOf(animations),
+                List.copyOf(animationNames),
+                idle != null ? idle : firstName,
+                res != null ? res.getWidth() : 0,
+                res != null ? res.getHeight() : 0,
+                List.copyOf(textureRefs));
+    }
+
+    // C:\textures\locker_yellow.png or locker_yellow.png -> locker_yellow
+    private static String fileStem(String ref) {
+        if (ref == null) return null;
+        int start = Math.max(ref.lastIndexOf('/'), ref.lastIndexOf('\\')) + 1;
+        int dot = ref.lastIndexOf('.');
+        int end = dot > start ? dot : ref.length();
+        return end > start ? ref.substring(start, end) : null;
+    }
+
+    private static DecoType classify(String lower) {
+        for (String prefix : BED_PREFIXES) {
+            if (lower.startsWith(prefix)) return DecoType.BED;
+        }
+        for (String prefix : SEAT_PREFIXES) {
+            if (lower.startsWith(prefix)) return DecoType.SEAT;
+        }
+        return null;
+    }
+
+    /** Bed/seat type from group names, then locator names; null if neither. */
+    public DecoType getDetectedType() { return detectedType; }
+
+    /** Groups and locators named like a seat node (sitting_node*, seat_node*). */
+    public List<String> getSeatNodes() { return seatNodes; }
+
+    /** Groups and locators named like a bed node (bed_node*, sleeping_node*). */
+    public List<String> getBedNodes() { return bedNodes; }
+
+    /**
+     * Locators that are likely particle-effect references: not a bed/seat
+     * node and not a display_ slot. Names as written in Blockbench.
+     */
+    public List<String> getParticleLocators() { return particleLocators; }
+
+    /** display_* groups and locators, in model order, without duplicates. */
+    public List<String> getDisplaySlots() { return displaySlots; }
+
+    public boolean hasAnimations() { return hasAnimations; }
+    public List<Animation> getAnimations() { return animations; }
+    public List<String> getAnimationNames() { return animationNames; }
+
+    /**
+     * Default animation: the first whose name contains "idle"
+     * (case-insensitive), otherwise the first named one; null if none.
+     */
+    public String getDefaultAnimation() { return defaultAnimation; }
+
+    /** Texture size the model's UVs were authored against; 0 if the file doesn't say. */
+    public int getUvWidth() { return uvWidth; }
+    public int getUvHeight() { return uvHeight; }
+
+    /** File stems of the textures listed in the model, e.g. "locker_yellow". */
+    public List<String> getTextureRefs() { return textureRefs; }
+}
@@ -0,0 +1,65 @@
+package com.momo.decogen.logic;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Case-insensitive, numeric-aware ordering: {@code closet_2} before
+ * {@code closet_10}. {@link #key} turns a string into a collation key whose
+ * plain {@code compareTo} gives that order, so a sort computes each key
+ * once instead of lowercasing and scanning digits on every comparison.
+ *
+ * In the key every run of digits becomes {@code '0'}, its length (leading
+ * zeros dropped) as one char, then the digits. Two numbers compare by
+ * length first and then digit by digit, i.e. by value, and a number still
+ * sorts where a digit would against letters and punctuation.
+ */
+public final class NaturalOrder {
+
+    private NaturalOrder() {}
+
+    /** Collation key for {@code s}; null sorts like the empty string. */
+    public static String key(String s) {
+        if (s == null || s.isEmpty()) return "";
+        StringBuilder out = new StringBuilder(s.length() + 4);
+        int i = 0;
+        int n = s.length();
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int start = i;
+                while (i < n && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+                int sig = start;
+                while (sig < i - 1 && s.charAt(sig) == '0') sig++;
+                out.append('0').append((char) (i - sig)).append(s, sig, i);
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Comparator over {@code items} by the given keys in order (ties fall
+     * through to the next key). Keys are computed once per item up front;
+     * the comparator only works for items in that collection.
+     */
+    public static <T> Comparator<T> precomputed(Collection<T> items, List<Function<T, String>> fields) {
+        Map<T, String[]> keys = new IdentityHashMap<>(items.size() * 2);
+        for (T item : items) {
+            String[] k = new String[fields.size()];
+            for (int f = 0; f < k.length; f++) k[f] = key(fields.get(f).apply(item));
+            keys.put(item, k);
+        }
+        return (a, b) -> {
+            String[] ka = keys.get(a);
+            String[] kb = keys.get(b);
+            for (int f = 0; f < ka.length; f++) {
+                int c = ka[f].compareTo(kb[f]);
+                if (c != 0) return c;
+            }
+            return 0;
+        };
+    }
+}
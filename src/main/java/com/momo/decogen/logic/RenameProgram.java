@@ -0,0 +1,256 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.model.DecoEntry;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.IntStream;
+
+/**
+ * An ordered list of rename rules, compiled once and run over every entry's
+ * name, decoref and material. One rule per line; blank lines and lines
+ * starting with {@code #} are ignored:
+ * <pre>
+ *   strip old                          # drop the word "old"
+ *   add v2 at end                      # append a word
+ *   add "Big" between chair red        # insert between two adjacent words
+ *   replace ^oak_(\w+)$ =&gt; $1_oak      # regex over the whole value
+ *   material: strip wood               # scope prefix: name, decoref, material, all
+ * </pre>
+ * Without a scope prefix a rule touches name and decoref, the same default
+ * as the Normalize dialogs. strip/add use {@link Tokens} semantics (words
+ * split on spaces in names, underscores elsewhere, matched ignoring case);
+ * an added word keeps its casing in names and becomes lower snake_case in
+ * decorefs and materials.
+ *
+ * {@link #plan} computes every change without touching the entries (in
+ * parallel for large lists, since rules are immutable); {@link #apply}
+ * then writes them, so a preview and the real run are the same code.
+ */
+public final class RenameProgram {
+
+    /** One field of one entry going from {@code before} to {@code after}. */
+    public record Change(DecoEntry entry, TokenIndex.Field field, String before, String after) {}
+
+    private interface Rule {
+        String apply(String value, TokenIndex.Field field);
+    }
+
+    private record Scoped(Set<TokenIndex.Field> fields, Rule rule) {}
+
+    private static final Set<TokenIndex.Field> DEFAULT_SCOPE =
+            EnumSet.of(TokenIndex.Field.NAME, TokenIndex.Field.DECOREF);
+    private static final Pattern SCOPE = Pattern.compile("^([a-z]+(?:\\s*,\\s*[a-z]+)*)\\s*:\\s+(.*)$");
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private final List<Scoped> rules;
+
+    private RenameProgram(List<Scoped> rules) {
+        this.rules = rules;
+    }
+
+    public int size() { return rules.size(); }
+
+    /**
+     * Parse and compile {@code source}. Throws IllegalArgumentException
+     * naming the offending line on a syntax error or bad regex.
+     */
+    public static RenameProgram compile(String source) {
+        List<Scoped> rules = new ArrayList<>();
+        String[] lines = source == null ? new String[0] : source.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                rules.add(compileLine(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return new RenameProgram(List.copyOf(rules));
+    }
+
+    private static Scoped compileLine(String line) {
+        Set<TokenIndex.Field> scope = DEFAULT_SCOPE;
+        Matcher sm = SCOPE.matcher(line);
+        if (sm.matches()) {
+            scope = parseScope(sm.group(1));
+            line = sm.group(2).trim();
+        }
+
+        int sp = line.indexOf(' ');
+        String verb = (sp < 0 ? line : line.substring(0, sp)).toLowerCase(Locale.ROOT);
+        String rest = sp < 0 ? "" : line.substring(sp + 1).trim();
+        return switch (verb) {
+            case "strip" -> new Scoped(scope, compileStrip(rest));
+            case "add" -> new Scoped(scope, compileAdd(rest));
+            case "replace" -> new Scoped(scope, compileReplace(rest));
+            default -> throw new IllegalArgumentException("unknown rule '" + verb + "' (use strip, add or replace)");
+        };
+    }
+
+    private static Set<TokenIndex.Field> parseScope(String spec) {
+        Set<TokenIndex.Field> fields = EnumSet.noneOf(TokenIndex.Field.class);
+        for (String part : spec.split(",")) {
+            switch (part.trim()) {
+                case "name" -> fields.add(TokenIndex.Field.NAME);
+                case "decoref" -> fields.add(TokenIndex.Field.DECOREF);
+                case "material" -> fields.add(TokenIndex.Field.MATERIAL);
+                case "all" -> fields.addAll(EnumSet.allOf(TokenIndex.Field.class));
+                default -> throw new IllegalArgumentException("unknown field '" + part.trim() + "'");
+            }
+        }
+        return fields;
+    }
+
+    private static Rule compileStrip(String rest) {
+        List<String> args = words(rest);
+        if (args.size() != 1) throw new IllegalArgumentException("strip takes one word");
+        String word = args.get(0);
+        return (value, field) -> Tokens.strip(value, field == TokenIndex.Field.NAME ? word : idWord(word),
+                field.separator);
+    }
+
+    private static Rule compileAdd(String rest) {
+        List<String> args = words(rest);
+        if (args.size() < 3 || !args.get(1).equalsIgnoreCase("at") && !args.get(1).equalsIgnoreCase("between")) {
+            throw new IllegalArgumentException("use: add WORD at start|end, or add WORD between BEFORE AFTER");
+        }
+        String word = args.get(0);
+        String idWord = idWord(word);
+        Tokens.Position position;
+        String before = null;
+        String after = null;
+        if (args.get(1).equalsIgnoreCase("between")) {
+            if (args.size() != 4) throw new IllegalArgumentException("between needs a word before and a word after");
+            position = Tokens.Position.BETWEEN;
+            before = args.get(2);
+            after = args.get(3);
+        } else {
+            if (args.size() != 3) throw new IllegalArgumentException("use: add WORD at start|end");
+            position = switch (args.get(2).toLowerCase(Locale.ROOT)) {
+                case "start" -> Tokens.Position.START;
+                case "end" -> Tokens.Position.END;
+                default -> throw new IllegalArgumentException("position must be start or end");
+            };
+        }
+        Tokens.Position pos = position;
+        String b = before;
+        String a = after;
+        return (value, field) -> {
+            boolean name = field == TokenIndex.Field.NAME;
+            return Tokens.insert(value, name ? word : idWord, field.separator, pos,
+                    b == null || name ? b : idWord(b), a == null || name ? a : idWord(a));
+        };
+    }
+
+    private static Rule compileReplace(String rest) {
+        // " =>" rather than " => " so an empty replacement (line ends at the arrow) works.
+        int arrow = rest.indexOf(" =>");
+        if (arrow < 0) throw new IllegalArgumentException("use: replace REGEX => REPLACEMENT");
+        String regex = rest.substring(0, arrow).trim();
+        String replacement = rest.substring(arrow + 3).trim();
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("bad regex: " + e.getDescription());
+        }
+        checkReplacement(regex, replacement);
+        return (value, field) -> pattern.matcher(value).replaceAll(replacement);
+    }
+
+    /**
+     * Surface a bad replacement ($ with no group, ${name} the regex doesn't
+     * define, a trailing backslash) now rather than on the first match:
+     * run it once against the regex made optional, which matches the empty
+     * string with the same numbered and named groups. (The newline ends a
+     * trailing (?x) comment that would otherwise swallow the wrapper.)
+     */
+    private static void checkReplacement(String regex, String replacement) {
+        Pattern anywhere;
+        try {
+            anywhere = Pattern.compile("(?:" + regex + "\n)?");
+        } catch (PatternSyntaxException e) {
+            return;
+        }
+        try {
+            anywhere.matcher("").replaceFirst(replacement);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("bad replacement: " + e.getMessage());
+        }
+    }
+
+    /** Split on whitespace, keeping "double quoted" runs together. */
+    private static List<String> words(String s) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                any = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (any) out.add(cur.toString());
+                cur.setLength(0);
+                any = false;
+            } else {
+                cur.append(c);
+                any = true;
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unclosed quote");
+        if (any) out.add(cur.toString());
+        return out;
+    }
+
+    /** Decoref/material form of a word: lower case, spaces as underscores. */
+    private static String idWord(String word) {
+        return word.toLowerCase(Locale.ROOT).replaceAll("\\s+", "_");
+    }
+
+    /** Run every rule over every entry without modifying anything. */
+    public List<Change> plan(List<DecoEntry> entries) {
+        List<DecoEntry> snapshot = new ArrayList<>(entries);
+        IntStream range = IntStream.range(0, snapshot.size());
+        if (snapshot.size() >= PARALLEL_THRESHOLD) range = range.parallel();
+        @SuppressWarnings("unchecked")
+        List<Change>[] perEntry = (List<Change>[]) new List<?>[snapshot.size()];
+        range.forEach(i -> perEntry[i] = planEntry(snapshot.get(i)));
+
+        List<Change> out = new ArrayList<>();
+        for (List<Change> changes : perEntry) out.addAll(changes);
+        return out;
+    }
+
+    private List<Change> planEntry(DecoEntry entry) {
+        List<Change> changes = List.of();
+        for (TokenIndex.Field field : TokenIndex.Field.values()) {
+            String before = field.get(entry);
+            if (before == null) continue;
+            String value = before;
+            for (Scoped r : rules) {
+                if (r.fields().contains(field)) value = r.rule().apply(value, field);
+            }
+            if (!value.equals(before)) {
+                if (changes.isEmpty()) changes = new ArrayList<>(3);
+                changes.add(new Change(entry, field, before, value));
+            }
+        }
+        return changes;
+    }
+
+    /** Write planned changes. Returns the number of distinct entries modified. */
+    public static int apply(List<Change> changes) {
+        Set<DecoEntry> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Change c : changes) {
+            c.field().set(c.entry(), c.after());
+            touched.add(c.entry());
+        }
+        return touched.size();
+    }
+}
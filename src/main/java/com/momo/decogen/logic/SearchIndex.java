@@ -0,0 +1,220 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.model.DecoEntry;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Trigram index over each entry's name, decoref, material and model for the
+ * entry-list search box. A query is split on whitespace; an entry matches
+ * when every term is a case-insensitive substring of one of those fields.
+ *
+ * Each entry gets an increasing int id, and every trigram maps to a sorted
+ * array of ids. A query intersects the posting arrays of its trigrams
+ * (smallest first) and then checks only the surviving candidates, so a
+ * keystroke costs roughly the size of the rarest trigram's list rather
+ * than the size of the catalog. Terms shorter than three characters have
+ * no trigram and fall back to checking candidates (or every entry) directly.
+ *
+ * Like {@link TokenIndex}, {@link #sync} re-indexes only entries whose
+ * fields changed since the last sync; {@link #update} does the same for
+ * just the entries a command names. A changed or removed entry's old id is
+ * tombstoned and skipped; the index is rebuilt once tombstones outnumber
+ * live ids.
+ */
+public class SearchIndex {
+
+    private record Indexed(int id, String name, String decoref, String material, String model) {
+        boolean matches(DecoEntry e) {
+            return Objects.equals(name, e.getName())
+                    && Objects.equals(decoref, e.getDecoref())
+                    && Objects.equals(material, e.getMaterial())
+                    && Objects.equals(model, e.getModel());
+        }
+    }
+
+    /** Append-only sorted int list; ids are handed out in increasing order. */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private static final int MIN_REBUILD = 1024;
+
+    private final Map<DecoEntry, Indexed> indexed = new IdentityHashMap<>();
+    private final List<DecoEntry> byId = new ArrayList<>();
+    // Lower-cased fields joined by '\n', which never appears in a query term.
+    private final List<String> haystacks = new ArrayList<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int dead;
+
+    /** Bring the index up to date with {@code entries}. */
+    public void sync(List<DecoEntry> entries) {
+        Set<DecoEntry> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        live.addAll(entries);
+        for (Iterator<Map.Entry<DecoEntry, Indexed>> it = indexed.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<DecoEntry, Indexed> e = it.next();
+            if (!live.contains(e.getKey())) {
+                kill(e.getValue().id());
+                it.remove();
+            }
+        }
+        for (DecoEntry e : entries) {
+            Indexed old = indexed.get(e);
+            if (old != null && old.matches(e)) continue;
+            if (old != null) kill(old.id());
+            add(e);
+        }
+        if (dead > MIN_REBUILD && dead > indexed.size()) rebuild();
+    }
+
+    /**
+     * Re-index {@code changed} entries (added, or edited in place) and drop
+     * {@code removed} ones, without looking at the rest. Removals are
+     * applied first; an entry in both is re-added. Returns whether a
+     * matcher from before may now answer differently for some entry still
+     * in the list (its indexed fields changed, or ids were renumbered).
+     */
+    public boolean update(Collection<DecoEntry> changed, Collection<DecoEntry> removed) {
+        for (DecoEntry e : removed) {
+            Indexed old = indexed.remove(e);
+            if (old != null) kill(old.id());
+        }
+        boolean reindexed = false;
+        for (DecoEntry e : changed) {
+            Indexed old = indexed.get(e);
+            if (old != null && old.matches(e)) continue;
+            if (old != null) kill(old.id());
+            add(e);
+            reindexed = true;
+        }
+        if (dead > MIN_REBUILD && dead > indexed.size()) {
+            rebuild(); // renumbers every id
+            return true;
+        }
+        return reindexed;
+    }
+
+    /**
+     * Predicate accepting entries that match every whitespace-separated term
+     * of {@code query}, as of the last sync. Hits are held as a bit set over
+     * ids, so a broad query doesn't pay for building a large result set.
+     */
+    public Predicate<DecoEntry> matcher(String query) {
+        BitSet hits = search(query);
+        return e -> {
+            Indexed x = indexed.get(e);
+            return x != null && hits.get(x.id());
+        };
+    }
+
+    private BitSet search(String query) {
+        BitSet out = new BitSet(byId.size());
+        List<String> terms = new ArrayList<>();
+        for (String t : query.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            if (!t.isEmpty()) terms.add(t);
+        }
+        if (terms.isEmpty()) return out;
+
+        // Collect each distinct trigram's postings, rarest first.
+        Set<Long> grams = new HashSet<>();
+        for (String t : terms) {
+            for (int i = 0; i + 3 <= t.length(); i++) grams.add(gram(t, i));
+        }
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (long g : grams) {
+            Postings p = postings.get(g);
+            if (p == null) return out;
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+
+        if (lists.isEmpty()) {
+            for (int id = 0; id < byId.size(); id++) check(id, terms, out);
+            return out;
+        }
+        int[] candidates = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int n = candidates.length;
+        for (int k = 1; k < lists.size() && n > 0; k++) {
+            n = intersect(candidates, n, lists.get(k));
+        }
+        for (int i = 0; i < n; i++) check(candidates[i], terms, out);
+        return out;
+    }
+
+    private void check(int id, List<String> terms, BitSet out) {
+        String hay = haystacks.get(id);
+        if (hay == null) return;
+        for (String t : terms) {
+            if (!hay.contains(t)) return;
+        }
+        out.set(id);
+    }
+
+    /** Keep the first {@code n} ids of {@code a} that also occur in {@code p}; returns the new count. */
+    private static int intersect(int[] a, int n, Postings p) {
+        int out = 0;
+        int j = 0;
+        for (int i = 0; i < n && j < p.size; i++) {
+            int id = a[i];
+            // Gallop forward in the (usually much longer) list.
+            int step = 1;
+            while (j + step < p.size && p.ids[j + step] < id) step <<= 1;
+            int lo = j + (step >> 1);
+            int hi = Math.min(j + step, p.size - 1);
+            int pos = Arrays.binarySearch(p.ids, lo, hi + 1, id);
+            if (pos >= 0) {
+                a[out++] = id;
+                j = pos + 1;
+            } else {
+                j = -pos - 1;
+            }
+        }
+        return out;
+    }
+
+    private void add(DecoEntry e) {
+        int id = byId.size();
+        String hay = String.join("\n",
+                lower(e.getName()), lower(e.getDecoref()), lower(e.getMaterial()), lower(e.getModel()));
+        byId.add(e);
+        haystacks.add(hay);
+        indexed.put(e, new Indexed(id, e.getName(), e.getDecoref(), e.getMaterial(), e.getModel()));
+        for (int i = 0; i + 3 <= hay.length(); i++) {
+            if (hay.charAt(i) == '\n' || hay.charAt(i + 1) == '\n' || hay.charAt(i + 2) == '\n') continue;
+            postings.computeIfAbsent(gram(hay, i), k -> new Postings()).add(id);
+        }
+    }
+
+    private void kill(int id) {
+        byId.set(id, null);
+        haystacks.set(id, null);
+        dead++;
+    }
+
+    private void rebuild() {
+        List<DecoEntry> live = new ArrayList<>();
+        for (DecoEntry e : byId) if (e != null) live.add(e);
+        indexed.clear();
+        byId.clear();
+        haystacks.clear();
+        postings.clear();
+        dead = 0;
+        for (DecoEntry e : live) add(e);
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+}
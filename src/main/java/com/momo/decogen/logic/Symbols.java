@@ -0,0 +1,58 @@
+package com.momo.decogen.logic;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Process-wide table of shared String instances for identifiers that
+ * repeat across a catalog: model names, tabs, types, materials, decorefs
+ * and the links that point at them. A 50,000-entry catalog otherwise holds
+ * one String per field per entry, and again per undo snapshot.
+ *
+ * The table holds its strings weakly, so a value no entry or snapshot
+ * references any more is collected like any other garbage. It is split
+ * into stripes by hash, each with its own lock, so a background model
+ * parse interning names doesn't queue behind an undo snapshot.
+ */
+public final class Symbols {
+
+    private static final int STRIPES = 16; // power of two
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Map<String, WeakReference<String>>[] TABLE = new Map[STRIPES];
+    static {
+        for (int i = 0; i < STRIPES; i++) TABLE[i] = new WeakHashMap<>();
+    }
+
+    private Symbols() {}
+
+    /** The shared instance equal to {@code s} (null stays null). */
+    public static String intern(String s) {
+        if (s == null) return null;
+        Map<String, WeakReference<String>> stripe = stripe(s);
+        synchronized (stripe) {
+            WeakReference<String> ref = stripe.get(s);
+            String shared = ref != null ? ref.get() : null;
+            if (shared != null) return shared;
+            stripe.put(s, new WeakReference<>(s));
+            return s;
+        }
+    }
+
+    /** Distinct strings currently in the table. */
+    public static int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : TABLE) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static Map<String, WeakReference<String>> stripe(String s) {
+        int h = s.hashCode();
+        return TABLE[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -1,12 +1,15 @@
 package com.momo.decogen.logic;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Pure matching algorithms for connecting textures, icons, and models
- * by shared name prefixes/suffixes.
+ * by shared name prefixes/suffixes, and by the texture names models
+ * declare themselves (see {@link #addReferences}).
  */
 public class TextureMatcher {
 
@@ -37,6 +40,55 @@ public class TextureMatcher {
         return bestMatch;
     }
 
+    /**
+     * Record that {@code modelName} was authored with the given textures.
+     * The index maps a lowercased texture stem to every model that lists it.
+     */
+    public static void addReferences(Map<String, List<String>> index, String modelName,
+                                     Collection<String> textureRefs) {
+        for (String ref : textureRefs) {
+            List<String> models = index.computeIfAbsent(ref.toLowerCase(), k -> new ArrayList<>(1));
+            if (!models.contains(modelName)) models.add(modelName);
+        }
+    }
+
+    // Models (among modelNames) that list this texture in their file.
+    private static List<String> findReferencingModels(String textureName, Collection<String> modelNames,
+                                                      Map<String, List<String>> index) {
+        List<String> models = index.get(textureName.toLowerCase());
+        if (models == null) return List.of();
+        List<String> out = new ArrayList<>(models.size());
+        for (String m : models) {
+            if (modelNames.contains(m)) out.add(m);
+        }
+        return out;
+    }
+
+    /**
+     * Like {@link #findMatchingModel(String, Collection)}, but a model that
+     * lists the texture in its own file wins over name prefixes, so a
+     * mis-named texture still finds its model. A model named exactly like
+     * the texture still wins. When several models list it the prefix match
+     * is kept if it is one of them, otherwise the shortest name (the base
+     * model rather than a state variant).
+     */
+    public static String findMatchingModel(String textureName, Collection<String> modelNames,
+                                           Map<String, List<String>> index) {
+        String byPrefix = findMatchingModel(textureName, modelNames);
+        if (byPrefix != null && byPrefix.equalsIgnoreCase(textureName)) return byPrefix;
+        List<String> referencing = findReferencingModels(textureName, modelNames, index);
+        if (referencing.isEmpty() || referencing.contains(byPrefix)) return byPrefix;
+
+        String best = null;
+        for (String m : referencing) {
+            if (best == null || m.length() < best.length()
+                    || (m.length() == best.length() && m.compareTo(best) < 0)) {
+                best = m;
+            }
+        }
+        return best;
+    }
+
     /**
      * True if the texture name matches the model name exactly or with a "name_"/"name-" prefix.
      */
@@ -0,0 +1,154 @@
+package com.momo.decogen.logic;
+
+import com.momo.decogen.model.DecoEntry;
+
+import java.util.*;
+
+/**
+ * Inverted index from word to the entries whose name, decoref or material
+ * contains it. Kept per field so the normalize dialogs can count and
+ * target only the fields the user ticked.
+ *
+ * Entries are edited in place all over the app (editor Apply, chain
+ * builders, undo swapping in copies), so instead of hooking every setter
+ * the index remembers the three strings it last tokenized for each entry.
+ * {@link #sync} compares them and re-tokenizes only entries that changed,
+ * were added, or were removed — a no-op sync is one pass of string
+ * comparisons, no splitting.
+ */
+public class TokenIndex {
+
+    public enum Field {
+        NAME(' '), DECOREF('_'), MATERIAL('_');
+
+        public final char separator;
+
+        Field(char separator) { this.separator = separator; }
+
+        public String get(DecoEntry e) {
+            return switch (this) {
+                case NAME -> e.getName();
+                case DECOREF -> e.getDecoref();
+                case MATERIAL -> e.getMaterial();
+            };
+        }
+
+        public void set(DecoEntry e, String value) {
+            switch (this) {
+                case NAME -> e.setName(value);
+                case DECOREF -> e.setDecoref(value);
+                case MATERIAL -> e.setMaterial(value);
+            }
+        }
+    }
+
+    private record Indexed(String name, String decoref, String material) {
+        static Indexed of(DecoEntry e) {
+            return new Indexed(e.getName(), e.getDecoref(), e.getMaterial());
+        }
+
+        String get(Field f) {
+            return switch (f) {
+                case NAME -> name;
+                case DECOREF -> decoref;
+                case MATERIAL -> material;
+            };
+        }
+    }
+
+    private final Map<DecoEntry, Indexed> indexed = new IdentityHashMap<>();
+    private final Map<Field, Map<String, Set<DecoEntry>>> postings = new EnumMap<>(Field.class);
+
+    public TokenIndex() {
+        for (Field f : Field.values()) postings.put(f, new HashMap<>());
+    }
+
+    /** Bring the index up to date with {@code entries}. */
+    public void sync(List<DecoEntry> entries) {
+        Set<DecoEntry> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        live.addAll(entries);
+        for (Iterator<Map.Entry<DecoEntry, Indexed>> it = indexed.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<DecoEntry, Indexed> e = it.next();
+            if (!live.contains(e.getKey())) {
+                remove(e.getKey(), e.getValue());
+                it.remove();
+            }
+        }
+        for (DecoEntry e : entries) {
+            Indexed old = indexed.get(e);
+            if (old != null
+                    && Objects.equals(old.name(), e.getName())
+                    && Objects.equals(old.decoref(), e.getDecoref())
+                    && Objects.equals(old.material(), e.getMaterial())) {
+                continue;
+            }
+            if (old != null) remove(e, old);
+            Indexed now = Indexed.of(e);
+            add(e, now);
+            indexed.put(e, now);
+        }
+    }
+
+    /** Every indexed word, sorted. */
+    public SortedSet<String> words() {
+        SortedSet<String> out = new TreeSet<>();
+        for (Map<String, Set<DecoEntry>> byWord : postings.values()) out.addAll(byWord.keySet());
+        return out;
+    }
+
+    /** Entries containing {@code word} in any of {@code fields}. */
+    public Set<DecoEntry> entriesWith(String word, Set<Field> fields) {
+        String key = Tokens.key(word);
+        Set<DecoEntry> out = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Field f : fields) {
+            Set<DecoEntry> hits = postings.get(f).get(key);
+            if (hits != null) out.addAll(hits);
+        }
+        return out;
+    }
+
+    /** Entries containing both words in {@code field} (not necessarily adjacent). */
+    public Set<DecoEntry> entriesWithBoth(String a, String b, Field field) {
+        Set<DecoEntry> hitsA = postings.get(field).getOrDefault(Tokens.key(a), Set.of());
+        Set<DecoEntry> hitsB = postings.get(field).getOrDefault(Tokens.key(b), Set.of());
+        Set<DecoEntry> out = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<DecoEntry> small = hitsA.size() <= hitsB.size() ? hitsA : hitsB;
+        Set<DecoEntry> large = small == hitsA ? hitsB : hitsA;
+        for (DecoEntry e : small) if (large.contains(e)) out.add(e);
+        return out;
+    }
+
+    /** Number of entries containing {@code word} in any of {@code fields}. */
+    public int count(String word, Set<Field> fields) {
+        if (fields.size() == 1) {
+            Set<DecoEntry> hits = postings.get(fields.iterator().next()).get(Tokens.key(word));
+            return hits == null ? 0 : hits.size();
+        }
+        return entriesWith(word, fields).size();
+    }
+
+    private void add(DecoEntry e, Indexed values) {
+        for (Field f : Field.values()) {
+            for (String t : Tokens.split(values.get(f), f.separator)) {
+                String key = Tokens.key(t);
+                if (key.isEmpty()) continue;
+                postings.get(f)
+                        .computeIfAbsent(key, k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                        .add(e);
+            }
+        }
+    }
+
+    private void remove(DecoEntry e, Indexed values) {
+        for (Field f : Field.values()) {
+            Map<String, Set<DecoEntry>> byWord = postings.get(f);
+            for (String t : Tokens.split(values.get(f), f.separator)) {
+                String key = Tokens.key(t);
+                Set<DecoEntry> hits = byWord.get(key);
+                if (hits == null) continue;
+                hits.remove(e);
+                if (hits.isEmpty()) byWord.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.momo.decogen.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Word-level edits on separator-joined strings: names are split on spaces,
+ * decorefs and materials on underscores. Splitting is a plain char scan —
+ * these run once per entry per field in the normalize commands, so no
+ * regex is compiled per call. Empty parts (doubled or leading/trailing
+ * separators) are dropped, which also collapses them on rejoin.
+ */
+public final class Tokens {
+
+    /** Where {@link #insert} puts the new word. */
+    public enum Position { START, END, BETWEEN }
+
+    private Tokens() {}
+
+    public static List<String> split(String text, char separator) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        int start = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || text.charAt(i) == separator) {
+                if (i > start) out.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return out;
+    }
+
+    /** Index key for a token: trimmed, lower-cased. Empty means "not a word". */
+    public static String key(String token) {
+        return token.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Remove every token equal (ignoring case) to {@code word}. */
+    public static String strip(String text, String word, char separator) {
+        StringBuilder sb = new StringBuilder();
+        for (String p : split(text, separator)) {
+            if (p.equalsIgnoreCase(word)) continue;
+            if (sb.length() > 0) sb.append(separator);
+            sb.append(p);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Insert {@code word} at the start, at the end, or between the first
+     * adjacent pair whose tokens match {@code beforeWord} and
+     * {@code afterWord} (case-insensitive). With BETWEEN and no such pair,
+     * the text is returned unchanged.
+     */
+    public static String insert(String text, String word, char separator,
+                                Position position, String beforeWord, String afterWord) {
+        List<String> tokens = split(text, separator);
+        int insertAt = switch (position) {
+            case START -> 0;
+            case END -> tokens.size();
+            case BETWEEN -> {
+                int at = -1;
+                for (int i = 0; i < tokens.size() - 1; i++) {
+                    if (tokens.get(i).equalsIgnoreCase(beforeWord)
+                            && tokens.get(i + 1).equalsIgnoreCase(afterWord)) {
+                        at = i + 1;
+                        break;
+                    }
+                }
+                yield at;
+            }
+        };
+        if (insertAt < 0) return text;
+        tokens.add(insertAt, word);
+        return String.join(String.valueOf(separator), tokens);
+    }
+}
@@ -1,5 +1,7 @@
 package com.momo.decogen.model;
 
+import com.momo.decogen.logic.Symbols;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,10 +24,10 @@ public class Action {
     public Action() {}
 
     public String getLink() { return link; }
-    public void setLink(String link) { this.link = link; }
+    public void setLink(String link) { this.link = Symbols.intern(link); }
 
     public String getSound() { return sound; }
-    public void setSound(String sound) { this.sound = sound; }
+    public void setSound(String sound) { this.sound = Symbols.intern(sound); }
 
     public List<AnimationPair> getAnimations() { return animations; }
     public void setAnimations(List<AnimationPair> animations) { this.animations = animations; }
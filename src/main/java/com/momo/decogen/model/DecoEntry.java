@@ -1,11 +1,16 @@
 package com.momo.decogen.model;
 
-import com.momo.decogen.bbmodel.BBModel;
-import com.momo.decogen.logic.ModelInspector;
-import com.momo.decogen.logic.TypeDetector;
+import com.momo.decogen.logic.ModelSummary;
+import com.momo.decogen.logic.Symbols;
 
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * One generated catalog entry. Identifier fields that repeat across entries
+ * (model, material, tabs, type, ...) are {@link Symbols#intern interned}
+ * by their setters; the display name is not, as it is usually unique.
+ */
 public class DecoEntry {
     // identity
     private String name;
@@ -54,9 +59,9 @@ public class DecoEntry {
 
     public DecoEntry(String name, String model, String material, String tabs) {
         this.name = name;
-        this.model = model;
-        this.material = material;
-        this.tabs = tabs;
+        this.model = Symbols.intern(model);
+        this.material = Symbols.intern(material);
+        this.tabs = Symbols.intern(tabs);
     }
 
     // --- identity ---
@@ -64,20 +69,20 @@ public class DecoEntry {
     public void setName(String name) { this.name = name; }
 
     public String getDecoref() { return decoref; }
-    public void setDecoref(String decoref) { this.decoref = decoref; }
+    public void setDecoref(String decoref) { this.decoref = Symbols.intern(decoref); }
 
     public String getMaterial() { return material; }
-    public void setMaterial(String material) { this.material = material; }
+    public void setMaterial(String material) { this.material = Symbols.intern(material); }
 
     // --- model & rendering ---
     public String getModel() { return model; }
-    public void setModel(String model) { this.model = model; }
+    public void setModel(String model) { this.model = Symbols.intern(model); }
 
     public double getScale() { return scale; }
     public void setScale(double scale) { this.scale = scale; }
 
     public String getShape() { return shape; }
-    public void setShape(String shape) { this.shape = shape; }
+    public void setShape(String shape) { this.shape = Symbols.intern(shape); }
 
     public Boolean getTransparency() { return transparency; }
     public void setTransparency(Boolean transparency) { this.transparency = transparency; }
@@ -87,17 +92,17 @@ public class DecoEntry {
 
     // --- tab & display ---
     public String getTabs() { return tabs; }
-    public void setTabs(String tabs) { this.tabs = tabs; }
+    public void setTabs(String tabs) { this.tabs = Symbols.intern(tabs); }
 
     public int[] getCraftingColor() { return craftingColor; }
     public void setCraftingColor(int[] craftingColor) { this.craftingColor = craftingColor; }
 
     public String getDefaultAnimation() { return defaultAnimation; }
-    public void setDefaultAnimation(String defaultAnimation) { this.defaultAnimation = defaultAnimation; }
+    public void setDefaultAnimation(String defaultAnimation) { this.defaultAnimation = Symbols.intern(defaultAnimation); }
 
     // --- block type & behavior ---
     public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
+    public void setType(String type) { this.type = Symbols.intern(type); }
 
     public Boolean getPassable() { return passable; }
     public void setPassable(Boolean passable) { this.passable = passable; }
@@ -112,7 +117,7 @@ public class DecoEntry {
     public void setHidden(Boolean hidden) { this.hidden = hidden; }
 
     public String getLoot() { return loot; }
-    public void setLoot(String loot) { this.loot = loot; }
+    public void setLoot(String loot) { this.loot = Symbols.intern(loot); }
 
     public Boolean getDisplayable() { return displayable; }
     public void setDisplayable(Boolean displayable) { this.displayable = displayable; }
@@ -132,7 +137,7 @@ public class DecoEntry {
     public void setChainMaterials(List<String> chainMaterials) { this.chainMaterials = chainMaterials; }
 
     public String getChainPattern() { return chainPattern; }
-    public void setChainPattern(String chainPattern) { this.chainPattern = chainPattern; }
+    public void setChainPattern(String chainPattern) { this.chainPattern = Symbols.intern(chainPattern); }
 
     public Integer getLighting() { return lighting; }
     public void setLighting(Integer lighting) { this.lighting = lighting; }
@@ -153,20 +158,27 @@ public class DecoEntry {
      * If model has animations, sets type to "animated" and picks a
      * default animation (first "idle"-named, else first animation).
      */
-    public void autoDetectType(BBModel model) {
-        if (this.type == null) {
-            if (model.hasAnimations()) {
-                this.type = "animated";
-            } else {
-                DecoType detected = TypeDetector.detectFromModel(model);
-                if (detected != null) {
-                    this.type = detected.getJsonValue();
-                }
-            }
-        }
-
-        if ("animated".equals(this.type) && this.defaultAnimation == null) {
-            this.defaultAnimation = ModelInspector.pickDefaultAnimation(model);
-        }
+    public void autoDetectType(ModelSummary model) {
+        this.type = detectedType(model);
+        this.defaultAnimation = detectedAnimation(model, this.type);
+    }
+
+    /** Whether {@link #autoDetectType} would change this entry. */
+    public boolean wouldDetectType(ModelSummary model) {
+        String detected = detectedType(model);
+        return !Objects.equals(detected, type)
+                || !Objects.equals(detectedAnimation(model, detected), defaultAnimation);
+    }
+
+    private String detectedType(ModelSummary model) {
+        if (type != null) return type;
+        if (model.hasAnimations()) return "animated";
+        DecoType detected = model.getDetectedType();
+        return detected != null ? detected.getJsonValue() : null;
+    }
+
+    private String detectedAnimation(ModelSummary model, String type) {
+        if ("animated".equals(type) && defaultAnimation == null) return model.getDefaultAnimation();
+        return defaultAnimation;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.momo.decogen.ui;
 
+import com.momo.decogen.logic.History;
 import com.momo.decogen.model.Action;
 import com.momo.decogen.model.AnimationPair;
 import com.momo.decogen.model.SoundPair;
@@ -27,26 +28,48 @@ import java.util.List;
 public class ActionEditor {
 
     private final TitledPane root;
-    private final CheckBox enableCheck;
-    private final VBox contentBox;
-
-    private final ComboBox<String> linkDropdown;
-    private final TextField soundField;
-    private final VBox animationsBox;
-    private final VBox soundsBox;
-
-    private final CheckBox storageCheck;
-    private final Spinner<Integer> storageColsSpinner;
-    private final Spinner<Integer> storageRowsSpinner;
-    private final HBox storageRow;
-
-    public ActionEditor(String actionKey) {
+    private final String actionKey;
+    private final OptionList linkOptions;
+
+    // Built on first expand — most entries never open most actions, and
+    // each editor carries two pair boxes full of combos.
+    private boolean built;
+    private CheckBox enableCheck;
+    private VBox contentBox;
+
+    private ComboBox<String> linkDropdown;
+    private TextField soundField;
+    private VBox animationsBox;
+    private VBox soundsBox;
+
+    private CheckBox storageCheck;
+    private Spinner<Integer> storageColsSpinner;
+    private Spinner<Integer> storageRowsSpinner;
+    private HBox storageRow;
+
+    // State handed to us while the pane is collapsed, applied when it is
+    // next expanded. While an action is pending the controls are stale, so
+    // buildAction() answers from the pending copy instead.
+    private boolean hasPendingAction;
+    private Action pendingAction;
+    private List<String> pendingAnimations;
+
+    /** {@code linkOptions} is shared with the other action editors. */
+    public ActionEditor(String actionKey, OptionList linkOptions) {
+        this.actionKey = actionKey;
+        this.linkOptions = linkOptions;
         root = new TitledPane();
         root.setText(actionKey);
         root.setExpanded(false);
         // Default TitledPane header is a light gradient — use dark, bold text so it's readable.
         root.setStyle("-fx-text-fill: #1e1f22; -fx-font-weight: bold;");
+        root.expandedProperty().addListener((obs, o, expanded) -> {
+            if (expanded) syncPending();
+        });
+    }
 
+    private void build() {
+        built = true;
         VBox body = new VBox(5);
         body.setPadding(new Insets(5));
 
@@ -68,6 +91,7 @@ public class ActionEditor {
         linkDropdown.setStyle("-fx-background-color: white; -fx-text-fill: black;");
         linkDropdown.setMaxWidth(Double.MAX_VALUE);
         linkDropdown.setPromptText("Select or type decoref");
+        linkOptions.attach(linkDropdown);
 
         // Sound (simple)
         Label soundLabel = label("Sound (one shot id)");
@@ -126,20 +150,45 @@ public class ActionEditor {
         return root;
     }
 
-    public void refreshLinkOptions(List<String> linkTargets) {
-        String current = linkDropdown.getValue();
-        linkDropdown.getItems().setAll(linkTargets);
-        if (current != null) linkDropdown.setValue(current);
+    /** Build the controls if needed and apply whatever arrived while collapsed. */
+    private void syncPending() {
+        if (!built) build();
+        if (pendingAnimations != null) {
+            applyAnimationOptions(pendingAnimations);
+            pendingAnimations = null;
+        }
+        if (hasPendingAction) {
+            hasPendingAction = false;
+            Action a = pendingAction;
+            pendingAction = null;
+            applyAction(a);
+        }
     }
 
     public void refreshAnimationOptions(List<String> animations) {
+        if (root.isExpanded()) applyAnimationOptions(animations);
+        else pendingAnimations = animations;
+    }
+
+    public void loadAction(Action action) {
+        if (root.isExpanded()) {
+            applyAction(action);
+        } else {
+            // Copy: the entry's action may be edited by other commands
+            // before this pane is opened.
+            hasPendingAction = true;
+            pendingAction = (action == null || action.isEmpty()) ? null : History.deepCopy(action, Action.class);
+        }
+    }
+
+    private void applyAnimationOptions(List<String> animations) {
         AnimationPairBox.updateDropdowns(animationsBox, animations);
         SoundPairBox.updateAnimationDropdowns(soundsBox, animations);
     }
 
-    public void loadAction(Action action) {
+    private void applyAction(Action action) {
         if (action == null || action.isEmpty()) {
-            clear();
+            resetControls();
             return;
         }
         enableCheck.setSelected(true);
@@ -161,10 +210,15 @@ public class ActionEditor {
     /**
      * Build an Action from the current UI state.
      * Returns null if the enable checkbox is off or the resulting action
-     * would have no content.
+     * would have no content. A collapsed editor that was never touched
+     * since its last load returns a copy of the loaded action.
      */
     public Action buildAction() {
-        if (!enableCheck.isSelected()) return null;
+        if (hasPendingAction) {
+            if (pendingAction == null) return null;
+            return History.deepCopy(pendingAction, Action.class);
+        }
+        if (!built || !enableCheck.isSelected()) return null;
 
         Action a = new Action();
 
@@ -189,6 +243,10 @@ public class ActionEditor {
     }
 
     public void clear() {
+        loadAction(null);
+    }
+
+    private void resetControls() {
         enableCheck.setSelected(false);
         linkDropdown.setValue("");
         soundField.setText("");
@@ -1,44 +1,74 @@
 package com.momo.decogen.ui;
 
-import com.momo.decogen.bbmodel.BBModel;
 import com.momo.decogen.bbmodel.BBModelParser;
+import com.momo.decogen.diag.CommandEvent;
+import com.momo.decogen.diag.FlightRecording;
+import com.momo.decogen.diag.Metrics;
 import com.momo.decogen.io.DirectoryScanner;
 import com.momo.decogen.io.JsonExporter;
+import com.momo.decogen.io.PngInspector;
 import com.momo.decogen.logic.ChainBuilder;
+import com.momo.decogen.logic.ChainEngine;
 import com.momo.decogen.logic.EntryBuilder;
+import com.momo.decogen.logic.EntryFields;
+import com.momo.decogen.logic.EntryQuery;
 import com.momo.decogen.logic.History;
+import com.momo.decogen.logic.LinkIndex;
+import com.momo.decogen.logic.LinkValidator;
+import com.momo.decogen.logic.ModelSummary;
+import com.momo.decogen.logic.NaturalOrder;
+import com.momo.decogen.logic.RenameProgram;
+import com.momo.decogen.logic.SearchIndex;
 import com.momo.decogen.logic.TextureMatcher;
+import com.momo.decogen.logic.TokenIndex;
+import com.momo.decogen.logic.Tokens;
 import com.momo.decogen.model.DecoEntry;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
+import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Holds app state (entries + dropped files) and wires user actions.
@@ -46,14 +76,61 @@ import java.util.regex.Pattern;
  */
 public class AppController {
 
+    // Link Pairs option that handles every known state suffix at once.
+    private static final String ALL_STATES = "(all states)";
+
+    // Parses dropped .bbmodel files and reads texture headers off the FX
+    // thread; results are applied back on it via Platform.runLater.
+    private static final ExecutorService INTAKE_POOL = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)), r -> {
+                Thread t = new Thread(r, "intake");
+                t.setDaemon(true);
+                return t;
+            });
+
     // --- State ---
     private final ObservableList<DecoEntry> entries = FXCollections.observableArrayList();
+    // What the entry list shows: entries narrowed by the search box.
+    private final FilteredList<DecoEntry> visibleEntries = new FilteredList<>(entries);
     private final History history = new History();
+    // Bumped by every snapshot and every undo/redo. A background parse
+    // result compares it with the value at its drop to tell whether it can
+    // join that command's undo step; parseStepVersion is the step the last
+    // parse results were recorded as, which later ones join too.
+    private long historyVersion;
+    private long parseStepVersion = -1;
+    // Finished model parses waiting for the FX thread; drained in one go.
+    private final Queue<ParsedModel> parsedQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean parseDrainScheduled = new AtomicBoolean();
     private final Map<String, java.nio.file.Path> modelFiles = new HashMap<>();
-    private final Map<String, java.nio.file.Path> textureFiles = new HashMap<>();
+    private final ObservableMap<String, java.nio.file.Path> textureFiles = FXCollections.observableHashMap();
     private final Map<String, java.nio.file.Path> iconFiles = new HashMap<>();
     private final List<String> unmatchedTextures = new ArrayList<>();
-    private final Map<String, BBModel> parsedModels = new HashMap<>();
+    private final Map<String, ModelSummary> parsedModels = new HashMap<>();
+    // Lowercased texture stem -> models whose .bbmodel lists that texture.
+    private final Map<String, List<String>> textureReferences = new HashMap<>();
+    private final LinkValidator linkValidator = new LinkValidator();
+    // Reverse link index; rebuilt lazily the first time a rename needs it
+    // after any command, then kept current by the rename itself.
+    private LinkIndex linkIndex;
+    // Word -> entries index for the normalize dialogs; synced when one opens.
+    private final TokenIndex tokenIndex = new TokenIndex();
+    private String renameProgramText = "";
+    private String queryText = "";
+    private final SearchIndex searchIndex = new SearchIndex();
+    private boolean searchIndexStale = true;
+    private String searchQuery = "";
+
+    // Entries added or edited in place since the last updateJsonPreview(),
+    // and entries removed, so link upkeep can touch just those. Adds and
+    // removes come from the list itself; a command reports its in-place
+    // edits with entriesChanged(). A command that doesn't (and bulk
+    // replacements like undo) leaves the changes unknown, and the next
+    // update rebuilds from scratch.
+    private final Set<DecoEntry> changedEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<DecoEntry> removedEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean changesUnknown = true;
+    private boolean commandUnreported;
 
     // --- UI references (set by panels) ---
     private ListView<DecoEntry> entryListView;
@@ -61,17 +138,35 @@ public class AppController {
     private ListView<String> iconListView;
     private Label iconLabel;
     private TextArea jsonPreview;
+    private Label linkStatusLabel;
     private EditorPanel editorPanel;
+    private DiagnosticsPanel diagnosticsPanel;
     // Needed so dialogs can initOwner() — unowned modals un-maximize the
     // parent on Linux (GNOME/mutter).
     private Stage primaryStage;
 
+    public AppController() {
+        entries.addListener((ListChangeListener<DecoEntry>) c -> {
+            while (c.next()) {
+                if (c.wasPermutated()) continue;
+                // Removals are applied before changes, so an entry that is
+                // moved (removed, then added back) ends up re-indexed.
+                for (DecoEntry e : c.getRemoved()) {
+                    changedEntries.remove(e);
+                    removedEntries.add(e);
+                }
+                changedEntries.addAll(c.getAddedSubList());
+            }
+        });
+    }
+
     // --- Registration ---
     public void setEntryListView(ListView<DecoEntry> v) { this.entryListView = v; }
     public void setUnmatchedListView(ListView<String> v) { this.unmatchedListView = v; }
     public void setIconListView(ListView<String> v) { this.iconListView = v; }
     public void setIconLabel(Label l) { this.iconLabel = l; }
     public void setJsonPreview(TextArea a) { this.jsonPreview = a; }
+    public void setLinkStatusLabel(Label l) { this.linkStatusLabel = l; }
     public void setEditorPanel(EditorPanel p) { this.editorPanel = p; }
     public void setPrimaryStage(Stage s) { this.primaryStage = s; }
     public Stage getPrimaryStage() { return primaryStage; }
@@ -79,12 +174,14 @@ public class AppController {
     // --- State accessors ---
     public ObservableList<DecoEntry> getEntries() { return entries; }
     public Map<String, java.nio.file.Path> getModelFiles() { return modelFiles; }
-    public Map<String, java.nio.file.Path> getTextureFiles() { return textureFiles; }
+    public ObservableMap<String, java.nio.file.Path> getTextureFiles() { return textureFiles; }
     public Map<String, java.nio.file.Path> getIconFiles() { return iconFiles; }
     public List<String> getUnmatchedTextures() { return unmatchedTextures; }
-    public Map<String, BBModel> getParsedModels() { return parsedModels; }
+    public Map<String, ModelSummary> getParsedModels() { return parsedModels; }
+    public LinkValidator.Report getLinkReport() { return linkValidator.report(entries); }
 
     public ListView<DecoEntry> getEntryListView() { return entryListView; }
+    public FilteredList<DecoEntry> getVisibleEntries() { return visibleEntries; }
     public ListView<String> getUnmatchedListView() { return unmatchedListView; }
     public EditorPanel getEditorPanel() { return editorPanel; }
 
@@ -93,20 +190,44 @@ public class AppController {
     /** Record current state before a mutating command. */
     public void snapshot() {
         history.record(entries, unmatchedTextures);
+        historyVersion++;
+        // A previous command that never reached updateJsonPreview() may
+        // have edited entries without saying which.
+        changesUnknown |= commandUnreported;
+        commandUnreported = true;
+    }
+
+    /**
+     * Report the entries the current command edited in place (added and
+     * removed entries are seen automatically). A command that reports must
+     * report every entry it edits; one that doesn't gets a full rebuild of
+     * the link index and link check on its next update.
+     */
+    public void entriesChanged(Collection<? extends DecoEntry> edited) {
+        changedEntries.addAll(edited);
+        commandUnreported = false;
     }
 
     public void undo() {
-        History.Snapshot s = history.undo(new ArrayList<>(entries), new ArrayList<>(unmatchedTextures));
-        if (s != null) applySnapshot(s);
+        CommandEvent command = CommandEvent.begin("undo", entries::size);
+        try (command) {
+            History.Snapshot s = history.undo(new ArrayList<>(entries), new ArrayList<>(unmatchedTextures));
+            if (s != null) applySnapshot(s);
+        }
     }
 
     public void redo() {
-        History.Snapshot s = history.redo(new ArrayList<>(entries), new ArrayList<>(unmatchedTextures));
-        if (s != null) applySnapshot(s);
+        CommandEvent command = CommandEvent.begin("redo", entries::size);
+        try (command) {
+            History.Snapshot s = history.redo(new ArrayList<>(entries), new ArrayList<>(unmatchedTextures));
+            if (s != null) applySnapshot(s);
+        }
     }
 
     private void applySnapshot(History.Snapshot s) {
         entries.setAll(s.entries);
+        historyVersion++;
+        changesUnknown = true;
         unmatchedTextures.clear();
         unmatchedTextures.addAll(s.unmatched);
         if (unmatchedListView != null) unmatchedListView.getItems().setAll(unmatchedTextures);
@@ -115,42 +236,52 @@ public class AppController {
         updateIconListView();
     }
 
+    // --- Link maintenance ---
+
+    /**
+     * Rewrite links that pointed at a decoref an entry no longer exports.
+     * Call after a renaming command, with targets captured via
+     * {@link LinkIndex#captureTargets} before it ran, after reporting its
+     * edits with {@link #entriesChanged}, and before the command's refresh.
+     * Returns the number of links rewritten.
+     */
+    public int propagateLinkRenames(Map<DecoEntry, String> before) {
+        if (linkIndex == null || changesUnknown || commandUnreported) {
+            linkIndex = LinkIndex.build(entries);
+        } else {
+            linkIndex.update(changedEntries, removedEntries);
+        }
+        // Added directly: relinking alone doesn't mean the command reported.
+        return linkIndex.propagateRenames(entries, before, changedEntries);
+    }
+
     // --- File intake (self-reconciling) ---
 
     public void addModel(File file) {
-        snapshot();
-        try {
-            BBModel model = BBModelParser.parse(file.toPath());
-            String modelName = DirectoryScanner.getStem(file.toPath());
-
-            modelFiles.put(modelName, file.toPath());
-            parsedModels.put(modelName, model);
+        CommandEvent command = CommandEvent.begin("addModel", entries::size);
+        Metrics.Span span = Metrics.time("intake.addModel");
+        try (command; span) {
+            snapshot();
+            entriesChanged(List.of()); // in-place edits are reported where they happen
+            java.nio.file.Path path = file.toPath();
+            String modelName = DirectoryScanner.getStem(path);
+
+            // Matching only needs the stem; the parse runs in the background
+            // and fills in type/animation on this model's entries when done.
+            modelFiles.put(modelName, path);
+            parseModelInBackground(modelName, path, historyVersion);
+            Metrics.increment("intake.models");
             System.out.println("Added model: " + modelName);
 
-            int created = 0;
-
-            // 1) For every known texture whose resolved model set includes this
-            //    new model, ensure an entry exists. This covers textures still
-            //    sitting in unmatchedTextures AND textures already placed on a
-            //    previously-loaded base model (when this new model is a
-            //    state-variant sibling like "locker_open" of "locker").
+            // 1) Entries for every known texture that resolves to this model.
             Set<String> textureCandidates = new java.util.LinkedHashSet<>();
             textureCandidates.addAll(unmatchedTextures);
             textureCandidates.addAll(textureFiles.keySet());
-            for (String textureName : textureCandidates) {
-                if (iconFiles.containsKey(textureName)) continue;
-                List<String> resolved = resolveModelsForTexture(textureName);
-                if (!resolved.contains(modelName)) continue;
-                if (entryExists(modelName, textureName)) continue;
-
-                ensureEntryForTextureModel(textureName, modelName);
-                unmatchedTextures.remove(textureName);
-                created++;
-            }
+            int created = createEntriesForModelTextures(modelName, textureCandidates);
 
             // 2) Sweep stored icons waiting for this model.
             for (String iconName : new ArrayList<>(iconFiles.keySet())) {
-                String im = TextureMatcher.findMatchingModel(iconName, modelFiles.keySet());
+                String im = matchModel(iconName);
                 if (im == null || !im.equals(modelName)) continue;
                 if (hasIconEntry(iconName)) continue;
 
@@ -160,11 +291,7 @@ public class AppController {
 
             // 3) Nothing matched — drop a placeholder so the user sees the model.
             if (created == 0) {
-                String displayName = EntryBuilder.toDisplayName(modelName);
-                DecoEntry entry = new DecoEntry(displayName, modelName, null, "clutter");
-                entry.setDecoref(modelName);
-                entry.autoDetectType(model);
-                entries.add(entry);
+                entries.add(newPlaceholder(modelName));
                 System.out.println("Created placeholder entry for model: " + modelName);
             }
 
@@ -172,57 +299,201 @@ public class AppController {
                 unmatchedListView.getItems().setAll(unmatchedTextures);
             }
             refreshEntryList();
-        } catch (Exception e) {
-            System.err.println("Error loading model: " + e.getMessage());
         }
     }
 
-    public void addTexture(File file) {
+
+    private record ParsedModel(String modelName, java.nio.file.Path path, long version, ModelSummary summary) {}
+
+    private void parseModelInBackground(String modelName, java.nio.file.Path path, long version) {
+        CompletableFuture
+                .supplyAsync(() -> {
+                    Metrics.Span span = Metrics.time("intake.parseModel");
+                    try (span) {
+                        return ModelSummary.of(BBModelParser.parse(path));
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, INTAKE_POOL)
+                .whenComplete((summary, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        System.err.println("Error loading model: " + modelName + ": " + cause.getMessage());
+                        return;
+                    }
+                    parsedQueue.add(new ParsedModel(modelName, path, version, summary));
+                    if (parseDrainScheduled.compareAndSet(false, true)) {
+                        Platform.runLater(this::drainParsedModels);
+                    }
+                });
+    }
+
+    /**
+     * Apply every parse that finished since the last drain, then refresh
+     * the list and preview once: dropping a folder of models costs one
+     * refresh per frame, not one per model.
+     */
+    private void drainParsedModels() {
+        parseDrainScheduled.set(false);
+        boolean changed = false;
+        for (ParsedModel parsed; (parsed = parsedQueue.poll()) != null; ) {
+            changed |= applyParsedModel(parsed.modelName(), parsed.path(), parsed.version(), parsed.summary());
+        }
+        if (!changed) return;
+        if (unmatchedListView != null) unmatchedListView.getItems().setAll(unmatchedTextures);
+        refreshEntryList();
+    }
+
+    /**
+     * Called before a parse result edits entries. The edit joins the undo
+     * step of the command that dropped the model if nothing was recorded,
+     * undone or redone since (or the step earlier parse results were
+     * recorded as), so one undo takes back both; otherwise it is recorded
+     * as a step of its own.
+     */
+    private void recordParseChange(long version) {
+        if (version == historyVersion || parseStepVersion == historyVersion) return;
         snapshot();
-        String textureName = DirectoryScanner.getStem(file.toPath());
-        textureFiles.put(textureName, file.toPath());
-
-        List<String> resolved = resolveModelsForTexture(textureName);
-        if (resolved.isEmpty()) {
-            // No model matched by prefix — but an orphan icon entry (created
-            // earlier when an icon was dropped before its texture) may be
-            // waiting on this texture's color suffix. Pair them up so e.g. a
-            // school_desk_red icon entry gets school_set_red as its material.
-            DecoEntry waiting = findEmptyIconEntryForLooseTexture(textureName);
-            if (waiting != null) {
-                waiting.setMaterial(textureName);
-                System.out.println("Bound loose texture to icon entry: "
-                        + textureName + " -> " + waiting.getDecoref());
-                refreshEntryList();
-                return;
-            }
-            unmatchedTextures.add(textureName);
-            if (unmatchedListView != null) {
-                unmatchedListView.getItems().setAll(unmatchedTextures);
-            }
-            System.out.println("Added unmatched texture: " + textureName);
-            return;
+        parseStepVersion = historyVersion;
+    }
+
+    // Warm PngInspector's header cache so the editor's texture hints don't
+    // touch the disk on the FX thread.
+    private void inspectTextureInBackground(java.nio.file.Path path) {
+        INTAKE_POOL.execute(() -> PngInspector.inspect(path));
+    }
+
+    /** Same, then run {@code then} on the FX thread once the header is read. */
+    void inspectTextureInBackground(java.nio.file.Path path, Runnable then) {
+        INTAKE_POOL.execute(() -> {
+            PngInspector.inspect(path);
+            Platform.runLater(then);
+        });
+    }
+
+    /**
+     * For every candidate texture whose resolved model set includes this
+     * model, ensure an entry exists. From addModel the candidates are the
+     * textures still sitting in unmatchedTextures AND textures already
+     * placed on a previously-loaded base model (when this model is a
+     * state-variant sibling like "locker_open" of "locker").
+     */
+    private int createEntriesForModelTextures(String modelName, Collection<String> textureCandidates) {
+        List<String> matched = texturesForModel(modelName, textureCandidates);
+        for (String textureName : matched) {
+            ensureEntryForTextureModel(textureName, modelName);
+            unmatchedTextures.remove(textureName);
         }
+        return matched.size();
+    }
 
-        for (String modelName : resolved) {
+    /** The candidates {@link #createEntriesForModelTextures} would create an entry for. */
+    private List<String> texturesForModel(String modelName, Collection<String> textureCandidates) {
+        List<String> matched = new ArrayList<>();
+        for (String textureName : textureCandidates) {
+            if (iconFiles.containsKey(textureName)) continue;
+            List<String> resolved = resolveModelsForTexture(textureName);
+            if (!resolved.contains(modelName)) continue;
             if (entryExists(modelName, textureName)) continue;
-            removePlaceholdersForModel(modelName);
-            ensureEntryForTextureModel(textureName, modelName);
-            System.out.println("Created entry: " + textureName + " -> " + modelName);
+            matched.add(textureName);
+        }
+        return matched;
+    }
+
+    /**
+     * Record a finished background parse: index the textures the model
+     * lists, give unmatched textures it lists an entry on this model, and
+     * auto-detect type/default animation on every entry for it. Textures
+     * already placed elsewhere by prefix stay where they are. Dropped if the
+     * model was reset or replaced by another file while parsing. Returns
+     * whether any entry or the unmatched list changed; the caller refreshes.
+     */
+    private boolean applyParsedModel(String modelName, java.nio.file.Path path, long version, ModelSummary model) {
+        if (!path.equals(modelFiles.get(modelName))) return false;
+        parsedModels.put(modelName, model);
+        boolean changed = false;
+        if (!model.getTextureRefs().isEmpty()) {
+            TextureMatcher.addReferences(textureReferences, modelName, model.getTextureRefs());
+            List<String> listed = texturesForModel(modelName, unmatchedTextures);
+            if (!listed.isEmpty()) {
+                recordParseChange(version);
+                createEntriesForModelTextures(modelName, listed);
+                removeModelPlaceholder(modelName, model);
+                System.out.println("Matched " + listed.size() + " texture(s) listed in model: " + modelName);
+                changed = true;
+            }
+        }
+        List<DecoEntry> detected = new ArrayList<>();
+        for (DecoEntry e : entries) {
+            if (modelName.equals(e.getModel()) && e.wouldDetectType(model)) detected.add(e);
+        }
+        if (!detected.isEmpty()) {
+            recordParseChange(version);
+            for (DecoEntry e : detected) e.autoDetectType(model);
+            entriesChanged(detected);
+            changed = true;
+        }
+        if (editorPanel != null) editorPanel.refreshModelInfo(modelName);
+        return changed;
+    }
+
+    public void addTexture(File file) {
+        CommandEvent command = CommandEvent.begin("addTexture", entries::size);
+        Metrics.Span span = Metrics.time("intake.addTexture");
+        try (command; span) {
+            snapshot();
+            entriesChanged(List.of()); // in-place edits are reported where they happen
+            String textureName = DirectoryScanner.getStem(file.toPath());
+            textureFiles.put(textureName, file.toPath());
+            inspectTextureInBackground(file.toPath());
+            Metrics.increment("intake.textures");
+
+            List<String> resolved = resolveModelsForTexture(textureName);
+            if (resolved.isEmpty()) {
+                // No model matched by prefix — but an orphan icon entry (created
+                // earlier when an icon was dropped before its texture) may be
+                // waiting on this texture's color suffix. Pair them up so e.g. a
+                // school_desk_red icon entry gets school_set_red as its material.
+                DecoEntry waiting = findEmptyIconEntryForLooseTexture(textureName);
+                if (waiting != null) {
+                    waiting.setMaterial(textureName);
+                    entriesChanged(List.of(waiting));
+                    System.out.println("Bound loose texture to icon entry: "
+                            + textureName + " -> " + waiting.getDecoref());
+                    refreshEntryList();
+                    return;
+                }
+                unmatchedTextures.add(textureName);
+                if (unmatchedListView != null) {
+                    unmatchedListView.getItems().setAll(unmatchedTextures);
+                }
+                System.out.println("Added unmatched texture: " + textureName);
+                return;
+            }
+
+            for (String modelName : resolved) {
+                if (entryExists(modelName, textureName)) continue;
+                removePlaceholdersForModel(modelName);
+                ensureEntryForTextureModel(textureName, modelName);
+                System.out.println("Created entry: " + textureName + " -> " + modelName);
+            }
+            unmatchedTextures.remove(textureName);
+            refreshEntryList();
         }
-        unmatchedTextures.remove(textureName);
-        refreshEntryList();
     }
 
     public void addIcon(File file) {
         snapshot();
+        entriesChanged(List.of());
         String iconName = DirectoryScanner.getStem(file.toPath());
 
         textureFiles.put(iconName, file.toPath());
         iconFiles.put(iconName, file.toPath());
+        inspectTextureInBackground(file.toPath());
         updateIconListView();
 
-        String matchedModel = TextureMatcher.findMatchingModel(iconName, modelFiles.keySet());
+        String matchedModel = matchModel(iconName);
         if (matchedModel == null) {
             System.out.println("Stored icon (no model yet): " + iconName);
             return;
@@ -250,7 +521,7 @@ public class AppController {
         DecoEntry entry = new DecoEntry(displayName, modelName, matchingTexture, "clutter");
         entry.setDecoref(iconName);
 
-        BBModel model = parsedModels.get(modelName);
+        ModelSummary model = parsedModels.get(modelName);
         if (model != null) entry.autoDetectType(model);
 
         entries.add(entry);
@@ -266,7 +537,7 @@ public class AppController {
         // Decoref is always present — default to the texture name for icon-less entries.
         entry.setDecoref(textureName);
 
-        BBModel model = parsedModels.get(modelName);
+        ModelSummary model = parsedModels.get(modelName);
         if (model != null) entry.autoDetectType(model);
 
         entries.add(entry);
@@ -343,19 +614,49 @@ public class AppController {
                 && e.getDecoref() == null);
     }
 
+    /** The entry addModel drops when nothing matched yet: decoref = model name, no material. */
+    private static DecoEntry newPlaceholder(String modelName) {
+        DecoEntry entry = new DecoEntry(EntryBuilder.toDisplayName(modelName), modelName, null, "clutter");
+        entry.setDecoref(modelName);
+        return entry;
+    }
+
+    /**
+     * Remove the placeholder for this model if the user hasn't touched it:
+     * it must still equal a fresh placeholder, or one auto-detected from
+     * this model. An icon entry for an icon named like the model looks the
+     * same, so nothing is removed when there is one.
+     */
+    private void removeModelPlaceholder(String modelName, ModelSummary model) {
+        if (iconFiles.containsKey(modelName)) return;
+        DecoEntry fresh = newPlaceholder(modelName);
+        DecoEntry detected = newPlaceholder(modelName);
+        detected.autoDetectType(model);
+        entries.removeIf(e -> modelName.equals(e.getModel())
+                && modelName.equals(e.getDecoref())
+                && e.getMaterial() == null
+                && (History.jsonEquals(e, fresh) || History.jsonEquals(e, detected)));
+    }
+
     private boolean hasIconEntry(String iconName) {
         return entries.stream().anyMatch(e -> iconName.equals(e.getDecoref()));
     }
 
+    /** Best model for a texture/icon name: listed in a model file first, then by prefix. */
+    private String matchModel(String textureName) {
+        return TextureMatcher.findMatchingModel(textureName, modelFiles.keySet(), textureReferences);
+    }
+
     /**
-     * Every model a texture should produce an entry for: the longest-prefix
-     * match, plus any state-variant sibling model (base + "_open"/"_on"/etc.)
-     * that exists in the project. Lets "locker_yellow" populate both the
-     * "locker" entry and the "locker_open" entry even though the texture name
-     * has no state suffix of its own.
+     * Every model a texture should produce an entry for: the best match
+     * (see {@link #matchModel}), plus any state-variant sibling model
+     * (base + "_open"/"_on"/etc.) that exists in the project. Lets
+     * "locker_yellow" populate both the "locker" entry and the
+     * "locker_open" entry even though the texture name has no state suffix
+     * of its own.
      */
     private List<String> resolveModelsForTexture(String textureName) {
-        String best = TextureMatcher.findMatchingModel(textureName, modelFiles.keySet());
+        String best = matchModel(textureName);
         if (best == null) return Collections.emptyList();
         List<String> out = new ArrayList<>();
         out.add(best);
@@ -400,10 +701,11 @@ public class AppController {
         DecoEntry emptyIcon = findEmptyIconEntryForTexture(modelName, textureName);
         if (emptyIcon != null) {
             emptyIcon.setMaterial(textureName);
+            entriesChanged(List.of(emptyIcon));
             return;
         }
 
-        String baseModel = TextureMatcher.findMatchingModel(textureName, modelFiles.keySet());
+        String baseModel = matchModel(textureName);
         String stateSuffix = baseModel == null ? null : stateSuffixFor(baseModel, modelName);
         String decorefName = stateSuffix != null ? textureName + "_" + stateSuffix : textureName;
 
@@ -411,7 +713,7 @@ public class AppController {
         DecoEntry entry = new DecoEntry(displayName, modelName, textureName, "clutter");
         entry.setDecoref(decorefName);
 
-        BBModel model = parsedModels.get(modelName);
+        ModelSummary model = parsedModels.get(modelName);
         if (model != null) entry.autoDetectType(model);
 
         entries.add(entry);
@@ -425,61 +727,66 @@ public class AppController {
                     "Drop a .bbmodel into the Models zone first. Auto-match needs a model to pair textures and icons against.");
             return;
         }
-        snapshot();
         int prefixMatched = 0;
-        // Pass 1: prefix-based matching (existing behavior). "locker_yellow"
-        // matches model "locker" and populates state-variant siblings too.
-        for (String textureName : new ArrayList<>(unmatchedTextures)) {
-            List<String> resolved = resolveModelsForTexture(textureName);
-            if (resolved.isEmpty()) continue;
-            for (String modelName : resolved) {
-                if (entryExists(modelName, textureName)) continue;
-                removePlaceholdersForModel(modelName);
-                ensureEntryForTextureModel(textureName, modelName);
-                System.out.println("Created entry for texture: " + textureName + " -> " + modelName);
-            }
-            unmatchedTextures.remove(textureName);
-            prefixMatched++;
-        }
-
-        // Pass 2: fan-out remaining unmatched textures over a single
-        // placeholder entry. Covers cases like wall_flag_1 + 250 country
-        // textures where the texture names share no prefix with the model.
-        List<DecoEntry> placeholders = new ArrayList<>();
-        for (DecoEntry e : entries) {
-            if (e.getMaterial() == null && e.getModel() != null && e.getDecoref() != null) {
-                placeholders.add(e);
-            }
-        }
         int fannedOut = 0;
-        if (!unmatchedTextures.isEmpty() && placeholders.size() == 1) {
-            DecoEntry template = placeholders.get(0);
-            String modelName = template.getModel();
-            List<DecoEntry> newEntries = new ArrayList<>();
+        List<DecoEntry> placeholders = new ArrayList<>();
+        CommandEvent command = CommandEvent.begin("autoMatchTextures", entries::size);
+        snapshot();
+        Metrics.Span span = Metrics.time("entries.autoMatch");
+        try (command; span) {
+            // Pass 1: prefix-based matching (existing behavior). "locker_yellow"
+            // matches model "locker" and populates state-variant siblings too.
             for (String textureName : new ArrayList<>(unmatchedTextures)) {
-                String suffix = TextureMatcher.extractColorSuffix(textureName);
-                String iconName = TextureMatcher.findMatchingIcon(modelName, suffix, textureFiles.keySet());
-                DecoEntry entry = History.deepCopy(template, DecoEntry.class);
-                String displayName = EntryBuilder.toDisplayName(modelName + "_" + suffix);
-                String decoref = (iconName != null) ? iconName : (modelName + "_" + suffix);
-                entry.setDecoref(decoref);
-                entry.setName(displayName);
-                entry.setModel(modelName);
-                entry.setMaterial(textureName);
-                newEntries.add(entry);
+                List<String> resolved = resolveModelsForTexture(textureName);
+                if (resolved.isEmpty()) continue;
+                for (String modelName : resolved) {
+                    if (entryExists(modelName, textureName)) continue;
+                    removePlaceholdersForModel(modelName);
+                    ensureEntryForTextureModel(textureName, modelName);
+                    System.out.println("Created entry for texture: " + textureName + " -> " + modelName);
+                }
                 unmatchedTextures.remove(textureName);
-                fannedOut++;
+                prefixMatched++;
             }
-            entries.remove(template);
-            entries.addAll(newEntries);
-            System.out.println("Fanned " + fannedOut + " textures across placeholder for model " + modelName);
-        }
 
-        if (unmatchedListView != null) {
-            unmatchedListView.getItems().setAll(unmatchedTextures);
+            // Pass 2: fan-out remaining unmatched textures over a single
+            // placeholder entry. Covers cases like wall_flag_1 + 250 country
+            // textures where the texture names share no prefix with the model.
+            for (DecoEntry e : entries) {
+                if (e.getMaterial() == null && e.getModel() != null && e.getDecoref() != null) {
+                    placeholders.add(e);
+                }
+            }
+            if (!unmatchedTextures.isEmpty() && placeholders.size() == 1) {
+                DecoEntry template = placeholders.get(0);
+                String modelName = template.getModel();
+                List<DecoEntry> newEntries = new ArrayList<>();
+                for (String textureName : new ArrayList<>(unmatchedTextures)) {
+                    String suffix = TextureMatcher.extractColorSuffix(textureName);
+                    String iconName = TextureMatcher.findMatchingIcon(modelName, suffix, textureFiles.keySet());
+                    DecoEntry entry = History.deepCopy(template, DecoEntry.class);
+                    String displayName = EntryBuilder.toDisplayName(modelName + "_" + suffix);
+                    String decoref = (iconName != null) ? iconName : (modelName + "_" + suffix);
+                    entry.setDecoref(decoref);
+                    entry.setName(displayName);
+                    entry.setModel(modelName);
+                    entry.setMaterial(textureName);
+                    newEntries.add(entry);
+                    unmatchedTextures.remove(textureName);
+                    fannedOut++;
+                }
+                entries.remove(template);
+                entries.addAll(newEntries);
+                System.out.println("Fanned " + fannedOut + " textures across placeholder for model " + modelName);
+            }
+
+            if (unmatchedListView != null) {
+                unmatchedListView.getItems().setAll(unmatchedTextures);
+            }
+            refreshEntryList();
+            updateIconListView();
         }
-        refreshEntryList();
-        updateIconListView();
+        Metrics.add("entries.autoMatch.created", prefixMatched + fannedOut);
 
         // Feedback when Auto-Match couldn't do anything visible.
         if (prefixMatched == 0 && fannedOut == 0) {
@@ -499,37 +806,33 @@ public class AppController {
     // --- Sort ---
 
     public void sortEntriesByDecoref(boolean ascending) {
-        sortEntriesBy(java.util.Comparator
-                .comparing((DecoEntry e) -> nullSafe(e.getDecoref()), String.CASE_INSENSITIVE_ORDER),
-                ascending);
+        sortEntriesBy(ascending, List.of(DecoEntry::getDecoref));
     }
 
     public void sortEntriesByName(boolean ascending) {
-        sortEntriesBy(java.util.Comparator
-                .comparing((DecoEntry e) -> nullSafe(e.getName()), String.CASE_INSENSITIVE_ORDER),
-                ascending);
+        sortEntriesBy(ascending, List.of(DecoEntry::getName));
     }
 
     public void sortEntriesByModelThenDecoref() {
-        java.util.Comparator<DecoEntry> cmp = java.util.Comparator
-                .comparing((DecoEntry e) -> nullSafe(e.getModel()), String.CASE_INSENSITIVE_ORDER)
-                .thenComparing(e -> nullSafe(e.getDecoref()), String.CASE_INSENSITIVE_ORDER);
-        sortEntriesBy(cmp, true);
+        sortEntriesBy(true, List.of(DecoEntry::getModel, DecoEntry::getDecoref));
     }
 
-    private void sortEntriesBy(java.util.Comparator<DecoEntry> cmp, boolean ascending) {
+    /**
+     * Stable natural-order sort (closet_2 before closet_10) on the given
+     * fields. Collation keys are computed once per entry, and the list is
+     * reordered in place so observers see one permutation, not clear + add.
+     */
+    private void sortEntriesBy(boolean ascending, List<java.util.function.Function<DecoEntry, String>> fields) {
         if (entries.isEmpty()) return;
         snapshot();
-        List<DecoEntry> sorted = new ArrayList<>(entries);
-        sorted.sort(ascending ? cmp : cmp.reversed());
-        entries.setAll(sorted);
+        Metrics.Span span = Metrics.time("entries.sort");
+        try (span) {
+            java.util.Comparator<DecoEntry> cmp = NaturalOrder.precomputed(entries, fields);
+            FXCollections.sort(entries, ascending ? cmp : cmp.reversed());
+        }
         refreshEntryList();
     }
 
-    private static String nullSafe(String s) {
-        return s == null ? "" : s;
-    }
-
     public void pairSelectedTexturesWithModel() {
         List<String> selectedTextures = new ArrayList<>(unmatchedListView.getSelectionModel().getSelectedItems());
         if (selectedTextures.isEmpty()) {
@@ -632,7 +935,9 @@ public class AppController {
         snapshot();
         String textureName = DirectoryScanner.getStem(textureFile.toPath());
         entry.setMaterial(textureName);
+        entriesChanged(List.of(entry));
         textureFiles.put(textureName, textureFile.toPath());
+        inspectTextureInBackground(textureFile.toPath());
         unmatchedTextures.remove(textureName);
         refreshEntryList();
     }
@@ -645,18 +950,104 @@ public class AppController {
             return;
         }
 
+        CommandEvent command = CommandEvent.begin("buildRainbowChain", entries::size);
         snapshot();
-        List<DecoEntry> sorted = ChainBuilder.buildRainbowChains(new ArrayList<>(entries));
-        entries.clear();
-        entries.addAll(sorted);
+        Metrics.Span span = Metrics.time("chain.rainbow");
+        try (command; span) {
+            List<DecoEntry> sorted = ChainBuilder.buildRainbowChains(new ArrayList<>(entries));
+            entries.clear();
+            entries.addAll(sorted);
 
-        refreshEntryList();
+            refreshEntryList();
+        }
 
         showAlert("Rainbow Chain Built",
                 "Entries have been sorted and linked in rainbow color order.\n" +
                         "Check the JSON for 'tool_modelswitch' links.");
     }
 
+    /**
+     * Pick a chain from {@code chains.json} (see {@link ChainEngine}) and
+     * build it like the Rainbow/Wood chains. Without a config file the
+     * built-in examples (Size, Wood then Color) are offered.
+     */
+    public void buildCustomChain() {
+        if (entries.isEmpty()) {
+            showAlert("No Entries", "Add some entries first.");
+            return;
+        }
+
+        java.nio.file.Path configFile = ChainEngine.configFile();
+        List<ChainEngine.Chain> chains;
+        String source;
+        if (java.nio.file.Files.isRegularFile(configFile)) {
+            try {
+                chains = ChainEngine.parseConfig(java.nio.file.Files.readString(configFile));
+            } catch (java.io.IOException | IllegalArgumentException ex) {
+                showAlert("Custom Chain", "Could not read " + configFile + ":\n" + ex.getMessage());
+                return;
+            }
+            source = "Chains from " + configFile;
+        } else {
+            chains = ChainEngine.defaultChains();
+            source = "Built-in chains. Define your own in " + configFile;
+        }
+        if (chains.isEmpty()) {
+            showAlert("Custom Chain", configFile + " defines no chains.");
+            return;
+        }
+
+        ComboBox<ChainEngine.Chain> chainCombo = new ComboBox<>();
+        chainCombo.getItems().addAll(chains);
+        chainCombo.setValue(chains.get(0));
+        chainCombo.setMaxWidth(Double.MAX_VALUE);
+        chainCombo.setCellFactory(lv -> new ChainCell());
+        chainCombo.setButtonCell(new ChainCell());
+
+        Label sourceLabel = new Label(source);
+        sourceLabel.setWrapText(true);
+
+        VBox content = new VBox(8, new Label("Chain:"), chainCombo, sourceLabel);
+        content.setPadding(new Insets(10));
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        if (primaryStage != null) {
+            dialog.initOwner(primaryStage);
+            dialog.initModality(Modality.WINDOW_MODAL);
+        }
+        dialog.setTitle("Custom Chain");
+        dialog.setHeaderText("Group entries, order each group and link it (tool_modelswitch).");
+        dialog.getDialogPane().setContent(content);
+
+        ButtonType applyBtn = new ButtonType("Build", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(applyBtn, ButtonType.CANCEL);
+
+        Optional<ButtonType> result = runPreservingStage(dialog::showAndWait);
+        ChainEngine.Chain chain = chainCombo.getValue();
+        if (result.isEmpty() || result.get() != applyBtn || chain == null) return;
+
+        CommandEvent command = CommandEvent.begin("buildCustomChain", entries::size);
+        snapshot();
+        Metrics.Span span = Metrics.time("chain.custom");
+        try (command; span) {
+            List<DecoEntry> sorted = ChainEngine.build(chain, new ArrayList<>(entries));
+            entries.setAll(sorted);
+
+            refreshEntryList();
+        }
+
+        showAlert("Chain Built", "Entries have been sorted and linked by the '" + chain.name() + "' chain ("
+                + chain.describe() + ").\nCheck the JSON for 'tool_modelswitch' links.");
+    }
+
+    private static final class ChainCell extends ListCell<ChainEngine.Chain> {
+        @Override
+        protected void updateItem(ChainEngine.Chain chain, boolean empty) {
+            super.updateItem(chain, empty);
+            setText(empty || chain == null ? null : chain.name() + " \u2014 " + chain.describe());
+        }
+    }
+
     public void linkEntriesByOrder() {
         if (entries.isEmpty()) {
             showAlert("No Entries", "Add some entries first.");
@@ -679,12 +1070,16 @@ public class AppController {
             return;
         }
 
+        CommandEvent command = CommandEvent.begin("buildWoodChain", entries::size);
         snapshot();
-        List<DecoEntry> sorted = ChainBuilder.buildWoodChains(new ArrayList<>(entries));
-        entries.clear();
-        entries.addAll(sorted);
+        Metrics.Span span = Metrics.time("chain.wood");
+        try (command; span) {
+            List<DecoEntry> sorted = ChainBuilder.buildWoodChains(new ArrayList<>(entries));
+            entries.clear();
+            entries.addAll(sorted);
 
-        refreshEntryList();
+            refreshEntryList();
+        }
 
         showAlert("Wood Chain Built",
                 "Entries have been sorted and linked in wood type order.\n" +
@@ -694,7 +1089,9 @@ public class AppController {
     /**
      * Find each pair of entries that share a base decoref and a suffix variant
      * (e.g., closet_7_birch + closet_7_birch_open) and write bidirectional
-     * on_use.link between them. Does not touch tool_modelswitch.
+     * on_use.link between them. With "(all states)" every known suffix is
+     * handled at once and groups of three or more states (closet, _open,
+     * _lit) are linked as an on_use cycle. Does not touch tool_modelswitch.
      */
     public void linkStatePairs() {
         if (entries.isEmpty()) {
@@ -703,15 +1100,16 @@ public class AppController {
         }
 
         ComboBox<String> suffixCombo = new ComboBox<>();
+        suffixCombo.getItems().add(ALL_STATES);
         suffixCombo.getItems().addAll(ChainBuilder.KNOWN_STATE_SUFFIXES);
-        suffixCombo.setValue("open");
+        suffixCombo.setValue(ALL_STATES);
         suffixCombo.setEditable(true);
         suffixCombo.setMaxWidth(Double.MAX_VALUE);
         suffixCombo.setPromptText("e.g., open");
 
         VBox content = new VBox(8,
                 new Label("State suffix:"), suffixCombo,
-                new Label("Pairs like 'closet_7_birch' \u2194 'closet_7_birch_open' get\nbidirectional on_use.link. Run Rainbow/Wood Chain\nafter this to cycle colors within each state."));
+                new Label("Pairs like 'closet_7_birch' \u2194 'closet_7_birch_open' get\nbidirectional on_use.link; with " + ALL_STATES + " three or more\nstates (closet \u2192 closet_open \u2192 closet_lit) link as a cycle.\nRun Rainbow/Wood Chain after this to cycle colors within each state."));
         content.setPadding(new Insets(10));
 
         Dialog<ButtonType> dialog = new Dialog<>();
@@ -733,6 +1131,16 @@ public class AppController {
         if (suffix == null) suffix = suffixCombo.getEditor().getText();
         if (suffix == null || suffix.trim().isEmpty()) return;
 
+        if (suffix.trim().equals(ALL_STATES)) {
+            snapshot();
+            int groups = ChainBuilder.linkStateCycles(new ArrayList<>(entries), ChainBuilder.KNOWN_STATE_SUFFIXES);
+            refreshEntryList();
+            showAlert("Link Pairs", groups == 0
+                    ? "No state groups found. Make sure a base entry and a 'base_<state>' entry exist."
+                    : "Linked " + groups + " state group" + (groups == 1 ? "" : "s") + " via on_use.");
+            return;
+        }
+
         snapshot();
         int pairs = ChainBuilder.linkStatePairs(new ArrayList<>(entries), suffix.trim());
         refreshEntryList();
@@ -762,24 +1170,27 @@ public class AppController {
             return;
         }
 
-        Set<String> tokens = new TreeSet<>();
-        for (DecoEntry e : entries) {
-            collectTokens(tokens, e.getName(), " ");
-            collectTokens(tokens, e.getDecoref(), "_");
-            collectTokens(tokens, e.getMaterial(), "_");
-        }
-        if (tokens.isEmpty()) {
+        tokenIndex.sync(entries);
+        List<String> choices = new ArrayList<>(tokenIndex.words());
+        if (choices.isEmpty()) {
             showAlert("Normalize", "Entries have no words to remove.");
             return;
         }
 
-        List<String> choices = new ArrayList<>(tokens);
-
+        Set<TokenIndex.Field> anyField = EnumSet.allOf(TokenIndex.Field.class);
         ComboBox<String> wordCombo = new ComboBox<>();
         wordCombo.getItems().addAll(choices);
         wordCombo.setValue(choices.get(0));
         wordCombo.setEditable(true);
         wordCombo.setMaxWidth(Double.MAX_VALUE);
+        wordCombo.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null
+                        : item + "  (" + tokenIndex.count(item, anyField) + ")");
+            }
+        });
 
         CheckBox nameCheck = new CheckBox("Name");
         nameCheck.setSelected(true);
@@ -788,9 +1199,23 @@ public class AppController {
         CheckBox materialCheck = new CheckBox("Material (shared texture — usually off)");
         materialCheck.setSelected(false);
 
+        Label affectsLabel = new Label();
+        Runnable updateAffects = () -> {
+            String w = wordCombo.getEditor().getText();
+            Set<TokenIndex.Field> fields = selectedFields(nameCheck, decorefCheck, materialCheck);
+            int n = (w == null || w.isBlank() || fields.isEmpty()) ? 0 : tokenIndex.count(w.trim(), fields);
+            affectsLabel.setText("Affects " + n + " entr" + (n == 1 ? "y" : "ies") + ".");
+        };
+        wordCombo.getEditor().textProperty().addListener((obs, o, n) -> updateAffects.run());
+        nameCheck.selectedProperty().addListener((obs, o, n) -> updateAffects.run());
+        decorefCheck.selectedProperty().addListener((obs, o, n) -> updateAffects.run());
+        materialCheck.selectedProperty().addListener((obs, o, n) -> updateAffects.run());
+        updateAffects.run();
+
         VBox content = new VBox(8,
                 new Label("Word:"), wordCombo,
-                new Label("Strip from:"), nameCheck, decorefCheck, materialCheck);
+                new Label("Strip from:"), nameCheck, decorefCheck, materialCheck,
+                affectsLabel);
         content.setPadding(new Insets(10));
 
         Dialog<ButtonType> dialog = new Dialog<>();
@@ -814,51 +1239,37 @@ public class AppController {
         word = word.trim();
         if (word.isEmpty()) return;
 
-        boolean stripName = nameCheck.isSelected();
-        boolean stripDecoref = decorefCheck.isSelected();
-        boolean stripMaterial = materialCheck.isSelected();
-
-        if (!stripName && !stripDecoref && !stripMaterial) {
+        Set<TokenIndex.Field> fields = selectedFields(nameCheck, decorefCheck, materialCheck);
+        if (fields.isEmpty()) {
             showAlert("Normalize", "Pick at least one field to strip from.");
             return;
         }
 
-        snapshot();
-        int modified = 0;
-        for (DecoEntry entry : entries) {
-            boolean changed = false;
-            if (stripName) {
-                String n = entry.getName();
-                if (n != null) {
-                    String s = stripToken(n, word, " ");
-                    if (!s.equals(n)) { entry.setName(s); changed = true; }
-                }
-            }
-            if (stripDecoref) {
-                String d = entry.getDecoref();
-                if (d != null) {
-                    String s = stripToken(d, word, "_");
-                    if (!s.equals(d)) { entry.setDecoref(s); changed = true; }
-                }
-            }
-            if (stripMaterial) {
-                String m = entry.getMaterial();
-                if (m != null) {
-                    String s = stripToken(m, word, "_");
-                    if (!s.equals(m)) { entry.setMaterial(s); changed = true; }
+        List<DecoEntry> modified = new ArrayList<>();
+        int relinked;
+        CommandEvent command = CommandEvent.begin("normalizeRemoveWord", entries::size);
+        try (command) {
+            snapshot();
+            Map<DecoEntry, String> linkTargets = LinkIndex.captureTargets(entries);
+            // Only entries the index says contain the word can change.
+            for (DecoEntry entry : tokenIndex.entriesWith(word, fields)) {
+                boolean changed = false;
+                for (TokenIndex.Field f : fields) {
+                    String v = f.get(entry);
+                    if (v == null) continue;
+                    String s = Tokens.strip(v, word, f.separator);
+                    if (!s.equals(v)) { f.set(entry, s); changed = true; }
                 }
+                if (changed) modified.add(entry);
             }
-            if (changed) modified++;
-        }
+            entriesChanged(modified);
+            relinked = propagateLinkRenames(linkTargets);
 
-        refreshEntryList();
+            refreshEntryList();
+        }
 
-        List<String> scopes = new ArrayList<>();
-        if (stripName) scopes.add("name");
-        if (stripDecoref) scopes.add("decoref");
-        if (stripMaterial) scopes.add("material");
-        showAlert("Normalize", "Removed '" + word + "' from " + String.join(", ", scopes)
-                + " on " + modified + " entries.");
+        showAlert("Normalize", "Removed '" + word + "' from " + scopeList(fields)
+                + " on " + modified.size() + " entries." + relinkedSuffix(relinked));
     }
 
     /**
@@ -901,12 +1312,29 @@ public class AppController {
         CheckBox materialCheck = new CheckBox("Material (shared texture — usually off)");
         materialCheck.setSelected(false);
 
+        tokenIndex.sync(entries);
+        Label affectsLabel = new Label();
+        Runnable updateAffects = () -> {
+            Set<TokenIndex.Field> fields = selectedFields(nameCheck, decorefCheck, materialCheck);
+            int n = addWordCandidates(fields, toPosition(positionCombo.getValue()),
+                    beforeField.getText(), afterField.getText()).size();
+            affectsLabel.setText("Affects up to " + n + " entr" + (n == 1 ? "y" : "ies") + ".");
+        };
+        positionCombo.valueProperty().addListener((obs, o, n) -> updateAffects.run());
+        beforeField.textProperty().addListener((obs, o, n) -> updateAffects.run());
+        afterField.textProperty().addListener((obs, o, n) -> updateAffects.run());
+        nameCheck.selectedProperty().addListener((obs, o, n) -> updateAffects.run());
+        decorefCheck.selectedProperty().addListener((obs, o, n) -> updateAffects.run());
+        materialCheck.selectedProperty().addListener((obs, o, n) -> updateAffects.run());
+        updateAffects.run();
+
         VBox content = new VBox(8,
                 new Label("Word to add:"), wordField,
                 new Label("Position:"), positionCombo,
                 new Label("Word before (for Between):"), beforeField,
                 new Label("Word after (for Between):"), afterField,
-                new Label("Add to:"), nameCheck, decorefCheck, materialCheck);
+                new Label("Add to:"), nameCheck, decorefCheck, materialCheck,
+                affectsLabel);
         content.setPadding(new Insets(10));
 
         Dialog<ButtonType> dialog = new Dialog<>();
@@ -929,19 +1357,16 @@ public class AppController {
         rawWord = rawWord.trim();
         if (rawWord.isEmpty()) return;
 
-        boolean addName = nameCheck.isSelected();
-        boolean addDecoref = decorefCheck.isSelected();
-        boolean addMaterial = materialCheck.isSelected();
-
-        if (!addName && !addDecoref && !addMaterial) {
+        Set<TokenIndex.Field> fields = selectedFields(nameCheck, decorefCheck, materialCheck);
+        if (fields.isEmpty()) {
             showAlert("Add Word", "Pick at least one field to add to.");
             return;
         }
 
-        String pos = positionCombo.getValue();
+        Tokens.Position pos = toPosition(positionCombo.getValue());
         String beforeWord = null;
         String afterWord = null;
-        if ("Between two words".equals(pos)) {
+        if (pos == Tokens.Position.BETWEEN) {
             beforeWord = beforeField.getText() != null ? beforeField.getText().trim() : "";
             afterWord = afterField.getText() != null ? afterField.getText().trim() : "";
             if (beforeWord.isEmpty() || afterWord.isEmpty()) {
@@ -950,98 +1375,185 @@ public class AppController {
             }
         }
 
-        snapshot();
-        // Name keeps original casing; decoref/material are always snake_case lowercase.
-        String nameWord = rawWord;
-        String idWord = rawWord.toLowerCase().replaceAll("\\s+", "_");
-
-        int modified = 0;
-        for (DecoEntry entry : entries) {
-            boolean changed = false;
-            if (addName && entry.getName() != null) {
-                String s = insertToken(entry.getName(), nameWord, " ", pos, beforeWord, afterWord);
-                if (!s.equals(entry.getName())) { entry.setName(s); changed = true; }
-            }
-            if (addDecoref && entry.getDecoref() != null) {
-                String s = insertToken(entry.getDecoref(), idWord, "_", pos, beforeWord, afterWord);
-                if (!s.equals(entry.getDecoref())) { entry.setDecoref(s); changed = true; }
-            }
-            if (addMaterial && entry.getMaterial() != null) {
-                String s = insertToken(entry.getMaterial(), idWord, "_", pos, beforeWord, afterWord);
-                if (!s.equals(entry.getMaterial())) { entry.setMaterial(s); changed = true; }
+        List<DecoEntry> modified = new ArrayList<>();
+        int relinked;
+        CommandEvent command = CommandEvent.begin("normalizeAddWord", entries::size);
+        try (command) {
+            snapshot();
+            // Name keeps original casing; decoref/material are always snake_case lowercase.
+            String nameWord = rawWord;
+            String idWord = rawWord.toLowerCase().replaceAll("\\s+", "_");
+
+            Map<DecoEntry, String> linkTargets = LinkIndex.captureTargets(entries);
+            for (DecoEntry entry : addWordCandidates(fields, pos, beforeWord, afterWord)) {
+                boolean changed = false;
+                for (TokenIndex.Field f : fields) {
+                    String v = f.get(entry);
+                    if (v == null) continue;
+                    String word = f == TokenIndex.Field.NAME ? nameWord : idWord;
+                    String s = Tokens.insert(v, word, f.separator, pos, beforeWord, afterWord);
+                    if (!s.equals(v)) { f.set(entry, s); changed = true; }
+                }
+                if (changed) modified.add(entry);
             }
-            if (changed) modified++;
-        }
+            entriesChanged(modified);
+            relinked = propagateLinkRenames(linkTargets);
 
-        refreshEntryList();
+            refreshEntryList();
+        }
 
-        List<String> scopes = new ArrayList<>();
-        if (addName) scopes.add("name");
-        if (addDecoref) scopes.add("decoref");
-        if (addMaterial) scopes.add("material");
-        showAlert("Add Word", "Added '" + rawWord + "' to " + String.join(", ", scopes)
-                + " on " + modified + " entries.");
+        showAlert("Add Word", "Added '" + rawWord + "' to " + scopeList(fields)
+                + " on " + modified.size() + " entries." + relinkedSuffix(relinked));
     }
 
     /**
-     * Insert {@code word} into {@code text} (split by {@code separator}) using
-     * one of the three position modes:
-     *   "At start"           — prepend
-     *   "At end"             — append
-     *   "Between two words"  — find the first adjacent pair whose left token
-     *                          matches {@code beforeWord} and right token
-     *                          matches {@code afterWord} (case-insensitive),
-     *                          insert between them. If no such pair exists,
-     *                          the text is returned unchanged (entry skipped).
+     * Open the rename-rules dialog: an ordered program of strip/add/replace
+     * rules (see {@link RenameProgram}) run over every entry as one undoable
+     * command. Preview shows the changes without applying them. The program
+     * text is kept for the next time the dialog opens.
      */
-    private static String insertToken(String text, String word, String separator,
-                                      String positionMode, String beforeWord, String afterWord) {
-        String[] parts = text.split(Pattern.quote(separator));
-        List<String> tokens = new ArrayList<>();
-        for (String p : parts) if (!p.isEmpty()) tokens.add(p);
-
-        int insertAt;
-        if ("At end".equals(positionMode)) {
-            insertAt = tokens.size();
-        } else if ("Between two words".equals(positionMode)) {
-            insertAt = -1;
-            for (int i = 0; i < tokens.size() - 1; i++) {
-                if (tokens.get(i).equalsIgnoreCase(beforeWord)
-                        && tokens.get(i + 1).equalsIgnoreCase(afterWord)) {
-                    insertAt = i + 1;
-                    break;
-                }
+    public void renameWithRules() {
+        if (entries.isEmpty()) {
+            showAlert("Rename Rules", "No entries to rename.");
+            return;
+        }
+
+        TextArea programArea = new TextArea(renameProgramText);
+        programArea.setPromptText("strip old\nadd v2 at end\nreplace ^oak_(\\w+)$ => $1_oak\nmaterial: strip wood");
+        programArea.setPrefRowCount(8);
+        programArea.setPrefWidth(560);
+        programArea.setStyle("-fx-font-family: monospace;");
+
+        TextArea previewArea = new TextArea();
+        previewArea.setEditable(false);
+        previewArea.setPrefRowCount(10);
+        previewArea.setStyle("-fx-font-family: monospace;");
+
+        Label statusLabel = new Label("One rule per line, applied in order. Scope prefix: name:, decoref:, material:, all: (default name + decoref).");
+        statusLabel.setWrapText(true);
+
+        Button previewBtn = new Button("Preview");
+        previewBtn.setOnAction(e -> {
+            try {
+                RenameProgram program = RenameProgram.compile(programArea.getText());
+                List<RenameProgram.Change> changes = program.plan(entries);
+                statusLabel.setText(program.size() + " rule(s): " + changes.size() + " field change(s).");
+                previewArea.setText(describeChanges(changes, 500));
+            } catch (IllegalArgumentException ex) {
+                statusLabel.setText(ex.getMessage());
+                previewArea.clear();
             }
-            if (insertAt < 0) return text;
-        } else {
-            // default: At start
-            insertAt = 0;
+        });
+
+        VBox content = new VBox(8,
+                new Label("Rules:"), programArea, previewBtn, statusLabel,
+                new Label("Preview:"), previewArea);
+        content.setPadding(new Insets(10));
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        if (primaryStage != null) {
+            dialog.initOwner(primaryStage);
+            dialog.initModality(Modality.WINDOW_MODAL);
         }
+        dialog.setTitle("Rename Rules");
+        dialog.setHeaderText("Rename names, decorefs and materials with a list of rules.");
+        dialog.getDialogPane().setContent(content);
 
-        tokens.add(insertAt, word);
-        return String.join(separator, tokens);
-    }
+        ButtonType applyBtn = new ButtonType("Apply", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(applyBtn, ButtonType.CANCEL);
 
-    private static void collectTokens(Set<String> out, String text, String separator) {
-        if (text == null) return;
-        for (String t : text.split(Pattern.quote(separator))) {
-            String lower = t.trim().toLowerCase();
-            if (!lower.isEmpty()) out.add(lower);
+        Optional<ButtonType> result = runPreservingStage(dialog::showAndWait);
+        renameProgramText = programArea.getText();
+        if (result.isEmpty() || result.get() != applyBtn) return;
+
+        RenameProgram program;
+        List<RenameProgram.Change> changes;
+        try {
+            program = RenameProgram.compile(renameProgramText);
+            changes = program.plan(entries);
+        } catch (IllegalArgumentException ex) {
+            showAlert("Rename Rules", ex.getMessage());
+            return;
         }
+        if (changes.isEmpty()) {
+            showAlert("Rename Rules", "The rules don't change any entry.");
+            return;
+        }
+
+        int modified;
+        int relinked;
+        CommandEvent command = CommandEvent.begin("renameWithRules", entries::size);
+        try (command) {
+            snapshot();
+            Map<DecoEntry, String> linkTargets = LinkIndex.captureTargets(entries);
+            modified = RenameProgram.apply(changes);
+            entriesChanged(changes.stream().map(RenameProgram.Change::entry).toList());
+            relinked = propagateLinkRenames(linkTargets);
+
+            refreshEntryList();
+        }
+
+        showAlert("Rename Rules", "Applied " + program.size() + " rule(s): " + changes.size()
+                + " field change(s) on " + modified + " entries." + relinkedSuffix(relinked));
     }
 
-    private static String stripToken(String text, String word, String separator) {
-        String[] parts = text.split(Pattern.quote(separator));
+    private static String describeChanges(List<RenameProgram.Change> changes, int limit) {
         StringBuilder sb = new StringBuilder();
-        for (String p : parts) {
-            if (p.isEmpty()) continue;
-            if (p.equalsIgnoreCase(word)) continue;
-            if (sb.length() > 0) sb.append(separator);
-            sb.append(p);
+        int shown = 0;
+        for (RenameProgram.Change c : changes) {
+            if (shown++ == limit) {
+                sb.append("\u2026 and ").append(changes.size() - limit).append(" more\n");
+                break;
+            }
+            sb.append(c.field().name().toLowerCase(Locale.ROOT)).append(": ")
+                    .append(c.before()).append(" \u2192 ").append(c.after()).append('\n');
         }
         return sb.toString();
     }
 
+    /**
+     * Entries Add Word may touch: every entry for start/end, otherwise only
+     * those with both neighbour words in one of the ticked fields.
+     */
+    private Collection<DecoEntry> addWordCandidates(Set<TokenIndex.Field> fields, Tokens.Position pos,
+                                                    String beforeWord, String afterWord) {
+        if (fields.isEmpty()) return List.of();
+        if (pos != Tokens.Position.BETWEEN) return entries;
+        if (beforeWord == null || beforeWord.isBlank() || afterWord == null || afterWord.isBlank()) {
+            return List.of();
+        }
+        Set<DecoEntry> out = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TokenIndex.Field f : fields) {
+            out.addAll(tokenIndex.entriesWithBoth(beforeWord.trim(), afterWord.trim(), f));
+        }
+        return out;
+    }
+
+    private static Tokens.Position toPosition(String mode) {
+        if ("At end".equals(mode)) return Tokens.Position.END;
+        if ("Between two words".equals(mode)) return Tokens.Position.BETWEEN;
+        return Tokens.Position.START;
+    }
+
+    private static Set<TokenIndex.Field> selectedFields(CheckBox name, CheckBox decoref, CheckBox material) {
+        Set<TokenIndex.Field> fields = EnumSet.noneOf(TokenIndex.Field.class);
+        if (name.isSelected()) fields.add(TokenIndex.Field.NAME);
+        if (decoref.isSelected()) fields.add(TokenIndex.Field.DECOREF);
+        if (material.isSelected()) fields.add(TokenIndex.Field.MATERIAL);
+        return fields;
+    }
+
+    private static String scopeList(Set<TokenIndex.Field> fields) {
+        List<String> scopes = new ArrayList<>();
+        for (TokenIndex.Field f : fields) scopes.add(f.name().toLowerCase(Locale.ROOT));
+        return String.join(", ", scopes);
+    }
+
+    private static String relinkedSuffix(int relinked) {
+        if (relinked == 0) return "";
+        return "\nUpdated " + relinked + " link" + (relinked == 1 ? "" : "s") + " to the renamed entries.";
+    }
+
     // --- Export / reset ---
 
     public void exportJson(Stage stage) {
@@ -1050,6 +1562,8 @@ public class AppController {
             return;
         }
 
+        if (!confirmExportWithLinkProblems()) return;
+
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Export JSON");
         fileChooser.setInitialFileName("decocraft_entries.json");
@@ -1059,7 +1573,12 @@ public class AppController {
         File file = runPreservingStage(() -> fileChooser.showSaveDialog(stage));
         if (file != null) {
             try {
-                JsonExporter.export(new ArrayList<>(entries), file.toPath());
+                CommandEvent command = CommandEvent.begin("exportJson", entries::size);
+                Metrics.Span span = Metrics.time("export.single");
+                try (command; span) {
+                    JsonExporter.export(new ArrayList<>(entries), file.toPath());
+                }
+                Metrics.record("export.bytes", file.length());
                 showAlert("Export Complete", "Saved to: " + file.getName());
             } catch (Exception e) {
                 showAlert("Export Failed", e.getMessage());
@@ -1067,17 +1586,146 @@ public class AppController {
         }
     }
 
+    /**
+     * Export one JSON file per tab into a chosen folder, plus a manifest.
+     * Existing shard files with the same names are replaced.
+     */
+    public void exportJsonByTab(Stage stage) {
+        if (entries.isEmpty()) {
+            showAlert("No Entries", "Add some models and textures first.");
+            return;
+        }
+
+        if (!confirmExportWithLinkProblems()) return;
+
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Export JSON by Tab");
+
+        File dir = runPreservingStage(() -> chooser.showDialog(stage));
+        if (dir != null) {
+            try {
+                CommandEvent command = CommandEvent.begin("exportJsonByTab", entries::size);
+                Metrics.Span span = Metrics.time("export.byTab");
+                List<JsonExporter.Shard> shards;
+                try (command; span) {
+                    shards = JsonExporter.exportSharded(new ArrayList<>(entries), dir.toPath());
+                }
+                StringBuilder sb = new StringBuilder();
+                for (JsonExporter.Shard s : shards) {
+                    Metrics.record("export.bytes", s.bytes());
+                    sb.append(s.file()).append("  (").append(s.entries()).append(" entries)\n");
+                }
+                showAlert("Export Complete", "Wrote " + shards.size() + " file(s) + "
+                        + JsonExporter.MANIFEST_FILE + " to " + dir.getName() + ":\n\n" + sb);
+            } catch (Exception e) {
+                showAlert("Export Failed", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * If the last validation found broken links, list them and ask whether
+     * to export anyway. Returns true when export should proceed.
+     */
+    private boolean confirmExportWithLinkProblems() {
+        validateLinks();
+        LinkValidator.Report report = getLinkReport();
+        if (report.isClean()) return true;
+
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Link Problems");
+        alert.setHeaderText(report.summary() + " \u2014 these only show up in-game.");
+        alert.getDialogPane().setContent(linkProblemsArea(report));
+        ButtonType exportAnyway = new ButtonType("Export Anyway", ButtonBar.ButtonData.OK_DONE);
+        alert.getButtonTypes().setAll(exportAnyway, ButtonType.CANCEL);
+        if (primaryStage != null) {
+            alert.initOwner(primaryStage);
+            alert.initModality(Modality.WINDOW_MODAL);
+        }
+        Optional<ButtonType> result = runPreservingStage(alert::showAndWait);
+        return result.isPresent() && result.get() == exportAnyway;
+    }
+
+    /** Show every problem from the last link validation. */
+    public void showLinkProblems() {
+        LinkValidator.Report report = getLinkReport();
+        if (report.isClean()) {
+            showAlert("Link Check", "No broken links, unknown models, or duplicate decorefs.");
+            return;
+        }
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Link Check");
+        alert.setHeaderText(report.summary());
+        alert.getDialogPane().setContent(linkProblemsArea(report));
+        if (primaryStage != null) {
+            alert.initOwner(primaryStage);
+            alert.initModality(Modality.WINDOW_MODAL);
+        }
+        runPreservingStage(alert::showAndWait);
+    }
+
+    private TextArea linkProblemsArea(LinkValidator.Report report) {
+        StringBuilder sb = new StringBuilder();
+        for (LinkValidator.Problem p : report.problems()) {
+            sb.append(p.describe()).append('\n');
+        }
+        TextArea area = new TextArea(sb.toString());
+        area.setEditable(false);
+        area.setWrapText(true);
+        area.setPrefRowCount(Math.min(16, report.problems().size() + 1));
+        area.setPrefWidth(520);
+        return area;
+    }
+
+    public void showDiagnostics() {
+        if (diagnosticsPanel == null) diagnosticsPanel = new DiagnosticsPanel(primaryStage);
+        diagnosticsPanel.show();
+    }
+
+    public boolean isFlightRecording() {
+        return FlightRecording.isRunning();
+    }
+
+    /**
+     * Start a JFR recording to a file the user picks, or stop the running
+     * one. The file is written when the recording stops.
+     */
+    public void toggleFlightRecording() {
+        if (FlightRecording.isRunning()) {
+            java.nio.file.Path file = FlightRecording.stop();
+            showAlert("Recording Saved", "Flight recording written to:\n" + file
+                    + "\n\nOpen it in JDK Mission Control, or attach it to a bug report.");
+            return;
+        }
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save Flight Recording");
+        chooser.setInitialFileName("decogen-" + System.currentTimeMillis() / 1000 + ".jfr");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JFR Recordings", "*.jfr"));
+        File file = runPreservingStage(() -> chooser.showSaveDialog(primaryStage));
+        if (file == null) return;
+        try {
+            FlightRecording.start(file.toPath());
+        } catch (Exception e) {
+            showAlert("Recording Failed", "Could not start a flight recording: " + e.getMessage());
+        }
+    }
+
     public void resetAll() {
-        snapshot();
-        entries.clear();
-        modelFiles.clear();
-        textureFiles.clear();
-        iconFiles.clear();
-        unmatchedTextures.clear();
-        parsedModels.clear();
-        if (entryListView != null) entryListView.refresh();
-        if (iconListView != null) iconListView.getItems().clear();
-        updateJsonPreview();
+        CommandEvent command = CommandEvent.begin("resetAll", entries::size);
+        try (command) {
+            snapshot();
+            entries.clear();
+            modelFiles.clear();
+            textureFiles.clear();
+            iconFiles.clear();
+            unmatchedTextures.clear();
+            parsedModels.clear();
+            textureReferences.clear();
+            if (entryListView != null) entryListView.refresh();
+            if (iconListView != null) iconListView.getItems().clear();
+            updateJsonPreview();
+        }
     }
 
     public void showAlert(String title, String message) {
@@ -1110,18 +1758,226 @@ public class AppController {
         return result;
     }
 
+    // --- Query ---
+
+    /**
+     * Open the query dialog: select entries matching an {@link EntryQuery}
+     * condition and, when the query ends in a {@code set} clause, write those
+     * fields on every match as one undoable command. The match count updates
+     * as the query is typed; the last query is kept for next time.
+     */
+    public void queryEntries() {
+        if (entries.isEmpty()) {
+            showAlert("Query", "No entries to query.");
+            return;
+        }
+
+        TextField queryField = new TextField(queryText);
+        queryField.setPromptText("model~closet* and type=animated set passable=true");
+        queryField.setPrefWidth(560);
+        queryField.setStyle("-fx-font-family: monospace;");
+
+        Label statusLabel = new Label();
+        statusLabel.setWrapText(true);
+        // The dialog is modal, so the entries can't change while it's open:
+        // index them once for every keystroke and the final run.
+        EntryQuery.Rows indexed = new EntryQuery.Rows(entries);
+        Runnable updateStatus = () -> {
+            if (queryField.getText().isBlank()) {
+                statusLabel.setText("Fields: " + String.join(", ", EntryFields.keys()));
+                return;
+            }
+            try {
+                EntryQuery query = EntryQuery.parse(queryField.getText());
+                int matches = query.select(indexed).cardinality();
+                statusLabel.setText("Matches " + matches + " entries."
+                        + (query.hasAssignments() ? " Run will set " + describeAssignments(query) + " on them." : ""));
+            } catch (IllegalArgumentException ex) {
+                statusLabel.setText(ex.getMessage());
+            }
+        };
+        queryField.textProperty().addListener((obs, old, text) -> updateStatus.run());
+        updateStatus.run();
+
+        Label helpLabel = new Label("Compare with = != ~ (glob) !~, combine with and / or / not / ( ), "
+                + "use null for unset and \"quotes\" for spaces. End with set field=value, ... to edit the matches.");
+        helpLabel.setWrapText(true);
+
+        VBox content = new VBox(8, new Label("Query:"), queryField, statusLabel, helpLabel);
+        content.setPadding(new Insets(10));
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        if (primaryStage != null) {
+            dialog.initOwner(primaryStage);
+            dialog.initModality(Modality.WINDOW_MODAL);
+        }
+        dialog.setTitle("Query");
+        dialog.setHeaderText("Select entries by field values, optionally setting fields on them.");
+        dialog.getDialogPane().setContent(content);
+
+        ButtonType runBtn = new ButtonType("Run", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(runBtn, ButtonType.CANCEL);
+
+        Optional<ButtonType> result = runPreservingStage(dialog::showAndWait);
+        queryText = queryField.getText();
+        if (result.isEmpty() || result.get() != runBtn) return;
+
+        EntryQuery query;
+        try {
+            query = EntryQuery.parse(queryText);
+        } catch (IllegalArgumentException ex) {
+            showAlert("Query", ex.getMessage());
+            return;
+        }
+        BitSet rows = query.select(indexed);
+        if (rows.isEmpty()) {
+            showAlert("Query", "No entries match.");
+            return;
+        }
+
+        String message;
+        if (query.hasAssignments()) {
+            int modified;
+            int relinked;
+            CommandEvent command = CommandEvent.begin("queryEntries", entries::size);
+            try (command) {
+                snapshot();
+                Map<DecoEntry, String> linkTargets = LinkIndex.captureTargets(entries);
+                modified = query.apply(entries, rows);
+                entriesChanged(rows.stream().mapToObj(entries::get).toList());
+                relinked = propagateLinkRenames(linkTargets);
+                refreshEntryList();
+            }
+            message = "Set " + describeAssignments(query) + " on " + modified + " of "
+                    + rows.cardinality() + " matching entries." + relinkedSuffix(relinked);
+        } else {
+            message = "Selected " + rows.cardinality() + " matching entries.";
+        }
+
+        int hidden = selectRows(rows);
+        if (hidden > 0) message += " " + hidden + " are hidden by the search filter.";
+        showAlert("Query", message);
+    }
+
+    private static String describeAssignments(EntryQuery query) {
+        List<String> parts = new ArrayList<>();
+        for (EntryQuery.Assignment a : query.assignments()) {
+            parts.add(a.field().key() + "=" + a.value());
+        }
+        return String.join(", ", parts);
+    }
+
+    /**
+     * Select {@code rows} (indexes into {@link #entries}) in the entry list.
+     * Returns how many of them the search filter hides.
+     */
+    private int selectRows(BitSet rows) {
+        if (entryListView == null) return 0;
+        List<Integer> viewRows = new ArrayList<>();
+        int hidden = 0;
+        for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            int view = visibleEntries.getViewIndex(i);
+            if (view < 0) hidden++;
+            else viewRows.add(view);
+        }
+        entryListView.getSelectionModel().clearSelection();
+        if (!viewRows.isEmpty()) {
+            int[] rest = new int[viewRows.size() - 1];
+            for (int k = 1; k < viewRows.size(); k++) rest[k - 1] = viewRows.get(k);
+            entryListView.getSelectionModel().selectIndices(viewRows.get(0), rest);
+            entryListView.scrollTo(viewRows.get(0).intValue());
+        }
+        return hidden;
+    }
+
+    // --- Search ---
+
+    /** Narrow the entry list to entries matching {@code query} (blank shows all). */
+    public void setSearchQuery(String query) {
+        searchQuery = query == null ? "" : query.trim();
+        applySearchFilter();
+    }
+
+    private void applySearchFilter() {
+        if (searchQuery.isEmpty()) {
+            visibleEntries.setPredicate(null);
+            return;
+        }
+        Metrics.Span span = Metrics.time("search.filter");
+        try (span) {
+            if (searchIndexStale) {
+                searchIndex.sync(entries);
+                searchIndexStale = false;
+            }
+            visibleEntries.setPredicate(searchIndex.matcher(searchQuery));
+        }
+    }
+
     // --- Updates ---
 
     public void updateJsonPreview() {
-        if (jsonPreview == null) return;
+        Metrics.Span span = Metrics.time("preview.update");
+        try (span) {
+            boolean full = changesUnknown || commandUnreported;
+            // Commands edit entries in place; re-filter so the list reflects
+            // them. A reported command re-indexes only what it changed, and
+            // the list is re-filtered only if that changed a search field.
+            boolean refilter = full;
+            if (full) {
+                searchIndexStale = true;
+            } else if (!searchIndexStale) {
+                refilter = searchIndex.update(changedEntries, removedEntries);
+            }
+            if (refilter && !searchQuery.isEmpty()) applySearchFilter();
+            if (editorPanel != null) editorPanel.entriesChanged(full ? null : changedEntries, removedEntries);
+            if (full) {
+                linkIndex = null;
+                validateLinks();
+            } else {
+                if (linkIndex != null) linkIndex.update(changedEntries, removedEntries);
+                Metrics.Span check = Metrics.time("links.update");
+                try (check) {
+                    linkValidator.update(changedEntries, removedEntries, modelFiles.keySet());
+                }
+                showLinkStatus();
+            }
+            changedEntries.clear();
+            removedEntries.clear();
+            changesUnknown = false;
+            commandUnreported = false;
+            if (jsonPreview == null) return;
+
+            if (entries.isEmpty()) {
+                jsonPreview.setText("// Drop models and textures to generate entries");
+                return;
+            }
 
-        if (entries.isEmpty()) {
-            jsonPreview.setText("// Drop models and textures to generate entries");
-            return;
+            String json = JsonExporter.toJson(new ArrayList<>(entries));
+            Metrics.record("preview.chars", json.length());
+            jsonPreview.setText(json);
         }
+    }
+
+    /**
+     * Re-run the whole link check. {@link #updateJsonPreview()}, which every
+     * mutating command goes through, does this when it can't tell which
+     * entries changed and otherwise re-checks only those.
+     */
+    public void validateLinks() {
+        Metrics.Span span = Metrics.time("links.validate");
+        try (span) {
+            linkValidator.rebuild(entries, modelFiles.keySet());
+        }
+        showLinkStatus();
+    }
 
-        String json = JsonExporter.toJson(new ArrayList<>(entries));
-        jsonPreview.setText(json);
+    private void showLinkStatus() {
+        if (linkStatusLabel == null) return;
+        boolean clean = linkValidator.isClean();
+        linkStatusLabel.setText((clean ? "\u2713 " : "\u26a0 ") + LinkValidator.summary(linkValidator.problemCount()));
+        linkStatusLabel.setStyle(clean
+                ? "-fx-text-fill: #3ba55c; -fx-font-size: 11px;"
+                : "-fx-text-fill: #faa61a; -fx-font-size: 11px; -fx-cursor: hand;");
     }
 
     public void updateIconListView() {
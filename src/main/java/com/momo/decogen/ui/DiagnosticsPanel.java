@@ -0,0 +1,106 @@
+package com.momo.decogen.ui;
+
+import com.momo.decogen.diag.Metrics;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Non-modal window showing the {@link Metrics} report. Stays open next to
+ * the main window so a command can be repeated and the numbers refreshed.
+ */
+public class DiagnosticsPanel {
+
+    private final Stage stage = new Stage();
+    private final TextArea reportArea = new TextArea();
+
+    public DiagnosticsPanel(Stage owner) {
+        stage.setTitle("Diagnostics");
+        if (owner != null) stage.initOwner(owner);
+
+        CheckBox recordBox = new CheckBox("Record metrics");
+        recordBox.setSelected(Metrics.isEnabled());
+        recordBox.setStyle("-fx-text-fill: #dcddde;");
+        recordBox.selectedProperty().addListener((obs, was, on) -> {
+            Metrics.setEnabled(on);
+            refresh();
+        });
+        recordBox.setTooltip(TopBar.tooltip("Time commands and count work while enabled. Off costs nothing measurable."));
+
+        Button refreshBtn = button("Refresh", "#5865F2");
+        refreshBtn.setOnAction(e -> refresh());
+
+        Button resetBtn = button("Reset", "#6c757d");
+        resetBtn.setOnAction(e -> {
+            Metrics.reset();
+            refresh();
+        });
+
+        Button saveBtn = button("Save Report\u2026", "#3ba55c");
+        saveBtn.setOnAction(e -> saveReport());
+
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox bar = new HBox(8, recordBox, spacer, refreshBtn, resetBtn, saveBtn);
+        bar.setAlignment(Pos.CENTER_LEFT);
+        bar.setPadding(new Insets(8));
+
+        reportArea.setEditable(false);
+        reportArea.setStyle("-fx-font-family: monospace; -fx-font-size: 12px;");
+
+        BorderPane root = new BorderPane(reportArea);
+        root.setTop(bar);
+        root.setStyle("-fx-background-color: #2f3136;");
+        stage.setScene(new Scene(root, 760, 480));
+    }
+
+    public void show() {
+        refresh();
+        if (stage.isShowing()) {
+            stage.toFront();
+        } else {
+            stage.show();
+        }
+    }
+
+    private void refresh() {
+        reportArea.setText(Metrics.report());
+    }
+
+    private void saveReport() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save Metrics Report");
+        chooser.setInitialFileName("decogen-metrics.txt");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        File file = chooser.showSaveDialog(stage);
+        if (file == null) return;
+        try {
+            Metrics.writeReport(file.toPath());
+        } catch (IOException ex) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, ex.getMessage());
+            alert.setTitle("Save Failed");
+            alert.setHeaderText(null);
+            alert.initOwner(stage);
+            alert.showAndWait();
+        }
+    }
+
+    private static Button button(String text, String color) {
+        Button b = new Button(text);
+        b.setStyle("-fx-background-color: " + color + "; -fx-text-fill: white; -fx-font-size: 12px; -fx-cursor: hand;");
+        return b;
+    }
+}
@@ -1,9 +1,13 @@
 package com.momo.decogen.ui;
 
-import com.momo.decogen.bbmodel.BBModel;
+import com.momo.decogen.diag.Metrics;
+import com.momo.decogen.io.PngInspector;
 import com.momo.decogen.logic.DecoTypes;
+import com.momo.decogen.logic.EntryPatch;
 import com.momo.decogen.logic.History;
-import com.momo.decogen.logic.ModelInspector;
+import com.momo.decogen.logic.LinkIndex;
+import com.momo.decogen.logic.LinkValidator;
+import com.momo.decogen.logic.ModelSummary;
 import com.momo.decogen.logic.Tabs;
 import com.momo.decogen.model.Action;
 import com.momo.decogen.model.AnimationPair;
@@ -12,8 +16,10 @@ import com.momo.decogen.model.DecoEntry;
 import com.momo.decogen.model.Flipbook;
 import com.momo.decogen.model.Script;
 import com.momo.decogen.model.SoundPair;
+import javafx.collections.MapChangeListener;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
@@ -29,11 +35,9 @@ import javafx.scene.layout.VBox;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
-import java.util.function.Consumer;
-import java.util.function.Supplier;
+import java.util.Map;
 
 public class EditorPanel {
 
@@ -74,30 +78,41 @@ public class EditorPanel {
     private final TextField lootField;
     private final CheckBox displayableCheck;
 
+    // Composite, flipbook, chain and growable are collapsed sections whose
+    // controls below are created on first expand; until then they are null.
+    private final LazySection compositeSection;
+    private final LazySection flipbookSection;
+    private final LazySection chainSection;
+    private final LazySection growableSection;
+
     // Composite
-    private final CheckBox compositeCheck;
-    private final VBox compositeBox;
-    private final TextField compositeModelField;
-    private final ComboBox<String> compositeTextureDropdown;
-    private final CheckBox compositeTransparencyCheck;
+    private CheckBox compositeCheck;
+    private VBox compositeBox;
+    private TextField compositeModelField;
+    private ComboBox<String> compositeTextureDropdown;
+    private CheckBox compositeTransparencyCheck;
 
     // Flipbook
-    private final CheckBox flipbookCheck;
-    private final VBox flipbookBox;
-    private final Spinner<Integer> flipbookFrametimeSpinner;
-    private final Spinner<Integer> flipbookImagesSpinner;
+    private CheckBox flipbookCheck;
+    private VBox flipbookBox;
+    private Spinner<Integer> flipbookFrametimeSpinner;
+    private Spinner<Integer> flipbookImagesSpinner;
+    // Frame count the texture hint put in the spinner, until the user or
+    // the next load replaces it.
+    private Integer prefilledImages;
+    private final Label textureHintLabel;
 
     // Chain
-    private final TextArea chainModelsArea;
-    private final TextArea chainMaterialsArea;
-    private final ComboBox<String> chainPatternDropdown;
-    private final CheckBox lightingCheck;
-    private final Spinner<Integer> lightingSpinner;
-    private final VBox lightingRow;
+    private TextArea chainModelsArea;
+    private TextArea chainMaterialsArea;
+    private ComboBox<String> chainPatternDropdown;
+    private CheckBox lightingCheck;
+    private Spinner<Integer> lightingSpinner;
+    private VBox lightingRow;
 
     // Growable
-    private final TextArea structuresArea;
-    private final CheckBox instantCheck;
+    private TextArea structuresArea;
+    private CheckBox instantCheck;
 
     // Script header
     private final CheckBox lightCheck;
@@ -120,8 +135,20 @@ public class EditorPanel {
     private final ActionEditor toolModelSwitchEditor;
     private final List<ActionEditor> allActionEditors;
 
+    // Shared dropdown options, kept current from texture and entry change
+    // events rather than re-synced on each load. Link targets are the
+    // decorefs entries export, the names a link validates against.
+    private final OptionList textureOptions = new OptionList();
+    private final OptionList linkTargetOptions = new OptionList();
+
     public EditorPanel(AppController controller) {
         this.controller = controller;
+        for (String texture : controller.getTextureFiles().keySet()) textureOptions.add(texture);
+        controller.getTextureFiles().addListener((MapChangeListener<String, java.nio.file.Path>) c -> {
+            if (c.wasRemoved()) textureOptions.remove(c.getKey());
+            if (c.wasAdded()) textureOptions.add(c.getKey());
+        });
+        linkTargetOptions.sync(controller.getEntries(), LinkValidator::exportedDecoref);
 
         root = new VBox(6);
         root.setPadding(new Insets(10));
@@ -142,6 +169,8 @@ public class EditorPanel {
         nameField = textField("Name");
         decorefDropdown = editableCombo("Decoref (unique id)");
         materialDropdown = editableCombo("Select or type texture name");
+        textureOptions.attach(decorefDropdown);
+        textureOptions.attach(materialDropdown);
         form.getChildren().addAll(
                 fieldLabel("Name"), nameField,
                 fieldLabel("Decoref"), decorefDropdown,
@@ -205,81 +234,29 @@ public class EditorPanel {
                 displayableCheck
         );
 
-        // --- Composite ---
-        form.getChildren().add(sectionHeader("Composite (child model)"));
-        compositeCheck = darkCheck("Enable composite");
-        compositeBox = new VBox(5);
-        compositeBox.setVisible(false);
-        compositeBox.setManaged(false);
-        compositeCheck.selectedProperty().addListener((obs, o, n) -> {
-            compositeBox.setVisible(n);
-            compositeBox.setManaged(n);
-        });
-        compositeModelField = textField("Composite model name");
-        compositeTextureDropdown = editableCombo("Optional texture override");
-        compositeTransparencyCheck = darkCheck("Composite transparency");
-        compositeBox.getChildren().addAll(
-                fieldLabel("Model"), compositeModelField,
-                fieldLabel("Texture"), compositeTextureDropdown,
-                compositeTransparencyCheck
-        );
-        form.getChildren().addAll(compositeCheck, compositeBox);
-
-        // --- Flipbook ---
-        form.getChildren().add(sectionHeader("Flipbook (animated texture)"));
-        flipbookCheck = darkCheck("Enable flipbook");
-        flipbookBox = new VBox(5);
-        flipbookBox.setVisible(false);
-        flipbookBox.setManaged(false);
-        flipbookCheck.selectedProperty().addListener((obs, o, n) -> {
-            flipbookBox.setVisible(n);
-            flipbookBox.setManaged(n);
-        });
-        flipbookFrametimeSpinner = new Spinner<>(1, 200, 8, 1);
-        flipbookFrametimeSpinner.setEditable(true);
-        flipbookFrametimeSpinner.setMaxWidth(Double.MAX_VALUE);
-        flipbookImagesSpinner = new Spinner<>(1, 100, 2, 1);
-        flipbookImagesSpinner.setEditable(true);
-        flipbookImagesSpinner.setMaxWidth(Double.MAX_VALUE);
-        flipbookBox.getChildren().addAll(
-                fieldLabel("Frametime (ticks)"), flipbookFrametimeSpinner,
-                fieldLabel("Images (frame count)"), flipbookImagesSpinner
-        );
-        form.getChildren().addAll(flipbookCheck, flipbookBox);
-
-        // --- Chain ---
-        form.getChildren().add(sectionHeader("Chain"));
-        chainModelsArea = textArea("One model name per line");
-        chainMaterialsArea = textArea("One texture per line (optional)");
-        chainPatternDropdown = editableCombo("mirror | repeat");
-        chainPatternDropdown.getItems().add("");
-        chainPatternDropdown.getItems().addAll(DecoTypes.CHAIN_PATTERNS);
-        lightingCheck = darkCheck("Lighting (chain light level)");
-        lightingSpinner = new Spinner<>(0, 15, 15, 1);
-        lightingSpinner.setEditable(true);
-        lightingSpinner.setMaxWidth(Double.MAX_VALUE);
-        lightingRow = new VBox(2);
-        lightingRow.getChildren().addAll(fieldLabel("Level 0 to 15"), lightingSpinner);
-        lightingRow.setVisible(false);
-        lightingRow.setManaged(false);
-        lightingCheck.selectedProperty().addListener((obs, o, n) -> {
-            lightingRow.setVisible(n);
-            lightingRow.setManaged(n);
-        });
-        form.getChildren().addAll(
-                fieldLabel("Chain models"), chainModelsArea,
-                fieldLabel("Chain materials"), chainMaterialsArea,
-                fieldLabel("Pattern"), chainPatternDropdown,
-                lightingCheck, lightingRow
-        );
-
-        // --- Growable ---
-        form.getChildren().add(sectionHeader("Growable"));
-        structuresArea = textArea("One structure name per line");
-        instantCheck = darkCheck("Instant growth");
+        // --- Composite, flipbook, chain, growable ---
+        // Collapsed like the action editors: most entries use none of these,
+        // so their controls are built on first expand and loadEntry only
+        // writes into the open ones.
+        compositeSection = new LazySection("Composite (child model)",
+                this::buildCompositeSection, this::loadComposite, e -> e.getComposite() != null);
+        flipbookSection = new LazySection("Flipbook (animated texture)",
+                this::buildFlipbookSection, this::loadFlipbook, e -> e.getFlipbook() != null);
+        textureHintLabel = new Label();
+        textureHintLabel.setStyle("-fx-text-fill: #faa61a; -fx-font-size: 10px;");
+        textureHintLabel.setWrapText(true);
+        textureHintLabel.setVisible(false);
+        textureHintLabel.setManaged(false);
+        chainSection = new LazySection("Chain", this::buildChainSection, this::loadChain,
+                e -> hasItems(e.getChainModels()) || hasItems(e.getChainMaterials())
+                        || e.getChainPattern() != null || e.getLighting() != null);
+        growableSection = new LazySection("Growable", this::buildGrowableSection, this::loadGrowable,
+                e -> hasItems(e.getStructures()) || e.getInstant() != null);
         form.getChildren().addAll(
-                fieldLabel("Structures"), structuresArea,
-                instantCheck
+                compositeSection.getRoot(),
+                flipbookSection.getRoot(), textureHintLabel,
+                chainSection.getRoot(),
+                growableSection.getRoot()
         );
 
         // --- Script ---
@@ -324,13 +301,13 @@ public class EditorPanel {
 
         // Action editors
         form.getChildren().add(subHeader("Actions"));
-        onUseEditor = new ActionEditor("on_use");
-        shiftOnUseEditor = new ActionEditor("shift_on_use");
-        addedEditor = new ActionEditor("added");
-        triggerEditor = new ActionEditor("trigger");
-        animationStartEditor = new ActionEditor("animation_start");
-        animationEndEditor = new ActionEditor("animation_end");
-        toolModelSwitchEditor = new ActionEditor("tool_modelswitch");
+        onUseEditor = new ActionEditor("on_use", linkTargetOptions);
+        shiftOnUseEditor = new ActionEditor("shift_on_use", linkTargetOptions);
+        addedEditor = new ActionEditor("added", linkTargetOptions);
+        triggerEditor = new ActionEditor("trigger", linkTargetOptions);
+        animationStartEditor = new ActionEditor("animation_start", linkTargetOptions);
+        animationEndEditor = new ActionEditor("animation_end", linkTargetOptions);
+        toolModelSwitchEditor = new ActionEditor("tool_modelswitch", linkTargetOptions);
         allActionEditors = List.of(onUseEditor, shiftOnUseEditor, addedEditor, triggerEditor,
                 animationStartEditor, animationEndEditor, toolModelSwitchEditor);
         for (ActionEditor a : allActionEditors) {
@@ -366,6 +343,7 @@ public class EditorPanel {
         deleteBtn.setOnAction(e -> {
             List<DecoEntry> selected = new ArrayList<>(controller.getEntryListView().getSelectionModel().getSelectedItems());
             controller.getEntries().removeAll(selected);
+            controller.updateJsonPreview();
         });
 
         root.getChildren().addAll(editorTitle, multiSelectHint, scroll,
@@ -385,36 +363,14 @@ public class EditorPanel {
 
     // --- Refresh helpers ---
 
-    private void refreshTextureDropdowns() {
-        List<String> allTextures = new ArrayList<>();
-        allTextures.add("");
-        allTextures.addAll(controller.getTextureFiles().keySet());
-        if (allTextures.size() > 1) {
-            Collections.sort(allTextures.subList(1, allTextures.size()));
-        }
-        materialDropdown.getItems().setAll(allTextures);
-        decorefDropdown.getItems().setAll(allTextures);
-        compositeTextureDropdown.getItems().setAll(allTextures);
-    }
-
-    private List<String> buildLinkTargets() {
-        List<String> targets = new ArrayList<>();
-        targets.add("");
-        for (DecoEntry e : controller.getEntries()) {
-            String t = e.getDecoref() != null ? e.getDecoref() : e.getMaterial();
-            if (t != null && !t.isEmpty() && !targets.contains(t)) {
-                targets.add(t);
-            }
-        }
-        if (targets.size() > 1) Collections.sort(targets.subList(1, targets.size()));
-        return targets;
-    }
-
-    private void refreshActionLinkOptions() {
-        List<String> targets = buildLinkTargets();
-        for (ActionEditor ae : allActionEditors) {
-            ae.refreshLinkOptions(targets);
-        }
+    /**
+     * Called by the controller after each command with the entries it
+     * added or edited and the ones it removed; {@code changed} is null when
+     * it can't tell, and every entry is re-read.
+     */
+    void entriesChanged(Collection<DecoEntry> changed, Collection<DecoEntry> removed) {
+        if (changed == null) linkTargetOptions.sync(controller.getEntries(), LinkValidator::exportedDecoref);
+        else linkTargetOptions.update(changed, removed, LinkValidator::exportedDecoref);
     }
 
     private void refreshAnimationOptions(String modelName) {
@@ -422,8 +378,7 @@ public class EditorPanel {
         animations.add("");
 
         if (modelName != null && controller.getParsedModels().containsKey(modelName)) {
-            BBModel model = controller.getParsedModels().get(modelName);
-            animations.addAll(model.getAnimationNames());
+            animations.addAll(controller.getParsedModels().get(modelName).getAnimationNames());
         }
 
         if (!animations.contains("any")) animations.add("any");
@@ -441,8 +396,7 @@ public class EditorPanel {
             particleHintLabel.setManaged(false);
             return;
         }
-        BBModel model = controller.getParsedModels().get(modelName);
-        List<String> locators = ModelInspector.getCandidateParticleLocators(model);
+        List<String> locators = controller.getParsedModels().get(modelName).getParticleLocators();
         if (locators.isEmpty()) {
             particleHintLabel.setVisible(false);
             particleHintLabel.setManaged(false);
@@ -453,40 +407,186 @@ public class EditorPanel {
         particleHintLabel.setManaged(true);
     }
 
-    // --- Load / clear ---
+    /**
+     * Notes on the entry's texture from its PNG header: a vertical strip
+     * that looks like a flipbook, a non-power-of-two size, or an aspect
+     * ratio that doesn't match the model's UV resolution. For a likely
+     * flipbook the frame count is prefilled (only while flipbook is off,
+     * and without turning it on), and put back if a later model parse shows
+     * the texture is one frame after all.
+     *
+     * Only PngInspector's cache is read here. A texture it hasn't seen is
+     * inspected in the background, and the hint shown when that finishes if
+     * an entry with the texture is still loaded.
+     */
+    private void refreshTextureHint(DecoEntry entry) {
+        String material = entry.getMaterial();
+        java.nio.file.Path file = material == null ? null : controller.getTextureFiles().get(material);
+        PngInspector.Size size = PngInspector.cached(file);
+        if (file != null && !PngInspector.isCached(file)) {
+            controller.inspectTextureInBackground(file, () -> {
+                if (loadedSnapshot != null && material.equals(loadedSnapshot.getMaterial())
+                        && PngInspector.cached(file) != null) {
+                    refreshTextureHint(loadedSnapshot);
+                }
+            });
+        }
+        if (size == null) {
+            textureHintLabel.setVisible(false);
+            textureHintLabel.setManaged(false);
+            return;
+        }
 
-    public void loadEntry(DecoEntry entry) {
-        refreshTextureDropdowns();
-        refreshActionLinkOptions();
-        refreshAnimationOptions(entry.getModel());
-        refreshParticleHint(entry.getModel());
-
-        // Identity
-        nameField.setText(nn(entry.getName()));
-        decorefDropdown.setValue(nn(entry.getDecoref()));
-        materialDropdown.setValue(nn(entry.getMaterial()));
-
-        // Rendering
-        modelField.setText(nn(entry.getModel()));
-        scaleSpinner.getValueFactory().setValue(entry.getScale());
-        shapeField.setText(nn(entry.getShape()));
-        transparencyCheck.setSelected(Boolean.TRUE.equals(entry.getTransparency()));
-        cullingDisableCheck.setSelected(Boolean.FALSE.equals(entry.getCulling()));
-
-        // Display
-        tabsDropdown.setValue(nn(entry.getTabs()));
-        typeDropdown.setValue(nn(entry.getType()));
-        defaultAnimationDropdown.setValue(nn(entry.getDefaultAnimation()));
-
-        // Behavior
-        passableCheck.setSelected(Boolean.TRUE.equals(entry.getPassable()));
-        aboveWaterCheck.setSelected(Boolean.TRUE.equals(entry.getAboveWater()));
-        rotatableCheck.setSelected(Boolean.TRUE.equals(entry.getRotatable()));
-        hiddenCheck.setSelected(Boolean.TRUE.equals(entry.getHidden()));
-        lootField.setText(nn(entry.getLoot()));
-        displayableCheck.setSelected(Boolean.TRUE.equals(entry.getDisplayable()));
-
-        // Composite
+        List<String> notes = new ArrayList<>();
+        int frames = size.flipbookFrames();
+        ModelSummary model = entry.getModel() == null ? null : controller.getParsedModels().get(entry.getModel());
+        if (model != null && model.getUvWidth() > 0 && model.getUvHeight() > 0) {
+            // Same shape as the UVs (whole texture or one strip frame) is
+            // fine at any scale. A tall texture the UVs cover whole isn't
+            // a flipbook.
+            boolean whole = matchesAspect(size.width(), size.height(), model);
+            if (whole) {
+                frames = 1;
+            } else if (frames == 1 || !matchesAspect(size.width(), size.height() / frames, model)) {
+                notes.add("Texture " + size + " doesn't match the model's UV size "
+                        + model.getUvWidth() + "\u00D7" + model.getUvHeight() + ".");
+            }
+        }
+        if (frames > 1) {
+            notes.add("Texture " + size + " looks like a " + frames + "-frame flipbook strip.");
+            if (!flipbookEnabled()) {
+                prefilledImages = Math.min(frames, 100);
+                // A collapsed section picks it up when it loads.
+                if (flipbookSection.pending() == null) {
+                    flipbookImagesSpinner.getValueFactory().setValue(prefilledImages);
+                }
+            }
+        } else {
+            if (prefilledImages != null && flipbookSection.pending() == null && !flipbookCheck.isSelected()
+                    && prefilledImages.equals(flipbookImagesSpinner.getValue())) {
+                flipbookImagesSpinner.getValueFactory().setValue(2);
+            }
+            prefilledImages = null;
+        }
+        if (!size.isPowerOfTwo()) {
+            notes.add("Texture " + size + " is not a power of two.");
+        }
+        if (notes.isEmpty()) {
+            textureHintLabel.setVisible(false);
+            textureHintLabel.setManaged(false);
+            return;
+        }
+        textureHintLabel.setText(String.join("\n", notes));
+        textureHintLabel.setVisible(true);
+        textureHintLabel.setManaged(true);
+    }
+
+    private static boolean matchesAspect(int width, int height, ModelSummary model) {
+        return (long) width * model.getUvHeight() == (long) height * model.getUvWidth();
+    }
+
+    /**
+     * A model finished parsing: refresh the animation choices and the
+     * particle and texture hints if the loaded entry uses it. Field values
+     * are left as they are.
+     */
+    public void refreshModelInfo(String modelName) {
+        if (loadedSnapshot == null || !modelName.equals(loadedSnapshot.getModel())) return;
+        String defaultAnimation = defaultAnimationDropdown.getValue();
+        refreshAnimationOptions(modelName);
+        defaultAnimationDropdown.setValue(defaultAnimation);
+        refreshParticleHint(modelName);
+        refreshTextureHint(loadedSnapshot);
+    }
+
+    // --- Lazy sections ---
+
+    private VBox buildCompositeSection() {
+        compositeCheck = darkCheck("Enable composite");
+        compositeBox = new VBox(5);
+        compositeBox.setVisible(false);
+        compositeBox.setManaged(false);
+        compositeCheck.selectedProperty().addListener((obs, o, n) -> {
+            compositeBox.setVisible(n);
+            compositeBox.setManaged(n);
+        });
+        compositeModelField = textField("Composite model name");
+        compositeTextureDropdown = editableCombo("Optional texture override");
+        textureOptions.attach(compositeTextureDropdown);
+        compositeTransparencyCheck = darkCheck("Composite transparency");
+        compositeBox.getChildren().addAll(
+                fieldLabel("Model"), compositeModelField,
+                fieldLabel("Texture"), compositeTextureDropdown,
+                compositeTransparencyCheck
+        );
+        return sectionBody(compositeCheck, compositeBox);
+    }
+
+    private VBox buildFlipbookSection() {
+        flipbookCheck = darkCheck("Enable flipbook");
+        flipbookBox = new VBox(5);
+        flipbookBox.setVisible(false);
+        flipbookBox.setManaged(false);
+        flipbookCheck.selectedProperty().addListener((obs, o, n) -> {
+            flipbookBox.setVisible(n);
+            flipbookBox.setManaged(n);
+        });
+        flipbookFrametimeSpinner = new Spinner<>(1, 200, 8, 1);
+        flipbookFrametimeSpinner.setEditable(true);
+        flipbookFrametimeSpinner.setMaxWidth(Double.MAX_VALUE);
+        flipbookImagesSpinner = new Spinner<>(1, 100, 2, 1);
+        flipbookImagesSpinner.setEditable(true);
+        flipbookImagesSpinner.setMaxWidth(Double.MAX_VALUE);
+        flipbookBox.getChildren().addAll(
+                fieldLabel("Frametime (ticks)"), flipbookFrametimeSpinner,
+                fieldLabel("Images (frame count)"), flipbookImagesSpinner
+        );
+        return sectionBody(flipbookCheck, flipbookBox);
+    }
+
+    private VBox buildChainSection() {
+        chainModelsArea = textArea("One model name per line");
+        chainMaterialsArea = textArea("One texture per line (optional)");
+        chainPatternDropdown = editableCombo("mirror | repeat");
+        chainPatternDropdown.getItems().add("");
+        chainPatternDropdown.getItems().addAll(DecoTypes.CHAIN_PATTERNS);
+        lightingCheck = darkCheck("Lighting (chain light level)");
+        lightingSpinner = new Spinner<>(0, 15, 15, 1);
+        lightingSpinner.setEditable(true);
+        lightingSpinner.setMaxWidth(Double.MAX_VALUE);
+        lightingRow = new VBox(2);
+        lightingRow.getChildren().addAll(fieldLabel("Level 0 to 15"), lightingSpinner);
+        lightingRow.setVisible(false);
+        lightingRow.setManaged(false);
+        lightingCheck.selectedProperty().addListener((obs, o, n) -> {
+            lightingRow.setVisible(n);
+            lightingRow.setManaged(n);
+        });
+        return sectionBody(
+                fieldLabel("Chain models"), chainModelsArea,
+                fieldLabel("Chain materials"), chainMaterialsArea,
+                fieldLabel("Pattern"), chainPatternDropdown,
+                lightingCheck, lightingRow
+        );
+    }
+
+    private VBox buildGrowableSection() {
+        structuresArea = textArea("One structure name per line");
+        instantCheck = darkCheck("Instant growth");
+        return sectionBody(
+                fieldLabel("Structures"), structuresArea,
+                instantCheck
+        );
+    }
+
+    private static VBox sectionBody(Node... children) {
+        VBox body = new VBox(5);
+        body.setPadding(new Insets(5));
+        body.getChildren().addAll(children);
+        return body;
+    }
+
+    private void loadComposite(DecoEntry entry) {
         Composite comp = entry.getComposite();
         if (comp != null) {
             compositeCheck.setSelected(true);
@@ -499,8 +599,9 @@ public class EditorPanel {
             compositeTextureDropdown.setValue("");
             compositeTransparencyCheck.setSelected(false);
         }
+    }
 
-        // Flipbook
+    private void loadFlipbook(DecoEntry entry) {
         Flipbook fb = entry.getFlipbook();
         if (fb != null) {
             flipbookCheck.setSelected(true);
@@ -509,10 +610,13 @@ public class EditorPanel {
         } else {
             flipbookCheck.setSelected(false);
             flipbookFrametimeSpinner.getValueFactory().setValue(8);
-            flipbookImagesSpinner.getValueFactory().setValue(2);
+            // A frame count the texture hint found while the section was
+            // collapsed goes in now.
+            flipbookImagesSpinner.getValueFactory().setValue(prefilledImages != null ? prefilledImages : 2);
         }
+    }
 
-        // Chain
+    private void loadChain(DecoEntry entry) {
         chainModelsArea.setText(linesFromList(entry.getChainModels()));
         chainMaterialsArea.setText(linesFromList(entry.getChainMaterials()));
         chainPatternDropdown.setValue(nn(entry.getChainPattern()));
@@ -523,47 +627,101 @@ public class EditorPanel {
             lightingCheck.setSelected(false);
             lightingSpinner.getValueFactory().setValue(15);
         }
+    }
 
-        // Growable
+    private void loadGrowable(DecoEntry entry) {
         structuresArea.setText(linesFromList(entry.getStructures()));
         instantCheck.setSelected(Boolean.TRUE.equals(entry.getInstant()));
+    }
 
-        // Script
-        Script script = entry.getScript();
-        if (script != null && script.getLight() != null) {
-            lightCheck.setSelected(true);
-            lightSpinner.getValueFactory().setValue(script.getLight());
-        } else {
-            lightCheck.setSelected(false);
-            lightSpinner.getValueFactory().setValue(15);
-        }
+    /** The flipbook checkbox, or the held-back entry's flipbook while the section is collapsed. */
+    private boolean flipbookEnabled() {
+        DecoEntry pending = flipbookSection.pending();
+        return pending != null ? pending.getFlipbook() != null : flipbookCheck.isSelected();
+    }
 
-        if (script != null && script.getCounter() != null) {
-            counterCheck.setSelected(true);
-            counterSpinner.getValueFactory().setValue(script.getCounter());
-        } else {
-            counterCheck.setSelected(false);
-            counterSpinner.getValueFactory().setValue(40);
-        }
+    private static boolean hasItems(List<?> list) {
+        return list != null && !list.isEmpty();
+    }
 
-        if (script != null) {
-            onUseEditor.loadAction(script.getOnUse());
-            shiftOnUseEditor.loadAction(script.getShiftOnUse());
-            addedEditor.loadAction(script.getAdded());
-            triggerEditor.loadAction(script.getTrigger());
-            animationStartEditor.loadAction(script.getAnimationStart());
-            animationEndEditor.loadAction(script.getAnimationEnd());
-            toolModelSwitchEditor.loadAction(script.getToolModelSwitch());
-        } else {
-            for (ActionEditor ae : allActionEditors) ae.clear();
-        }
+    // --- Load / clear ---
+
+    public void loadEntry(DecoEntry entry) {
+        Metrics.Span span = Metrics.time("editor.loadEntry");
+        try (span) {
+            // Also what the collapsed sections hold until they open, so it
+            // must not change once they have it.
+            DecoEntry loaded = History.deepCopy(entry, DecoEntry.class);
+            refreshAnimationOptions(entry.getModel());
+            refreshParticleHint(entry.getModel());
+
+            // Identity
+            nameField.setText(nn(entry.getName()));
+            decorefDropdown.setValue(nn(entry.getDecoref()));
+            materialDropdown.setValue(nn(entry.getMaterial()));
+
+            // Rendering
+            modelField.setText(nn(entry.getModel()));
+            scaleSpinner.getValueFactory().setValue(entry.getScale());
+            shapeField.setText(nn(entry.getShape()));
+            transparencyCheck.setSelected(Boolean.TRUE.equals(entry.getTransparency()));
+            cullingDisableCheck.setSelected(Boolean.FALSE.equals(entry.getCulling()));
+
+            // Display
+            tabsDropdown.setValue(nn(entry.getTabs()));
+            typeDropdown.setValue(nn(entry.getType()));
+            defaultAnimationDropdown.setValue(nn(entry.getDefaultAnimation()));
+
+            // Behavior
+            passableCheck.setSelected(Boolean.TRUE.equals(entry.getPassable()));
+            aboveWaterCheck.setSelected(Boolean.TRUE.equals(entry.getAboveWater()));
+            rotatableCheck.setSelected(Boolean.TRUE.equals(entry.getRotatable()));
+            hiddenCheck.setSelected(Boolean.TRUE.equals(entry.getHidden()));
+            lootField.setText(nn(entry.getLoot()));
+            displayableCheck.setSelected(Boolean.TRUE.equals(entry.getDisplayable()));
+
+            compositeSection.load(loaded);
+            prefilledImages = null;
+            flipbookSection.load(loaded);
+            refreshTextureHint(entry);
+            chainSection.load(loaded);
+            growableSection.load(loaded);
+
+            // Script
+            Script script = entry.getScript();
+            if (script != null && script.getLight() != null) {
+                lightCheck.setSelected(true);
+                lightSpinner.getValueFactory().setValue(script.getLight());
+            } else {
+                lightCheck.setSelected(false);
+                lightSpinner.getValueFactory().setValue(15);
+            }
+
+            if (script != null && script.getCounter() != null) {
+                counterCheck.setSelected(true);
+                counterSpinner.getValueFactory().setValue(script.getCounter());
+            } else {
+                counterCheck.setSelected(false);
+                counterSpinner.getValueFactory().setValue(40);
+            }
+
+            if (script != null) {
+                onUseEditor.loadAction(script.getOnUse());
+                shiftOnUseEditor.loadAction(script.getShiftOnUse());
+                addedEditor.loadAction(script.getAdded());
+                triggerEditor.loadAction(script.getTrigger());
+                animationStartEditor.loadAction(script.getAnimationStart());
+                animationEndEditor.loadAction(script.getAnimationEnd());
+                toolModelSwitchEditor.loadAction(script.getToolModelSwitch());
+            } else {
+                for (ActionEditor ae : allActionEditors) ae.clear();
+            }
 
-        loadedSnapshot = History.deepCopy(entry, DecoEntry.class);
+            loadedSnapshot = loaded;
+        }
     }
 
     public void clearFields() {
-        refreshTextureDropdowns();
-        refreshActionLinkOptions();
 
         nameField.setText("");
         decorefDropdown.setValue("");
@@ -586,23 +744,12 @@ public class EditorPanel {
         lootField.setText("");
         displayableCheck.setSelected(false);
 
-        compositeCheck.setSelected(false);
-        compositeModelField.setText("");
-        compositeTextureDropdown.setValue("");
-        compositeTransparencyCheck.setSelected(false);
-
-        flipbookCheck.setSelected(false);
-        flipbookFrametimeSpinner.getValueFactory().setValue(8);
-        flipbookImagesSpinner.getValueFactory().setValue(2);
-
-        chainModelsArea.setText("");
-        chainMaterialsArea.setText("");
-        chainPatternDropdown.setValue("");
-        lightingCheck.setSelected(false);
-        lightingSpinner.getValueFactory().setValue(15);
-
-        structuresArea.setText("");
-        instantCheck.setSelected(false);
+        DecoEntry blank = new DecoEntry();
+        compositeSection.load(blank);
+        prefilledImages = null;
+        flipbookSection.load(blank);
+        chainSection.load(blank);
+        growableSection.load(blank);
 
         lightCheck.setSelected(false);
         lightSpinner.getValueFactory().setValue(15);
@@ -613,6 +760,8 @@ public class EditorPanel {
 
         particleHintLabel.setVisible(false);
         particleHintLabel.setManaged(false);
+        textureHintLabel.setVisible(false);
+        textureHintLabel.setManaged(false);
 
         // Capture the blank UI state so multi-select Apply (which lands
         // here via EntryListPanel) still has a diff baseline — anything
@@ -628,18 +777,31 @@ public class EditorPanel {
         if (loadedSnapshot == null) return;
 
         DecoEntry proposed = buildEntryFromUi();
-        DecoEntry loaded = loadedSnapshot;
-
-        for (DecoEntry entry : selected) {
-            applyDiff(entry, proposed, loaded);
+        EntryPatch patch = EntryPatch.diff(proposed, loadedSnapshot);
+        if (patch.isEmpty()) {
+            loadedSnapshot = proposed;
+            return;
         }
 
-        // Refresh the diff baseline so a subsequent Apply diffs against
-        // the post-save UI state rather than the stale load-time snapshot.
-        // Without this, un-checking an option the user just applied (e.g.
-        // light) matches the original load state and the diff sees no
-        // change, so the field never gets cleared on the target.
-        loadedSnapshot = proposed;
+        Metrics.Span span = Metrics.time("editor.apply");
+        try (span) {
+            controller.snapshot();
+            Map<DecoEntry, String> linkTargets = LinkIndex.captureTargets(controller.getEntries());
+            patch.applyTo(selected);
+            controller.entriesChanged(selected);
+            if (patch.newMaterial() != null) controller.getUnmatchedTextures().remove(patch.newMaterial());
+            Metrics.add("editor.apply.entries", selected.size());
+            // A decoref edit would otherwise strand every link that pointed at
+            // the old value; rewrite them as part of this same Apply.
+            controller.propagateLinkRenames(linkTargets);
+
+            // Refresh the diff baseline so a subsequent Apply diffs against
+            // the post-save UI state rather than the stale load-time snapshot.
+            // Without this, un-checking an option the user just applied (e.g.
+            // light) matches the original load state and the diff sees no
+            // change, so the field never gets cleared on the target.
+            loadedSnapshot = proposed;
+        }
 
         controller.getEntryListView().refresh();
         controller.updateJsonPreview();
@@ -677,7 +839,11 @@ public class EditorPanel {
         }
         e.setDisplayable(displayableCheck.isSelected() ? Boolean.TRUE : null);
 
-        if (compositeCheck.isSelected()) {
+        // A collapsed section's values are those of the entry it holds.
+        DecoEntry held = compositeSection.pending();
+        if (held != null) {
+            if (held.getComposite() != null) e.setComposite(History.deepCopy(held.getComposite(), Composite.class));
+        } else if (compositeCheck.isSelected()) {
             Composite c = new Composite();
             c.setModel(nullIfEmpty(compositeModelField.getText()));
             c.setTexture(comboValue(compositeTextureDropdown));
@@ -685,23 +851,40 @@ public class EditorPanel {
             e.setComposite(c);
         }
 
-        if (flipbookCheck.isSelected()) {
+        held = flipbookSection.pending();
+        if (held != null) {
+            if (held.getFlipbook() != null) e.setFlipbook(History.deepCopy(held.getFlipbook(), Flipbook.class));
+        } else if (flipbookCheck.isSelected()) {
             Flipbook fb = new Flipbook();
             fb.setFrametime(flipbookFrametimeSpinner.getValue());
             fb.setImages(flipbookImagesSpinner.getValue());
             e.setFlipbook(fb);
         }
 
-        List<String> chainModels = listFromLines(chainModelsArea.getText());
-        List<String> chainMaterials = listFromLines(chainMaterialsArea.getText());
-        e.setChainModels(chainModels.isEmpty() ? null : chainModels);
-        e.setChainMaterials(chainMaterials.isEmpty() ? null : chainMaterials);
-        e.setChainPattern(comboValue(chainPatternDropdown));
-        e.setLighting(lightingCheck.isSelected() ? lightingSpinner.getValue() : null);
+        held = chainSection.pending();
+        if (held != null) {
+            e.setChainModels(hasItems(held.getChainModels()) ? new ArrayList<>(held.getChainModels()) : null);
+            e.setChainMaterials(hasItems(held.getChainMaterials()) ? new ArrayList<>(held.getChainMaterials()) : null);
+            e.setChainPattern(nullIfEmpty(held.getChainPattern()));
+            e.setLighting(held.getLighting());
+        } else {
+            List<String> chainModels = listFromLines(chainModelsArea.getText());
+            List<String> chainMaterials = listFromLines(chainMaterialsArea.getText());
+            e.setChainModels(chainModels.isEmpty() ? null : chainModels);
+            e.setChainMaterials(chainMaterials.isEmpty() ? null : chainMaterials);
+            e.setChainPattern(comboValue(chainPatternDropdown));
+            e.setLighting(lightingCheck.isSelected() ? lightingSpinner.getValue() : null);
+        }
 
-        List<String> structures = listFromLines(structuresArea.getText());
-        e.setStructures(structures.isEmpty() ? null : structures);
-        e.setInstant(instantCheck.isSelected() ? Boolean.TRUE : null);
+        held = growableSection.pending();
+        if (held != null) {
+            e.setStructures(hasItems(held.getStructures()) ? new ArrayList<>(held.getStructures()) : null);
+            e.setInstant(Boolean.TRUE.equals(held.getInstant()) ? Boolean.TRUE : null);
+        } else {
+            List<String> structures = listFromLines(structuresArea.getText());
+            e.setStructures(structures.isEmpty() ? null : structures);
+            e.setInstant(instantCheck.isSelected() ? Boolean.TRUE : null);
+        }
 
         Action onUse = onUseEditor.buildAction();
         Action shiftOnUse = shiftOnUseEditor.buildAction();
@@ -733,213 +916,6 @@ public class EditorPanel {
         return e;
     }
 
-    /**
-     * Write only the fields where {@code proposed} differs from
-     * {@code loaded} onto {@code target}. Fields the user didn't touch in
-     * the editor stay as-is on the target — so multi-select Apply never
-     * flattens divergent per-entry state.
-     */
-    private void applyDiff(DecoEntry target, DecoEntry proposed, DecoEntry loaded) {
-        if (!Objects.equals(proposed.getName(), loaded.getName())) {
-            target.setName(proposed.getName());
-        }
-        if (!Objects.equals(proposed.getDecoref(), loaded.getDecoref())) {
-            target.setDecoref(proposed.getDecoref());
-        }
-        if (!Objects.equals(proposed.getMaterial(), loaded.getMaterial())) {
-            target.setMaterial(proposed.getMaterial());
-            if (proposed.getMaterial() != null) {
-                controller.getUnmatchedTextures().remove(proposed.getMaterial());
-            }
-        }
-        if (!Objects.equals(proposed.getModel(), loaded.getModel())) {
-            target.setModel(proposed.getModel());
-        }
-        if (!Objects.equals(proposed.getScale(), loaded.getScale())) {
-            target.setScale(proposed.getScale());
-        }
-        if (!Objects.equals(proposed.getShape(), loaded.getShape())) {
-            target.setShape(proposed.getShape());
-        }
-        if (!Objects.equals(proposed.getTransparency(), loaded.getTransparency())) {
-            target.setTransparency(proposed.getTransparency());
-        }
-        if (!Objects.equals(proposed.getCulling(), loaded.getCulling())) {
-            target.setCulling(proposed.getCulling());
-        }
-        if (!Objects.equals(proposed.getTabs(), loaded.getTabs())) {
-            target.setTabs(proposed.getTabs());
-        }
-        if (!Objects.equals(proposed.getType(), loaded.getType())) {
-            target.setType(proposed.getType());
-        }
-        if (!Objects.equals(proposed.getDefaultAnimation(), loaded.getDefaultAnimation())) {
-            target.setDefaultAnimation(proposed.getDefaultAnimation());
-        }
-        if (!Objects.equals(proposed.getPassable(), loaded.getPassable())) {
-            target.setPassable(proposed.getPassable());
-        }
-        if (!Objects.equals(proposed.getAboveWater(), loaded.getAboveWater())) {
-            target.setAboveWater(proposed.getAboveWater());
-        }
-        if (!Objects.equals(proposed.getRotatable(), loaded.getRotatable())) {
-            target.setRotatable(proposed.getRotatable());
-        }
-        if (!Objects.equals(proposed.getHidden(), loaded.getHidden())) {
-            target.setHidden(proposed.getHidden());
-        }
-        if (!Objects.equals(proposed.getLoot(), loaded.getLoot())) {
-            target.setLoot(proposed.getLoot());
-        }
-        if (!Objects.equals(proposed.getDisplayable(), loaded.getDisplayable())) {
-            target.setDisplayable(proposed.getDisplayable());
-        }
-
-        if (!History.jsonEquals(proposed.getComposite(), loaded.getComposite())) {
-            target.setComposite(History.deepCopy(proposed.getComposite(), Composite.class));
-        }
-        if (!History.jsonEquals(proposed.getFlipbook(), loaded.getFlipbook())) {
-            target.setFlipbook(History.deepCopy(proposed.getFlipbook(), Flipbook.class));
-        }
-
-        if (!Objects.equals(proposed.getChainModels(), loaded.getChainModels())) {
-            target.setChainModels(proposed.getChainModels() != null ? new ArrayList<>(proposed.getChainModels()) : null);
-        }
-        if (!Objects.equals(proposed.getChainMaterials(), loaded.getChainMaterials())) {
-            target.setChainMaterials(proposed.getChainMaterials() != null ? new ArrayList<>(proposed.getChainMaterials()) : null);
-        }
-        if (!Objects.equals(proposed.getChainPattern(), loaded.getChainPattern())) {
-            target.setChainPattern(proposed.getChainPattern());
-        }
-        if (!Objects.equals(proposed.getLighting(), loaded.getLighting())) {
-            target.setLighting(proposed.getLighting());
-        }
-
-        if (!Objects.equals(proposed.getStructures(), loaded.getStructures())) {
-            target.setStructures(proposed.getStructures() != null ? new ArrayList<>(proposed.getStructures()) : null);
-        }
-        if (!Objects.equals(proposed.getInstant(), loaded.getInstant())) {
-            target.setInstant(proposed.getInstant());
-        }
-
-        applyScriptDiff(target, proposed.getScript(), loaded.getScript());
-    }
-
-    /**
-     * Diff Script actions + light/counter against the loaded snapshot.
-     * Each Action slot is diffed at field granularity so an Apply that
-     * only touches, say, on_use.storage doesn't wipe on_use.link on the
-     * target entries. Actions unchanged as a whole are skipped entirely.
-     */
-    private void applyScriptDiff(DecoEntry target, Script proposed, Script loaded) {
-        if (History.jsonEquals(proposed, loaded)) return;
-
-        Script targetScript = target.getScript();
-        if (targetScript == null) {
-            targetScript = new Script();
-            target.setScript(targetScript);
-        }
-        final Script ts = targetScript;
-
-        applyActionDiff(ts::getOnUse, ts::setOnUse,
-                proposed != null ? proposed.getOnUse() : null,
-                loaded != null ? loaded.getOnUse() : null);
-        applyActionDiff(ts::getShiftOnUse, ts::setShiftOnUse,
-                proposed != null ? proposed.getShiftOnUse() : null,
-                loaded != null ? loaded.getShiftOnUse() : null);
-        applyActionDiff(ts::getAdded, ts::setAdded,
-                proposed != null ? proposed.getAdded() : null,
-                loaded != null ? loaded.getAdded() : null);
-        applyActionDiff(ts::getTrigger, ts::setTrigger,
-                proposed != null ? proposed.getTrigger() : null,
-                loaded != null ? loaded.getTrigger() : null);
-        applyActionDiff(ts::getAnimationStart, ts::setAnimationStart,
-                proposed != null ? proposed.getAnimationStart() : null,
-                loaded != null ? loaded.getAnimationStart() : null);
-        applyActionDiff(ts::getAnimationEnd, ts::setAnimationEnd,
-                proposed != null ? proposed.getAnimationEnd() : null,
-                loaded != null ? loaded.getAnimationEnd() : null);
-        applyActionDiff(ts::getToolModelSwitch, ts::setToolModelSwitch,
-                proposed != null ? proposed.getToolModelSwitch() : null,
-                loaded != null ? loaded.getToolModelSwitch() : null);
-
-        Integer pLight = proposed != null ? proposed.getLight() : null;
-        Integer lLight = loaded != null ? loaded.getLight() : null;
-        if (!Objects.equals(pLight, lLight)) ts.setLight(pLight);
-
-        Integer pCounter = proposed != null ? proposed.getCounter() : null;
-        Integer lCounter = loaded != null ? loaded.getCounter() : null;
-        if (!Objects.equals(pCounter, lCounter)) ts.setCounter(pCounter);
-
-        if (isScriptEmpty(ts)) target.setScript(null);
-    }
-
-    /**
-     * Diff one Action (link/sound/animations/sounds/storage) in place:
-     * ensure the target slot exists only if any field actually changed,
-     * write only the fields that differ, and clear the slot if all
-     * fields end up empty. Fields the user didn't touch on a target
-     * entry are left alone — so adding storage via multi-select won't
-     * wipe link, animations, or sounds that other entries already had.
-     */
-    private void applyActionDiff(Supplier<Action> getter, Consumer<Action> setter,
-                                 Action proposed, Action loaded) {
-        String pLink = proposed != null ? proposed.getLink() : null;
-        String lLink = loaded != null ? loaded.getLink() : null;
-        String pSound = proposed != null ? proposed.getSound() : null;
-        String lSound = loaded != null ? loaded.getSound() : null;
-        List<AnimationPair> pAnims = proposed != null ? proposed.getAnimations() : null;
-        List<AnimationPair> lAnims = loaded != null ? loaded.getAnimations() : null;
-        List<SoundPair> pSounds = proposed != null ? proposed.getSounds() : null;
-        List<SoundPair> lSounds = loaded != null ? loaded.getSounds() : null;
-        int[] pStorage = proposed != null ? proposed.getStorage() : null;
-        int[] lStorage = loaded != null ? loaded.getStorage() : null;
-
-        boolean linkChanged = !Objects.equals(pLink, lLink);
-        boolean soundChanged = !Objects.equals(pSound, lSound);
-        boolean animsChanged = !History.jsonEquals(pAnims, lAnims);
-        boolean soundsChanged = !History.jsonEquals(pSounds, lSounds);
-        boolean storageChanged = !Arrays.equals(pStorage, lStorage);
-
-        if (!(linkChanged || soundChanged || animsChanged || soundsChanged || storageChanged)) {
-            return;
-        }
-
-        Action targetAction = getter.get();
-        if (targetAction == null) {
-            targetAction = new Action();
-            setter.accept(targetAction);
-        }
-        if (linkChanged) targetAction.setLink(pLink);
-        if (soundChanged) targetAction.setSound(pSound);
-        if (animsChanged) targetAction.setAnimations(cloneAnimationPairs(pAnims));
-        if (soundsChanged) targetAction.setSounds(cloneSoundPairs(pSounds));
-        if (storageChanged) targetAction.setStorage(pStorage != null ? pStorage.clone() : null);
-
-        if (targetAction.isEmpty()) setter.accept(null);
-    }
-
-    private static List<AnimationPair> cloneAnimationPairs(List<AnimationPair> list) {
-        if (list == null) return null;
-        List<AnimationPair> copy = new ArrayList<>(list.size());
-        for (AnimationPair p : list) copy.add(new AnimationPair(p.getFrom(), p.getTo()));
-        return copy;
-    }
-
-    private static List<SoundPair> cloneSoundPairs(List<SoundPair> list) {
-        if (list == null) return null;
-        List<SoundPair> copy = new ArrayList<>(list.size());
-        for (SoundPair p : list) copy.add(new SoundPair(p.getFrom(), p.getTo(), p.getSound(), p.getLoop()));
-        return copy;
-    }
-
-    private static boolean isScriptEmpty(Script s) {
-        return s.getOnUse() == null && s.getShiftOnUse() == null && s.getAdded() == null
-                && s.getTrigger() == null && s.getAnimationStart() == null
-                && s.getAnimationEnd() == null && s.getToolModelSwitch() == null
-                && s.getLight() == null && s.getCounter() == null;
-    }
-
     // --- Duplicate ---
 
     private void duplicateSelectedEntries() {
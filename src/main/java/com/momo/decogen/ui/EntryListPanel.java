@@ -2,14 +2,17 @@ package com.momo.decogen.ui;
 
 import com.momo.decogen.model.DecoEntry;
 import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.SelectionMode;
+import javafx.scene.control.TextField;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.Dragboard;
+import javafx.scene.input.KeyCode;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
@@ -23,6 +26,7 @@ public class EntryListPanel {
 
     private final VBox root;
     private final ListView<DecoEntry> listView;
+    private final TextField searchField;
 
     public EntryListPanel(AppController controller) {
         root = new VBox(10);
@@ -31,7 +35,28 @@ public class EntryListPanel {
         Label title = new Label("Entries");
         title.setStyle("-fx-text-fill: #dcddde; -fx-font-size: 16px; -fx-font-weight: bold;");
 
-        listView = new ListView<>(controller.getEntries());
+        searchField = new TextField();
+        searchField.setPromptText("Search name, decoref, material, model (Ctrl+F)");
+        searchField.setStyle("-fx-background-color: #40444b; -fx-text-fill: #dcddde; -fx-prompt-text-fill: #72767d;");
+        searchField.textProperty().addListener((obs, o, n) -> controller.setSearchQuery(n));
+        searchField.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ESCAPE) {
+                searchField.clear();
+                event.consume();
+            }
+        });
+
+        Label matchCount = new Label();
+        matchCount.setStyle("-fx-text-fill: #72767d; -fx-font-size: 11px;");
+        FilteredList<DecoEntry> visible = controller.getVisibleEntries();
+        visible.addListener((ListChangeListener<DecoEntry>) c -> matchCount.setText(
+                visible.getPredicate() == null ? "" : visible.size() + " of " + controller.getEntries().size()));
+
+        HBox searchRow = new HBox(8, searchField, matchCount);
+        searchRow.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+
+        listView = new ListView<>(visible);
         listView.setStyle("-fx-background-color: #2f3136; -fx-control-inner-background: #2f3136;");
         listView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         VBox.setVgrow(listView, Priority.ALWAYS);
@@ -143,21 +168,24 @@ public class EntryListPanel {
                 Dragboard db = event.getDragboard();
                 boolean success = false;
                 if (db.hasString() && db.getString().startsWith(ROW_PAYLOAD)) {
+                    // Cell indices are positions in the (possibly filtered)
+                    // view; map them back to the full entry list.
                     int sourceIdx;
                     try {
-                        sourceIdx = Integer.parseInt(db.getString().substring(ROW_PAYLOAD.length()));
+                        int viewIdx = Integer.parseInt(db.getString().substring(ROW_PAYLOAD.length()));
+                        sourceIdx = viewIdx >= 0 && viewIdx < visible.size() ? visible.getSourceIndex(viewIdx) : -1;
                     } catch (NumberFormatException ex) {
                         sourceIdx = -1;
                     }
                     int size = controller.getEntries().size();
                     // Insertion index in the PRE-REMOVAL list: top half -> at
-                    // target index (above target); bottom half -> target+1
-                    // (below target); empty cell -> end of list.
+                    // target (above target); bottom half -> after target;
+                    // empty cell -> after the last visible row.
                     int insertAtPreRemove;
                     if (cell.isEmpty()) {
-                        insertAtPreRemove = size;
+                        insertAtPreRemove = visible.isEmpty() ? size : visible.getSourceIndex(visible.size() - 1) + 1;
                     } else {
-                        int tgt = cell.getIndex();
+                        int tgt = visible.getSourceIndex(cell.getIndex());
                         boolean above = event.getY() < cell.getHeight() / 2.0;
                         insertAtPreRemove = above ? tgt : tgt + 1;
                     }
@@ -168,13 +196,15 @@ public class EntryListPanel {
                         if (sourceIdx < insertAt) insertAt -= 1;
                         if (insertAt != sourceIdx) {
                             controller.snapshot();
+                            controller.entriesChanged(List.of());
                             DecoEntry moved = controller.getEntries().remove(sourceIdx);
                             int maxIdx = controller.getEntries().size();
                             if (insertAt < 0) insertAt = 0;
                             if (insertAt > maxIdx) insertAt = maxIdx;
                             controller.getEntries().add(insertAt, moved);
                             controller.updateJsonPreview();
-                            listView.getSelectionModel().clearAndSelect(insertAt);
+                            listView.getSelectionModel().clearSelection();
+                            listView.getSelectionModel().select(moved);
                             success = true;
                         }
                     }
@@ -233,11 +263,23 @@ public class EntryListPanel {
                 if (!selected.isEmpty()) {
                     controller.snapshot();
                     controller.getEntries().removeAll(selected);
+                    controller.updateJsonPreview();
                 }
             }
         });
 
-        root.getChildren().addAll(title, listView);
+        // Link-check status under the list; click for the full problem list.
+        Label linkStatus = new Label();
+        linkStatus.setOnMouseClicked(e -> controller.showLinkProblems());
+        controller.setLinkStatusLabel(linkStatus);
+        controller.validateLinks();
+
+        root.getChildren().addAll(title, searchRow, listView, linkStatus);
+    }
+
+    public void focusSearch() {
+        searchField.requestFocus();
+        searchField.selectAll();
     }
 
     public VBox getRoot() {
@@ -0,0 +1,83 @@
+package com.momo.decogen.ui;
+
+import com.momo.decogen.model.DecoEntry;
+import javafx.scene.Node;
+import javafx.scene.control.TitledPane;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A collapsible editor section whose controls are created the first time
+ * it is expanded, the way {@link ActionEditor} does for actions. While the
+ * section is collapsed, loaded entries are held back and written into the
+ * controls when it next opens, so selecting an entry doesn't touch hidden
+ * controls.
+ *
+ * While an entry is pending the controls are stale; {@link #pending()}
+ * returns it so the editor can read the section's values from it instead.
+ * Before anything is loaded, a blank entry is pending.
+ */
+final class LazySection {
+
+    private final TitledPane root;
+    private final String title;
+    private final Supplier<Node> build;
+    private final Consumer<DecoEntry> load;
+    private final Predicate<DecoEntry> inUse;
+
+    private boolean built;
+    private DecoEntry pending = new DecoEntry();
+
+    /**
+     * {@code build} creates the controls; {@code load} writes an entry's
+     * values into them; {@code inUse} says whether an entry sets anything
+     * in this section, which the collapsed header shows.
+     */
+    LazySection(String title, Supplier<Node> build, Consumer<DecoEntry> load, Predicate<DecoEntry> inUse) {
+        this.title = title;
+        this.build = build;
+        this.load = load;
+        this.inUse = inUse;
+        root = new TitledPane();
+        root.setText(title);
+        root.setExpanded(false);
+        root.setStyle("-fx-text-fill: #1e1f22; -fx-font-weight: bold;");
+        root.expandedProperty().addListener((obs, o, expanded) -> {
+            if (expanded) syncPending();
+        });
+    }
+
+    TitledPane getRoot() { return root; }
+
+    /**
+     * Show {@code entry}: now if the section is open, otherwise when it is
+     * next expanded. The entry is kept, not copied, so it must not be
+     * edited afterwards.
+     */
+    void load(DecoEntry entry) {
+        root.setText(inUse.test(entry) ? title + " \u2022" : title);
+        if (root.isExpanded()) {
+            pending = null;
+            load.accept(entry);
+        } else {
+            pending = entry;
+        }
+    }
+
+    /** The entry whose values the collapsed controls don't show yet, or null if they are current. */
+    DecoEntry pending() { return pending; }
+
+    private void syncPending() {
+        if (!built) {
+            built = true;
+            root.setContent(build.get());
+        }
+        if (pending != null) {
+            DecoEntry entry = pending;
+            pending = null;
+            load.accept(entry);
+        }
+    }
+}
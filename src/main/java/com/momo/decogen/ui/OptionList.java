@@ -0,0 +1,154 @@
+package com.momo.decogen.ui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.scene.control.ComboBox;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Sorted, de-duplicated dropdown options (with a leading blank) shared by
+ * any number of combos. {@link #sync} diffs the sources against what they
+ * contributed last time and inserts/removes only the values that came or
+ * went. When the owner knows which sources changed, {@link #update} (or
+ * {@link #add}/{@link #remove} for plain values) touches only those.
+ * Each value is reference-counted: it stays while any source still has it.
+ *
+ * {@link #attach} gives a combo its own filtered view of the shared list
+ * that narrows to options containing the typed text, which keeps a combo
+ * with tens of thousands of options usable.
+ */
+final class OptionList {
+
+    // Past this many edits in one sync, a single setAll is cheaper than
+    // individual inserts each firing a change event to every combo.
+    private static final int BULK_THRESHOLD = 32;
+
+    private final ObservableList<String> items = FXCollections.observableArrayList("");
+    private final Map<String, Integer> counts = new HashMap<>();
+    private Map<Object, String> contributed = new IdentityHashMap<>();
+
+    ObservableList<String> items() { return items; }
+
+    /** Bring the options up to date with {@code key(source)} over {@code sources}. */
+    <T> void sync(Collection<T> sources, Function<? super T, String> key) {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        Map<Object, String> next = new IdentityHashMap<>(sources.size() * 2);
+        for (T source : sources) {
+            boolean known = contributed.containsKey(source);
+            String old = contributed.remove(source);
+            String value = key.apply(source);
+            if (value != null && value.isEmpty()) value = null;
+            next.put(source, value);
+            if (known && Objects.equals(old, value)) continue;
+            release(old, removed);
+            retain(value, added);
+        }
+        for (String old : contributed.values()) release(old, removed);
+        contributed = next;
+        apply(added, removed);
+    }
+
+    /**
+     * Account for just these sources: {@code changed} ones added or
+     * edited, {@code removed} ones gone. Removals are applied first, so a
+     * source in both counts as present.
+     */
+    <T> void update(Collection<T> changed, Collection<T> removed, Function<? super T, String> key) {
+        List<String> added = new ArrayList<>();
+        List<String> gone = new ArrayList<>();
+        for (T source : removed) release(contributed.remove(source), gone);
+        for (T source : changed) {
+            boolean known = contributed.containsKey(source);
+            String value = key.apply(source);
+            if (value != null && value.isEmpty()) value = null;
+            String old = contributed.put(source, value);
+            if (known && Objects.equals(old, value)) continue;
+            release(old, gone);
+            retain(value, added);
+        }
+        apply(added, gone);
+    }
+
+    /** Count {@code value} in for one more source. */
+    void add(String value) {
+        List<String> added = new ArrayList<>(1);
+        retain(value, added);
+        apply(added, List.of());
+    }
+
+    /** Count {@code value} out for one source; it goes when none has it. */
+    void remove(String value) {
+        List<String> removed = new ArrayList<>(1);
+        release(value, removed);
+        apply(List.of(), removed);
+    }
+
+    private void apply(List<String> added, List<String> removed) {
+        if (added.size() + removed.size() > BULK_THRESHOLD) {
+            List<String> all = new ArrayList<>(counts.size() + 1);
+            all.add("");
+            all.addAll(counts.keySet());
+            Collections.sort(all.subList(1, all.size()));
+            items.setAll(all);
+            return;
+        }
+        // "" sorts before every other string, so the whole list stays sorted.
+        for (String v : removed) {
+            int i = Collections.binarySearch(items, v);
+            if (i > 0) items.remove(i);
+        }
+        for (String v : added) {
+            int i = Collections.binarySearch(items, v);
+            if (i < 0) items.add(-i - 1, v);
+        }
+    }
+
+    private void retain(String value, List<String> added) {
+        if (value == null) return;
+        if (counts.merge(value, 1, Integer::sum) == 1) added.add(value);
+    }
+
+    private void release(String value, List<String> removed) {
+        if (value == null) return;
+        Integer n = counts.get(value);
+        if (n == null) return;
+        if (n == 1) {
+            counts.remove(value);
+            removed.add(value);
+        } else {
+            counts.put(value, n - 1);
+        }
+    }
+
+    /**
+     * Show these options in {@code combo}, filtered to the text typed into
+     * its editor. The filter only follows typing (editor focused) and is
+     * dropped when the popup closes, so selecting a value doesn't narrow
+     * the list to that one value next time.
+     */
+    void attach(ComboBox<String> combo) {
+        FilteredList<String> view = new FilteredList<>(items);
+        combo.setItems(view);
+        combo.getEditor().textProperty().addListener((obs, old, text) -> {
+            if (!combo.getEditor().isFocused()) return;
+            String needle = text == null ? "" : text.trim();
+            view.setPredicate(needle.isEmpty() ? null : s -> s.isEmpty() || containsIgnoreCase(s, needle));
+            if (!needle.isEmpty() && !combo.isShowing()) combo.show();
+        });
+        combo.showingProperty().addListener((obs, was, showing) -> {
+            if (!showing) view.setPredicate(null);
+        });
+    }
+
+    private static boolean containsIgnoreCase(String haystack, String needle) {
+        int max = haystack.length() - needle.length();
+        for (int i = 0; i <= max; i++) {
+            if (haystack.regionMatches(true, i, needle, 0, needle.length())) return true;
+        }
+        return false;
+    }
+}
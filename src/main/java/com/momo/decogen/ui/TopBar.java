@@ -36,6 +36,12 @@ public class TopBar {
         exportBtn.setOnAction(e -> controller.exportJson(stage));
         exportBtn.setTooltip(tooltip("Save all entries to a JSON file"));
 
+        Button exportTabsBtn = new Button("Export by Tab\u2026");
+        exportTabsBtn.setPrefHeight(35);
+        exportTabsBtn.setStyle("-fx-background-color: #5865F2; -fx-text-fill: white; -fx-font-size: 13px; -fx-cursor: hand;");
+        exportTabsBtn.setOnAction(e -> controller.exportJsonByTab(stage));
+        exportTabsBtn.setTooltip(tooltip("Save one JSON file per tab into a folder, plus a manifest.json"));
+
         Button resetBtn = new Button("Reset All");
         resetBtn.setPrefHeight(35);
         resetBtn.setStyle("-fx-background-color: #ed4245; -fx-text-fill: white; -fx-font-size: 13px; -fx-cursor: hand;");
@@ -60,6 +66,18 @@ public class TopBar {
         addWordBtn.setOnAction(e -> controller.normalizeAddWord());
         addWordBtn.setTooltip(tooltip("Insert a word at a chosen position in every entry's name, decoref, and/or material"));
 
+        Button renameRulesBtn = new Button("Rename Rules\u2026");
+        renameRulesBtn.setPrefHeight(35);
+        renameRulesBtn.setStyle("-fx-background-color: #6c757d; -fx-text-fill: white; -fx-font-size: 13px; -fx-cursor: hand;");
+        renameRulesBtn.setOnAction(e -> controller.renameWithRules());
+        renameRulesBtn.setTooltip(tooltip("Run a list of strip / add / replace rules over names, decorefs and materials in one undoable step"));
+
+        Button queryBtn = new Button("Query\u2026");
+        queryBtn.setPrefHeight(35);
+        queryBtn.setStyle("-fx-background-color: #6c757d; -fx-text-fill: white; -fx-font-size: 13px; -fx-cursor: hand;");
+        queryBtn.setOnAction(e -> controller.queryEntries());
+        queryBtn.setTooltip(tooltip("Select entries by field values (model~closet* and type=animated) and optionally set fields on all of them"));
+
         MenuButton sortBtn = new MenuButton("Sort\u2026");
         sortBtn.setPrefHeight(35);
         sortBtn.setStyle("-fx-background-color: #6c757d; -fx-text-fill: white; -fx-font-size: 13px; -fx-cursor: hand;");
@@ -150,6 +168,12 @@ public class TopBar {
         woodChainBtn.setOnAction(e -> controller.buildWoodChain());
         woodChainBtn.setTooltip(tooltip("Sort entries by wood type and link them (tool_modelswitch)"));
 
+        Button customChainBtn = new Button("Chain\u2026");
+        customChainBtn.setPrefHeight(35);
+        customChainBtn.setStyle("-fx-background-color: #6c757d; -fx-text-fill: white; -fx-font-size: 13px; -fx-cursor: hand;");
+        customChainBtn.setOnAction(e -> controller.buildCustomChain());
+        customChainBtn.setTooltip(tooltip("Build a chain defined in chains.json (e.g. by size, or wood then color) and link it (tool_modelswitch)"));
+
         Button orderLinkBtn = new Button("Link by Order");
         orderLinkBtn.setPrefHeight(35);
         orderLinkBtn.setStyle("-fx-background-color: #ff00ff; -fx-text-fill: white; -fx-font-size: 13px; -fx-cursor: hand;");
@@ -162,6 +186,20 @@ public class TopBar {
         linkPairsBtn.setOnAction(e -> controller.linkStatePairs());
         linkPairsBtn.setTooltip(tooltip("Pair base \u2194 variant entries (e.g., closet \u2194 closet_open) via on_use.link. Run Rainbow/Wood Chain afterward to cycle colors within each state."));
 
+        MenuButton diagBtn = new MenuButton("Diagnostics");
+        diagBtn.setPrefHeight(35);
+        diagBtn.setStyle("-fx-background-color: #4f545c; -fx-text-fill: white; -fx-font-size: 13px; -fx-cursor: hand;");
+        diagBtn.setTooltip(tooltip("Performance metrics for commands run in this session"));
+        MenuItem metricsItem = new MenuItem("Metrics\u2026");
+        metricsItem.setOnAction(e -> controller.showDiagnostics());
+        MenuItem recordItem = new MenuItem("Start Flight Recording\u2026");
+        recordItem.setOnAction(e -> {
+            controller.toggleFlightRecording();
+            recordItem.setText(controller.isFlightRecording()
+                    ? "Stop Flight Recording" : "Start Flight Recording\u2026");
+        });
+        diagBtn.getItems().addAll(metricsItem, recordItem);
+
         Label statsLabel = new Label();
         statsLabel.setStyle("-fx-text-fill: #72767d; -fx-font-size: 12px;");
         controller.getEntries().addListener((ListChangeListener<DecoEntry>) c -> {
@@ -173,7 +211,7 @@ public class TopBar {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        root.getChildren().addAll(exportBtn, autoMatchBtn, sortBtn, normalizeBtn, addWordBtn, rainbowChainBtn, woodChainBtn, orderLinkBtn, linkPairsBtn, resetBtn, spacer, statsLabel);
+        root.getChildren().addAll(exportBtn, exportTabsBtn, autoMatchBtn, sortBtn, normalizeBtn, addWordBtn, renameRulesBtn, queryBtn, rainbowChainBtn, woodChainBtn, customChainBtn, orderLinkBtn, linkPairsBtn, resetBtn, spacer, statsLabel, diagBtn);
     }
 
     public HBox getRoot() {
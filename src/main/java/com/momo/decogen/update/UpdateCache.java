@@ -0,0 +1,60 @@
+package com.momo.decogen.update;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-disk record of the last GitHub "latest release" lookup, kept in
+ * {@code ~/.decocraft-json-generator/update-check.json}. Holds the parsed
+ * tag and assets plus the response ETag so the next check can be a
+ * conditional request, and when it last talked to GitHub so launches
+ * inside the re-check interval skip the network entirely.
+ */
+final class UpdateCache {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    String etag;
+    long checkedAt;
+    String tag;
+    Map<String, String> assets = new LinkedHashMap<>();
+
+    static Path file() {
+        return Paths.get(System.getProperty("user.home"), ".decocraft-json-generator", "update-check.json");
+    }
+
+    /** The cached record, or null if there is none or it can't be read. */
+    static UpdateCache load() {
+        Path f = file();
+        if (!Files.isRegularFile(f)) return null;
+        try {
+            UpdateCache c = GSON.fromJson(Files.readString(f), UpdateCache.class);
+            if (c != null && c.assets == null) c.assets = new LinkedHashMap<>();
+            return c;
+        } catch (IOException | JsonParseException e) {
+            System.out.println("Ignoring unreadable update cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    void save() {
+        Path f = file();
+        try {
+            Files.createDirectories(f.getParent());
+            Path tmp = Files.createTempFile(f.getParent(), "update-check", ".tmp");
+            Files.writeString(tmp, GSON.toJson(this));
+            Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Could not write update cache: " + e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.momo.decogen.update;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.geometry.Insets;
@@ -13,16 +16,18 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.net.NetworkInterface;
+import java.net.SocketException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
+import java.util.Enumeration;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Checks GitHub releases for updates and (on jpackage builds) performs a
@@ -43,14 +48,17 @@ public class UpdateChecker {
         checkForUpdatesAsync(null);
     }
 
+    /** Launches within this long of the last successful check stay offline. */
+    private static final long RECHECK_INTERVAL_MS = 6L * 60 * 60 * 1000;
+
     public static void checkForUpdatesAsync(Stage owner) {
         Thread updateThread = new Thread(() -> {
             try {
-                String body = fetchLatestReleaseJson();
-                if (body == null) return;
-                String latestVersion = parseTagName(body);
-                if (latestVersion == null || !isNewerVersion(latestVersion, CURRENT_VERSION)) return;
-                Map<String, String> assets = parseAssets(body);
+                UpdateCache release = latestRelease();
+                if (release == null || release.tag == null) return;
+                String latestVersion = release.tag;
+                if (!isNewerVersion(latestVersion, CURRENT_VERSION)) return;
+                Map<String, String> assets = release.assets;
                 Platform.runLater(() -> showUpdateDialog(latestVersion, assets, owner));
             } catch (Exception e) {
                 System.out.println("Update check failed: " + e.getMessage());
@@ -60,39 +68,86 @@ public class UpdateChecker {
         updateThread.start();
     }
 
-    private static String fetchLatestReleaseJson() throws Exception {
+    /**
+     * The latest release, from the on-disk cache when it is fresh or the
+     * machine is offline, otherwise via a conditional request that only
+     * transfers the body when the ETag changed. Returns null if nothing is
+     * known.
+     */
+    private static UpdateCache latestRelease() throws IOException {
+        UpdateCache cache = UpdateCache.load();
+        long now = System.currentTimeMillis();
+        if (cache != null && now - cache.checkedAt < RECHECK_INTERVAL_MS) return cache;
+        if (!isProbablyOnline()) return cache;
+
         String apiUrl = String.format(RELEASES_API, GITHUB_OWNER, GITHUB_REPO);
-        URL url = new URL(apiUrl);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        HttpURLConnection conn = (HttpURLConnection) new URL(apiUrl).openConnection();
         conn.setRequestMethod("GET");
         conn.setRequestProperty("Accept", "application/vnd.github.v3+json");
+        if (cache != null && cache.etag != null) conn.setRequestProperty("If-None-Match", cache.etag);
         conn.setConnectTimeout(5000);
         conn.setReadTimeout(5000);
+        try {
+            int code = conn.getResponseCode();
+            if (code == 304 && cache != null) {
+                cache.checkedAt = now;
+                cache.save();
+                return cache;
+            }
+            if (code != 200) return cache;
 
-        if (conn.getResponseCode() != 200) return null;
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) sb.append(line);
-            return sb.toString();
+            String body;
+            try (InputStream in = conn.getInputStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            UpdateCache fresh = parseRelease(body);
+            fresh.etag = conn.getHeaderField("ETag");
+            fresh.checkedAt = now;
+            fresh.save();
+            return fresh;
+        } finally {
+            conn.disconnect();
         }
     }
 
-    private static String parseTagName(String json) {
-        Matcher m = Pattern.compile("\"tag_name\"\\s*:\\s*\"v?([^\"]+)\"").matcher(json);
-        return m.find() ? m.group(1) : null;
+    private static UpdateCache parseRelease(String json) throws IOException {
+        try {
+            JsonObject root = JsonParser.parseString(json).getAsJsonObject();
+            UpdateCache release = new UpdateCache();
+            if (root.has("tag_name") && !root.get("tag_name").isJsonNull()) {
+                String tag = root.get("tag_name").getAsString();
+                release.tag = tag.startsWith("v") ? tag.substring(1) : tag;
+            }
+            if (root.has("assets") && root.get("assets").isJsonArray()) {
+                for (JsonElement el : root.getAsJsonArray("assets")) {
+                    JsonObject asset = el.getAsJsonObject();
+                    if (!asset.has("name") || !asset.has("browser_download_url")) continue;
+                    release.assets.put(asset.get("name").getAsString(),
+                            asset.get("browser_download_url").getAsString());
+                }
+            }
+            return release;
+        } catch (RuntimeException e) {
+            throw new IOException("Unexpected release JSON: " + e.getMessage(), e);
+        }
     }
 
-    private static Map<String, String> parseAssets(String json) {
-        Map<String, String> assets = new LinkedHashMap<>();
-        Matcher m = Pattern.compile(
-                "\"name\"\\s*:\\s*\"([^\"]+)\"[\\s\\S]*?\"browser_download_url\"\\s*:\\s*\"([^\"]+)\"")
-                .matcher(json);
-        while (m.find()) {
-            assets.put(m.group(1), m.group(2));
+    /**
+     * Cheap offline test: is any non-loopback interface up? Avoids waiting
+     * out a connect timeout on machines with no network at all.
+     */
+    private static boolean isProbablyOnline() {
+        try {
+            Enumeration<NetworkInterface> nics = NetworkInterface.getNetworkInterfaces();
+            if (nics == null) return false;
+            while (nics.hasMoreElements()) {
+                NetworkInterface nic = nics.nextElement();
+                if (nic.isUp() && !nic.isLoopback()) return true;
+            }
+            return false;
+        } catch (SocketException e) {
+            return true;
         }
-        return assets;
     }
 
     private static String pickAssetForOs(Map<String, String> assets) {
@@ -106,6 +161,47 @@ public class UpdateChecker {
         return null;
     }
 
+    /**
+     * Releases publish "&lt;asset&gt;.sha256" next to each archive. Older
+     * releases don't, in which case the download is not verified.
+     */
+    private static String checksumUrlFor(Map<String, String> assets, String assetUrl) {
+        String name = assetUrl.substring(assetUrl.lastIndexOf('/') + 1);
+        return assets.get(name + ".sha256");
+    }
+
+    /** The per-file hash manifest for this OS, or null on releases without one. */
+    private static String pickManifestForOs(Map<String, String> assets) {
+        String suffix = Updater.isWindows() ? "-windows-manifest.json"
+                : Updater.isLinux() ? "-linux-manifest.json" : null;
+        if (suffix == null) return null;
+        for (Map.Entry<String, String> e : assets.entrySet()) {
+            if (e.getKey().toLowerCase().endsWith(suffix)) return e.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Compare the release manifest against the installed image and download
+     * only the files that differ into a staging folder laid out like the
+     * install root. Returns that folder, or null when a full archive is
+     * needed (some changed file isn't published on its own).
+     */
+    private static Path downloadDelta(String manifestUrl, Label status,
+                                      Updater.ProgressListener listener) throws IOException {
+        UpdateManifest manifest = UpdateManifest.fetch(manifestUrl);
+        UpdateManifest.DeltaPlan plan = manifest.planDelta(Updater.getInstallRoot());
+        if (plan == null || plan.isEmpty()) return null;
+
+        int count = plan.changed().size();
+        Platform.runLater(() -> status.setText(String.format("Downloading %d of %d files (%.1f MB)…",
+                count, plan.totalFiles(), plan.downloadBytes() / (1024.0 * 1024.0))));
+        Path staging = Files.createTempDirectory("decogen-update-delta-").resolve("DecocraftJsonGenerator");
+        Files.createDirectories(staging);
+        manifest.downloadDelta(plan, staging, listener);
+        return staging;
+    }
+
     private static boolean isNewerVersion(String latest, String current) {
         String[] latestParts = latest.split("\\.");
         String[] currentParts = current.split("\\.");
@@ -169,13 +265,14 @@ public class UpdateChecker {
         if (result.isEmpty()) return;
         ButtonType chosen = result.get();
         if (chosen == updateNowBtn && canSelfUpdate) {
-            runSelfUpdate(assetUrl, newVersion, owner);
+            runSelfUpdate(assetUrl, checksumUrlFor(assets, assetUrl), pickManifestForOs(assets), newVersion, owner);
         } else if (chosen == openPageBtn) {
             openReleasesPage();
         }
     }
 
-    private static void runSelfUpdate(String assetUrl, String newVersion, Stage owner) {
+    private static void runSelfUpdate(String assetUrl, String checksumUrl, String manifestUrl,
+                                      String newVersion, Stage owner) {
         Stage progressStage = new Stage();
         progressStage.setTitle("Updating to v" + newVersion);
         if (owner != null) {
@@ -199,23 +296,46 @@ public class UpdateChecker {
             progressStage.close();
         });
 
+        Updater.ProgressListener onProgress = (read, total) -> {
+            if (cancelled[0]) throw new RuntimeException("cancelled");
+            if (total > 0) {
+                double p = (double) read / (double) total;
+                Platform.runLater(() -> progress.set(p));
+            }
+        };
+
         Thread t = new Thread(() -> {
             try {
-                Path archive = Updater.downloadAsset(assetUrl, (read, total) -> {
-                    if (cancelled[0]) throw new RuntimeException("cancelled");
-                    if (total > 0) {
-                        double p = (double) read / (double) total;
-                        Platform.runLater(() -> progress.set(p));
+                Path payload = null;
+                if (manifestUrl != null) {
+                    try {
+                        payload = downloadDelta(manifestUrl, status, onProgress);
+                    } catch (IOException e) {
+                        if (cancelled[0]) return;
+                        System.out.println("Delta update failed, using full archive: " + e.getMessage());
                     }
-                });
+                }
                 if (cancelled[0]) return;
-                Platform.runLater(() -> {
-                    status.setText("Extracting…");
-                    bar.progressProperty().unbind();
-                    bar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
-                });
-                Path extracted = Updater.extractArchive(archive);
-                Path payload = Updater.findPayloadRoot(extracted);
+
+                if (payload == null) {
+                    String expectedSha256 = null;
+                    if (checksumUrl != null) {
+                        expectedSha256 = Updater.fetchChecksum(checksumUrl);
+                    } else {
+                        System.out.println("No checksum published for " + assetUrl + "; skipping verification");
+                    }
+                    Platform.runLater(() -> {
+                        status.setText("Downloading…");
+                        progress.set(0);
+                    });
+                    Path archive = Updater.downloadAsset(assetUrl, expectedSha256, true, onProgress);
+                    if (cancelled[0]) return;
+                    Platform.runLater(() -> {
+                        status.setText("Extracting…");
+                        progress.set(0);
+                    });
+                    payload = Updater.extractArchive(archive, onProgress);
+                }
                 Path installRoot = Updater.getInstallRoot();
                 long pid = Updater.currentPid();
                 Updater.launchRelaunchScript(pid, payload, installRoot);
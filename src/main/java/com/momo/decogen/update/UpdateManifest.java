@@ -0,0 +1,173 @@
+package com.momo.decogen.update;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-file hash manifest published with each release
+ * ({@code DecocraftJsonGenerator-<version>-<os>-manifest.json}), listing
+ * every file of the app image relative to the install root:
+ * <pre>
+ * {"version": "1.3.0",
+ *  "files": [{"path": "lib/app/DecocraftJsonGenerator-clean-1.3.0.jar",
+ *             "size": 123, "sha256": "...", "url": "...-linux-file-lib__app__....jar"},
+ *            {"path": "lib/runtime/lib/modules", "size": 456, "sha256": "..."}]}
+ * </pre>
+ * Files that are published as their own release asset carry a {@code url}
+ * (absolute, or relative to the manifest). A delta update is only possible
+ * when every changed file has one; otherwise the caller falls back to the
+ * full archive. Bundled-runtime files usually have no url, so a JDK bump
+ * means a full download.
+ */
+public final class UpdateManifest {
+
+    public static final class FileEntry {
+        String path;
+        long size;
+        String sha256;
+        String url;
+        Boolean exec;
+
+        public String getPath() { return path; }
+        public long getSize() { return size; }
+        public String getSha256() { return sha256; }
+        public String getUrl() { return url; }
+        public boolean isExecutable() { return Boolean.TRUE.equals(exec); }
+    }
+
+    /** Files whose installed copy differs from the manifest. */
+    public record DeltaPlan(List<FileEntry> changed, long downloadBytes, int totalFiles) {
+        public boolean isEmpty() { return changed.isEmpty(); }
+    }
+
+    private static final Gson GSON = new Gson();
+
+    private String version;
+    private List<FileEntry> files;
+    // Where this manifest came from; relative file urls resolve against it.
+    private transient URI source;
+
+    public String getVersion() { return version; }
+    public List<FileEntry> getFiles() { return files != null ? files : List.of(); }
+
+    public static UpdateManifest fetch(String url) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setRequestProperty("Accept", "application/octet-stream");
+        conn.setConnectTimeout(10_000);
+        conn.setReadTimeout(30_000);
+        conn.setInstanceFollowRedirects(true);
+        try {
+            int code = conn.getResponseCode();
+            if (code != 200) throw new IOException("Manifest download failed: HTTP " + code);
+            try (InputStream in = conn.getInputStream()) {
+                UpdateManifest m = parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                m.source = URI.create(url);
+                return m;
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    public static UpdateManifest parse(String json) throws IOException {
+        try {
+            UpdateManifest m = GSON.fromJson(json, UpdateManifest.class);
+            if (m == null || m.files == null) throw new IOException("Manifest has no file list");
+            for (FileEntry f : m.files) {
+                if (f.path == null || f.sha256 == null) throw new IOException("Manifest entry missing path or sha256");
+            }
+            return m;
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed update manifest: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compare the manifest against the installed image. Size is checked
+     * first so only same-size files pay for a hash. Returns null when some
+     * changed file can't be fetched on its own (no url), meaning the full
+     * archive is needed.
+     */
+    public DeltaPlan planDelta(Path installRoot) throws IOException {
+        List<FileEntry> changed = new ArrayList<>();
+        long bytes = 0;
+        for (FileEntry f : getFiles()) {
+            Path local = resolveUnder(installRoot, f.path);
+            boolean same = Files.isRegularFile(local)
+                    && Files.size(local) == f.size
+                    && f.sha256.equalsIgnoreCase(hashFile(local));
+            if (same) continue;
+            if (f.url == null || f.url.isEmpty()) return null;
+            changed.add(f);
+            bytes += f.size;
+        }
+        return new DeltaPlan(changed, bytes, getFiles().size());
+    }
+
+    /**
+     * Download every changed file into {@code stagingRoot}, mirroring the
+     * install layout, verifying each against its manifest hash. The staging
+     * tree is then swapped in by the regular relaunch script, which copies
+     * only what it contains.
+     */
+    public void downloadDelta(DeltaPlan plan, Path stagingRoot, Updater.ProgressListener listener)
+            throws IOException {
+        long base = 0;
+        for (FileEntry f : plan.changed()) {
+            long offset = base;
+            String url = source != null ? source.resolve(f.url).toString() : f.url;
+            Path downloaded = Updater.downloadAsset(url, f.sha256, false, listener == null ? null
+                    : (read, total) -> listener.onProgress(offset + read, plan.downloadBytes()));
+            Path out = resolveUnder(stagingRoot, f.path);
+            Files.createDirectories(out.getParent());
+            Files.move(downloaded, out, StandardCopyOption.REPLACE_EXISTING);
+            if (f.isExecutable()) out.toFile().setExecutable(true, false);
+            base += f.size;
+        }
+    }
+
+    private static Path resolveUnder(Path root, String relative) throws IOException {
+        Path p = root.resolve(relative.replace('\\', '/')).normalize();
+        if (!p.startsWith(root) || p.equals(root)) {
+            throw new IOException("Manifest path escapes install root: " + relative);
+        }
+        return p;
+    }
+
+    private static String hashFile(Path file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+            while (ch.read(buf) > 0) {
+                buf.flip();
+                md.update(buf);
+                buf.clear();
+            }
+        }
+        return HexFormat.of().formatHex(md.digest()).toLowerCase(Locale.ROOT);
+    }
+}
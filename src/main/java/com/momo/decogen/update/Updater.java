@@ -1,16 +1,41 @@
 package com.momo.decogen.update;
 
-import java.io.BufferedOutputStream;
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * Self-update helpers: locate the jpackage install root, download a release
@@ -61,79 +86,619 @@ public final class Updater {
         return root != null && Files.isWritable(root);
     }
 
+    /** Attempts per download (or per parallel segment) before giving up. */
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int PARALLEL_SEGMENTS = 4;
+    /** Below this size a single stream is as fast as splitting it up. */
+    private static final long PARALLEL_MIN_BYTES = 8L * 1024 * 1024;
+    private static final Pattern SHA256_HEX = Pattern.compile("\\b([0-9a-fA-F]{64})\\b");
+
     public static Path downloadAsset(String url, ProgressListener listener) throws IOException {
-        URL u = new URL(url);
-        HttpURLConnection conn = (HttpURLConnection) u.openConnection();
+        return downloadAsset(url, null, false, listener);
+    }
+
+    /**
+     * Download {@code url} into a partial file whose name is derived from the
+     * URL, so an interrupted or cancelled download resumes (HTTP Range) from
+     * where it stopped on the next attempt instead of starting over. Dropped
+     * connections are retried in place.
+     *
+     * With {@code parallel}, a fresh download of a large asset from a server
+     * that accepts ranges is fetched as {@value #PARALLEL_SEGMENTS} concurrent
+     * segments; if that fails it falls back to the resumable single stream.
+     *
+     * If {@code expectedSha256} is non-null the finished file must match it
+     * or the download is discarded and an IOException thrown. The returned
+     * file keeps the asset name as its suffix so callers can sniff the type.
+     */
+    public static Path downloadAsset(String url, String expectedSha256, boolean parallel,
+                                     ProgressListener listener) throws IOException {
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        String key = HexFormat.of().formatHex(sha256().digest(url.getBytes(StandardCharsets.UTF_8)), 0, 6);
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"));
+        Path target = dir.resolve("decogen-update-" + key + "-" + name);
+        Path part = dir.resolve(target.getFileName() + ".part");
+
+        // A previous run may already have finished this exact asset.
+        if (expectedSha256 != null && Files.isRegularFile(target)
+                && expectedSha256.equalsIgnoreCase(hashFile(target))) {
+            return target;
+        }
+        Files.deleteIfExists(target);
+
+        String actual = null;
+        if (parallel && !Files.exists(part)) {
+            try {
+                actual = downloadParallel(url, part, listener);
+            } catch (IOException e) {
+                System.out.println("Parallel download failed, retrying as one stream: " + e.getMessage());
+            }
+        }
+        if (actual == null) actual = downloadResumable(url, part, expectedSha256 != null, listener);
+
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(actual)) {
+            Files.deleteIfExists(part);
+            throw new IOException("Checksum mismatch for " + name
+                    + " (expected " + expectedSha256.toLowerCase(Locale.ROOT) + ", got " + actual + ")");
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * Fetch a published checksum file ({@code sha256sum} format, or just the
+     * bare hex digest) and return the lower-case digest.
+     */
+    public static String fetchChecksum(String url) throws IOException {
+        HttpURLConnection conn = openConnection(url);
+        int code = conn.getResponseCode();
+        if (code != 200) throw new IOException("Checksum download failed: HTTP " + code);
+        String body;
+        try (InputStream in = conn.getInputStream()) {
+            body = new String(in.readNBytes(4096), StandardCharsets.UTF_8);
+        }
+        Matcher m = SHA256_HEX.matcher(body);
+        if (!m.find()) throw new IOException("No SHA-256 digest in " + url);
+        return m.group(1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Single-stream download into {@code part}, appending from its current
+     * size. The digest is fed only with bytes that made it to disk, and the
+     * file is truncated back to that point after a failed attempt, so the
+     * hash and the file always agree. Returns the hex SHA-256.
+     *
+     * A 416 for the resume range is taken to mean the partial file is
+     * already complete only when its size matches the server's and the
+     * caller will verify a checksum; otherwise the download starts over.
+     */
+    private static String downloadResumable(String url, Path part, boolean verified,
+                                            ProgressListener listener) throws IOException {
+        MessageDigest md = sha256();
+        try (FileChannel ch = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long have = ch.size();
+            if (have > 0) hashChannel(ch, have, md);
+
+            for (int attempt = 1; ; attempt++) {
+                HttpURLConnection conn = openConnection(url);
+                if (have > 0) conn.setRequestProperty("Range", "bytes=" + have + "-");
+                try {
+                    int code = conn.getResponseCode();
+                    long total;
+                    if (code == 206 && have > 0) {
+                        total = totalFromContentRange(conn.getHeaderField("Content-Range"), have, conn);
+                    } else if (code == 200) {
+                        // Server ignored the range (or there was nothing to
+                        // resume) — start over from byte zero.
+                        have = 0;
+                        md.reset();
+                        ch.truncate(0);
+                        total = conn.getContentLengthLong();
+                    } else if (code == 416 && have > 0) {
+                        if (verified && have == unsatisfiedTotal(conn.getHeaderField("Content-Range"))) {
+                            // Nothing left to fetch; the checksum decides.
+                            return HexFormat.of().formatHex(md.digest());
+                        }
+                        System.out.println("Partial download can't be resumed, starting over");
+                        have = 0;
+                        md.reset();
+                        ch.truncate(0);
+                        continue;
+                    } else {
+                        throw new IOException("Download failed: HTTP " + code);
+                    }
+
+                    ch.position(have);
+                    try (InputStream in = conn.getInputStream()) {
+                        byte[] buf = new byte[64 * 1024];
+                        int n;
+                        while ((n = in.read(buf)) > 0) {
+                            ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+                            while (bb.hasRemaining()) ch.write(bb);
+                            md.update(buf, 0, n);
+                            have += n;
+                            if (listener != null) listener.onProgress(have, total);
+                        }
+                    }
+                    if (total > 0 && have < total) {
+                        throw new IOException("Connection closed at " + have + " of " + total + " bytes");
+                    }
+                    return HexFormat.of().formatHex(md.digest());
+                } catch (IOException e) {
+                    if (attempt >= MAX_ATTEMPTS) throw e;
+                    // Whatever was written past the hashed prefix is suspect.
+                    ch.truncate(have);
+                    System.out.println("Download interrupted (" + e.getMessage() + "), resuming at byte " + have);
+                    backoff(attempt);
+                } finally {
+                    conn.disconnect();
+                }
+            }
+        }
+    }
+
+    /**
+     * Fetch a large asset as concurrent byte ranges written at their offsets
+     * in a sibling of {@code part}, moved to {@code part} only once every
+     * segment is in. Returns null (nothing written) when the server doesn't
+     * advertise range support or the asset is too small to be worth it.
+     * Segments retry their own remaining range; the file is hashed once at
+     * the end since segments complete out of order.
+     *
+     * The segment file has holes until it completes, so it is never resumed:
+     * it is deleted on any failure, and one left behind by a killed run is
+     * overwritten. {@code part} only ever holds a contiguous prefix.
+     */
+    private static String downloadParallel(String url, Path part, ProgressListener listener) throws IOException {
+        HttpURLConnection head = openConnection(url);
+        head.setRequestMethod("HEAD");
+        long size;
+        boolean ranges;
+        try {
+            if (head.getResponseCode() != 200) return null;
+            size = head.getContentLengthLong();
+            ranges = "bytes".equalsIgnoreCase(head.getHeaderField("Accept-Ranges"));
+        } finally {
+            head.disconnect();
+        }
+        if (!ranges || size < PARALLEL_MIN_BYTES) return null;
+
+        Path segments = part.resolveSibling(part.getFileName() + ".segments");
+        AtomicLong done = new AtomicLong();
+        boolean complete = false;
+        ExecutorService pool = Executors.newFixedThreadPool(PARALLEL_SEGMENTS, r -> {
+            Thread t = new Thread(r, "decogen-update-segment");
+            t.setDaemon(true);
+            return t;
+        });
+        String digest;
+        try (FileChannel ch = FileChannel.open(segments, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long step = (size + PARALLEL_SEGMENTS - 1) / PARALLEL_SEGMENTS;
+            List<Future<Void>> futures = new ArrayList<>();
+            for (long start = 0; start < size; start += step) {
+                long from = start;
+                long to = Math.min(size, start + step) - 1;
+                futures.add(pool.submit(() -> {
+                    downloadSegment(url, ch, from, to, size, done, listener);
+                    return null;
+                }));
+            }
+            for (Future<Void> f : futures) f.get();
+
+            MessageDigest md = sha256();
+            hashChannel(ch, size, md);
+            digest = HexFormat.of().formatHex(md.digest());
+            complete = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause.getMessage(), cause);
+        } finally {
+            pool.shutdownNow();
+            if (!complete) Files.deleteIfExists(segments);
+        }
+        Files.move(segments, part, StandardCopyOption.REPLACE_EXISTING);
+        return digest;
+    }
+
+    private static void downloadSegment(String url, FileChannel ch, long from, long to, long size,
+                                        AtomicLong done, ProgressListener listener) throws IOException {
+        long pos = from;
+        for (int attempt = 1; ; attempt++) {
+            HttpURLConnection conn = openConnection(url);
+            conn.setRequestProperty("Range", "bytes=" + pos + "-" + to);
+            try {
+                int code = conn.getResponseCode();
+                if (code != 206) throw new IOException("Range request failed: HTTP " + code);
+                try (InputStream in = conn.getInputStream()) {
+                    byte[] buf = new byte[64 * 1024];
+                    int n;
+                    while (pos <= to && (n = in.read(buf, 0, (int) Math.min(buf.length, to - pos + 1))) > 0) {
+                        ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+                        while (bb.hasRemaining()) pos += ch.write(bb, pos);
+                        long total = done.addAndGet(n);
+                        if (listener != null) listener.onProgress(total, size);
+                    }
+                }
+                if (pos <= to) throw new IOException("Segment closed at " + pos + " of " + to);
+                return;
+            } catch (IOException e) {
+                if (attempt >= MAX_ATTEMPTS) throw e;
+                backoff(attempt);
+            } finally {
+                conn.disconnect();
+            }
+        }
+    }
+
+    private static HttpURLConnection openConnection(String url) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
         conn.setRequestProperty("Accept", "application/octet-stream");
         conn.setConnectTimeout(10_000);
         conn.setReadTimeout(30_000);
         conn.setInstanceFollowRedirects(true);
+        return conn;
+    }
 
-        int code = conn.getResponseCode();
-        if (code != 200) {
-            throw new IOException("Download failed: HTTP " + code);
+    /** Total size from "Content-Range: bytes a-b/total", or -1 if unknown. */
+    private static long totalFromContentRange(String contentRange, long have, HttpURLConnection conn)
+            throws IOException {
+        if (contentRange != null) {
+            Matcher m = Pattern.compile("bytes\\s+(\\d+)-\\d+/(\\d+|\\*)").matcher(contentRange);
+            if (m.find()) {
+                if (Long.parseLong(m.group(1)) != have) {
+                    throw new IOException("Server resumed at the wrong offset: " + contentRange);
+                }
+                return "*".equals(m.group(2)) ? -1 : Long.parseLong(m.group(2));
+            }
         }
+        long len = conn.getContentLengthLong();
+        return len >= 0 ? have + len : -1;
+    }
 
-        long contentLength = conn.getContentLengthLong();
-        String name = url.substring(url.lastIndexOf('/') + 1);
-        Path tmp = Files.createTempFile("decogen-update-", "-" + name);
+    /** Total size from a 416's "Content-Range: bytes {@literal *}/total", or -1 if absent. */
+    private static long unsatisfiedTotal(String contentRange) {
+        if (contentRange == null) return -1;
+        Matcher m = Pattern.compile("bytes\\s+\\*/(\\d+)").matcher(contentRange);
+        return m.find() ? Long.parseLong(m.group(1)) : -1;
+    }
 
-        try (InputStream in = conn.getInputStream();
-             OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
-            byte[] buf = new byte[64 * 1024];
-            long total = 0;
-            int n;
-            while ((n = in.read(buf)) > 0) {
-                out.write(buf, 0, n);
-                total += n;
-                if (listener != null) listener.onProgress(total, contentLength);
-            }
+    private static void hashChannel(FileChannel ch, long length, MessageDigest md) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+        long pos = 0;
+        while (pos < length) {
+            buf.clear();
+            if (length - pos < buf.capacity()) buf.limit((int) (length - pos));
+            int n = ch.read(buf, pos);
+            if (n < 0) break;
+            buf.flip();
+            md.update(buf);
+            pos += n;
+        }
+    }
+
+    private static String hashFile(Path file) throws IOException {
+        MessageDigest md = sha256();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            hashChannel(ch, ch.size(), md);
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return tmp;
     }
 
-    public static Path extractArchive(Path archive) throws IOException {
+    private static void backoff(int attempt) throws IOException {
+        try {
+            Thread.sleep(Math.min(8_000L, 500L << attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        }
+    }
+
+    /**
+     * Extract a release archive ({@code .zip} or {@code .tar.gz}) into a new
+     * temp directory, in-process, and return the payload root — the single
+     * top-level folder the release archives wrap their content in. Entries
+     * that would land outside the temp directory are rejected. Progress is
+     * reported as compressed bytes consumed out of the archive size.
+     */
+    public static Path extractArchive(Path archive, ProgressListener listener) throws IOException {
         Path dest = Files.createTempDirectory("decogen-update-extract-");
         String name = archive.getFileName().toString().toLowerCase(Locale.ROOT);
-        if (name.endsWith(".tar.gz") || name.endsWith(".tgz") || name.endsWith(".zip")) {
-            // bsdtar (system "tar") on Windows 10+, macOS, and Linux handles
-            // both .zip and .tar.gz, and tolerates the duplicate dir/file
-            // entries Compress-Archive sometimes emits for jlink's legal/ tree.
-            runTar(archive, dest);
+        Set<String> topLevel = new HashSet<>();
+        if (name.endsWith(".zip")) {
+            extractZip(archive, dest, topLevel, listener);
+        } else if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+            extractTarGz(archive, dest, topLevel, listener);
         } else {
             throw new IOException("Unsupported archive: " + name);
         }
-        return dest;
+        if (topLevel.size() != 1) {
+            throw new IOException("Expected one top-level folder in " + archive.getFileName()
+                    + ", found " + topLevel.size());
+        }
+        Path root = dest.resolve(topLevel.iterator().next());
+        if (!Files.isDirectory(root)) throw new IOException("Archive payload is not a folder: " + root.getFileName());
+        return root;
     }
 
-    private static void runTar(Path archive, Path dest) throws IOException {
-        ProcessBuilder pb = new ProcessBuilder("tar", "-xf", archive.toAbsolutePath().toString(),
-                "-C", dest.toAbsolutePath().toString());
-        pb.redirectErrorStream(true);
-        Process p = pb.start();
-        StringBuilder out = new StringBuilder();
-        try (var r = new java.io.BufferedReader(new java.io.InputStreamReader(p.getInputStream()))) {
-            String line;
-            while ((line = r.readLine()) != null) out.append(line).append('\n');
+    private static void extractZip(Path archive, Path dest, Set<String> topLevel,
+                                   ProgressListener listener) throws IOException {
+        long size = Files.size(archive);
+        try (CountingInputStream counted = new CountingInputStream(
+                     Channels.newInputStream(FileChannel.open(archive, StandardOpenOption.READ)));
+             ZipInputStream zin = new ZipInputStream(new BufferedInputStream(counted, 64 * 1024))) {
+            ZipEntry entry;
+            while ((entry = zin.getNextEntry()) != null) {
+                // Windows PowerShell's Compress-Archive writes backslash separators.
+                String entryName = entry.getName().replace('\\', '/');
+                Path out = safeResolve(dest, entryName, topLevel);
+                if (out == null) continue;
+                if (entry.isDirectory() || entryName.endsWith("/")) {
+                    Files.createDirectories(out);
+                } else {
+                    // Duplicate entries (seen with jlink's legal/ tree) overwrite.
+                    writeEntry(zin, out, -1);
+                }
+                if (listener != null) listener.onProgress(counted.count, size);
+            }
         }
-        try {
-            int code = p.waitFor();
-            if (code != 0) throw new IOException("tar exited " + code + ": " + out);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("tar interrupted", e);
+    }
+
+    private static final int TAR_BLOCK = 512;
+
+    /**
+     * Minimal streaming tar reader: ustar/GNU regular files, directories,
+     * symlinks and hard links, GNU long names ('L'/'K') and pax 'path' /
+     * 'linkpath' / 'size' records. Executable bits are kept where the file
+     * system supports POSIX permissions.
+     *
+     * Each link target is checked on its own, but a chain of links that are
+     * each harmless (a -> ., a/b -> .., a/b/c -> ../..) can still lead out
+     * of {@code dest}. So a new link must also resolve inside {@code dest}
+     * once followed, every write is checked against the real path of its
+     * parent directory, and a regular file replaces a link of the same name
+     * instead of writing through it.
+     */
+    private static void extractTarGz(Path archive, Path dest, Set<String> topLevel,
+                                     ProgressListener listener) throws IOException {
+        long size = Files.size(archive);
+        boolean posix = dest.getFileSystem().supportedFileAttributeViews().contains("posix");
+        Path realDest = dest.toRealPath();
+        try (CountingInputStream counted = new CountingInputStream(
+                     Channels.newInputStream(FileChannel.open(archive, StandardOpenOption.READ)));
+             InputStream in = new BufferedInputStream(new GZIPInputStream(counted, 64 * 1024), 64 * 1024)) {
+            byte[] header = new byte[TAR_BLOCK];
+            String longName = null;
+            String longLink = null;
+            Map<String, String> pax = new HashMap<>();
+            while (true) {
+                if (in.readNBytes(header, 0, TAR_BLOCK) < TAR_BLOCK) throw new IOException("Truncated tar archive");
+                if (isZeroBlock(header)) break;
+
+                char type = (char) header[156];
+                long entrySize = tarNumber(header, 124, 12);
+                if (pax.containsKey("size")) entrySize = Long.parseLong(pax.get("size"));
+
+                if (type == 'L' || type == 'K' || type == 'x' || type == 'g') {
+                    byte[] data = readPadded(in, entrySize);
+                    if (type == 'L') longName = tarString(data, 0, data.length);
+                    else if (type == 'K') longLink = tarString(data, 0, data.length);
+                    else if (type == 'x') parsePax(data, pax);
+                    continue;
+                }
+
+                String entryName = pax.containsKey("path") ? pax.get("path")
+                        : longName != null ? longName : ustarName(header);
+                String linkName = pax.containsKey("linkpath") ? pax.get("linkpath")
+                        : longLink != null ? longLink : tarString(header, 157, 100);
+                int mode = (int) tarNumber(header, 100, 8);
+                longName = null;
+                longLink = null;
+                pax.clear();
+
+                Path out = safeResolve(dest, entryName, topLevel);
+                if (out == null) {
+                    skipPadded(in, entrySize);
+                    continue;
+                }
+                requireRealParentInside(realDest, out, entryName);
+                switch (type) {
+                    case '5' -> Files.createDirectories(out);
+                    case '2' -> {
+                        Path target = out.getParent().resolve(linkName).normalize();
+                        if (!target.startsWith(dest)) throw new IOException("Symlink escapes archive: " + entryName);
+                        Files.createDirectories(out.getParent());
+                        Files.deleteIfExists(out);
+                        Files.createSymbolicLink(out, Paths.get(linkName));
+                        if (Files.exists(out) && !out.toRealPath().startsWith(realDest)) {
+                            Files.delete(out);
+                            throw new IOException("Symlink escapes archive: " + entryName);
+                        }
+                    }
+                    case '1' -> {
+                        Path source = safeResolve(dest, linkName, new HashSet<>());
+                        if (source == null || !Files.isRegularFile(source)
+                                || !source.toRealPath().startsWith(realDest)) {
+                            throw new IOException("Bad hard link in archive: " + entryName);
+                        }
+                        Files.createDirectories(out.getParent());
+                        if (Files.isSymbolicLink(out)) Files.delete(out);
+                        Files.copy(source, out, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    case '0', '\0', '7' -> {
+                        if (Files.isSymbolicLink(out)) Files.delete(out);
+                        writeEntry(in, out, entrySize);
+                        skipPadding(in, entrySize);
+                        if (posix && (mode & 0111) != 0) {
+                            Set<PosixFilePermission> perms = Files.getPosixFilePermissions(out);
+                            perms.add(PosixFilePermission.OWNER_EXECUTE);
+                            if ((mode & 0010) != 0) perms.add(PosixFilePermission.GROUP_EXECUTE);
+                            if ((mode & 0001) != 0) perms.add(PosixFilePermission.OTHERS_EXECUTE);
+                            Files.setPosixFilePermissions(out, perms);
+                        }
+                    }
+                    default -> skipPadded(in, entrySize); // devices, fifos: not in our archives
+                }
+                if (listener != null) listener.onProgress(counted.count, size);
+            }
+        }
+    }
+
+    /**
+     * Reject {@code out} unless the nearest existing directory above it
+     * really lives under {@code realDest} once links are followed. Checked
+     * before anything is created, so no directory appears outside either.
+     */
+    private static void requireRealParentInside(Path realDest, Path out, String entryName) throws IOException {
+        Path dir = out.getParent();
+        while (dir != null && !Files.exists(dir)) dir = dir.getParent();
+        if (dir == null || !dir.toRealPath().startsWith(realDest)) {
+            throw new IOException("Archive entry escapes destination through a link: " + entryName);
         }
     }
 
     /**
-     * Finds the directory inside the extracted archive that contains the
-     * actual app payload (e.g. .../DecocraftJsonGenerator/). The archives
-     * wrap their content in a single top-level folder.
+     * Resolve an archive entry name under {@code dest}, rejecting absolute
+     * names and anything that normalizes outside it. Records the entry's
+     * first path segment in {@code topLevel}. Returns null for entries that
+     * name the archive root itself ("./").
      */
-    public static Path findPayloadRoot(Path extracted) throws IOException {
-        try (var stream = Files.list(extracted)) {
-            return stream.filter(Files::isDirectory).findFirst()
-                    .orElseThrow(() -> new IOException("Empty archive"));
+    private static Path safeResolve(Path dest, String entryName, Set<String> topLevel) throws IOException {
+        String clean = entryName;
+        while (clean.startsWith("./")) clean = clean.substring(2);
+        if (clean.isEmpty() || clean.equals(".")) return null;
+        if (clean.startsWith("/") || clean.matches("^[A-Za-z]:.*")) {
+            throw new IOException("Absolute path in archive: " + entryName);
+        }
+        Path out = dest.resolve(clean).normalize();
+        if (!out.startsWith(dest) || out.equals(dest)) {
+            throw new IOException("Archive entry escapes destination: " + entryName);
+        }
+        topLevel.add(dest.relativize(out).getName(0).toString());
+        return out;
+    }
+
+    /** Copy {@code length} bytes (or to end of entry if negative) into {@code out}. */
+    private static void writeEntry(InputStream in, Path out, long length) throws IOException {
+        Files.createDirectories(out.getParent());
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] buf = new byte[64 * 1024];
+            long remaining = length < 0 ? Long.MAX_VALUE : length;
+            while (remaining > 0) {
+                int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (n < 0) {
+                    if (length < 0) break;
+                    throw new IOException("Truncated archive entry: " + out.getFileName());
+                }
+                ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+                while (bb.hasRemaining()) ch.write(bb);
+                remaining -= n;
+            }
+        }
+    }
+
+    private static byte[] readPadded(InputStream in, long length) throws IOException {
+        if (length > Integer.MAX_VALUE - TAR_BLOCK) throw new IOException("Tar header record too large");
+        byte[] data = in.readNBytes((int) length);
+        if (data.length < length) throw new IOException("Truncated tar archive");
+        skipPadding(in, length);
+        return data;
+    }
+
+    private static void skipPadded(InputStream in, long length) throws IOException {
+        in.skipNBytes(length);
+        skipPadding(in, length);
+    }
+
+    private static void skipPadding(InputStream in, long length) throws IOException {
+        long pad = (TAR_BLOCK - (length % TAR_BLOCK)) % TAR_BLOCK;
+        in.skipNBytes(pad);
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) if (b != 0) return false;
+        return true;
+    }
+
+    private static String ustarName(byte[] header) {
+        String name = tarString(header, 0, 100);
+        boolean ustar = tarString(header, 257, 5).equals("ustar");
+        String prefix = ustar ? tarString(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private static String tarString(byte[] buf, int off, int len) {
+        int end = off;
+        while (end < off + len && buf[end] != 0) end++;
+        return new String(buf, off, end - off, StandardCharsets.UTF_8);
+    }
+
+    /** Octal field, or GNU base-256 when the high bit of the first byte is set. */
+    private static long tarNumber(byte[] buf, int off, int len) {
+        if ((buf[off] & 0x80) != 0) {
+            long v = buf[off] & 0x7f;
+            for (int i = off + 1; i < off + len; i++) v = (v << 8) | (buf[i] & 0xff);
+            return v;
+        }
+        String s = tarString(buf, off, len).trim();
+        return s.isEmpty() ? 0 : Long.parseLong(s, 8);
+    }
+
+    /** Pax records are "LEN key=value\n", LEN counting the whole record. */
+    private static void parsePax(byte[] data, Map<String, String> out) {
+        int pos = 0;
+        while (pos < data.length) {
+            int space = pos;
+            while (space < data.length && data[space] != ' ') space++;
+            if (space >= data.length) break;
+            int len = Integer.parseInt(new String(data, pos, space - pos, StandardCharsets.US_ASCII));
+            if (len <= 0 || pos + len > data.length) break;
+            String record = new String(data, space + 1, pos + len - space - 2, StandardCharsets.UTF_8);
+            int eq = record.indexOf('=');
+            if (eq > 0) out.put(record.substring(0, eq), record.substring(eq + 1));
+            pos += len;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) { super(in); }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
         }
     }
 